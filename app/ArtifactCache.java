@@ -0,0 +1,263 @@
+package app;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk cache of the programs built and run by --test-execution and --run-jit.
+ *
+ * An entry is keyed by the SHA-256 of the source bytes, the build id of the compiler and the backend mode, and
+ * holds the generated .ll file and the captured output of the program, which takes no input, so its output is
+ * all a hit needs: nothing is parsed, generated, built or run, and the binary is not kept. Every lookup that
+ * hits refreshes the entry, and when the cache grows past its size limit the least recently used entries are
+ * removed.
+ *
+ * Configured with system properties:
+ *   aguda.cache         The directory of the cache, which is off unless it is set (or when it is "off")
+ *   aguda.cache.maxMb   The size limit in megabytes (default 256)
+ *
+ * When the AGUDA_CACHE_LOG environment variable names a file, every lookup appends "hit" or "miss" to it,
+ * so the test scripts (one JVM per test) can count them.
+ */
+public class ArtifactCache {
+    private static final String LL_FILE = "program.ll";
+    private static final String OUTPUT_FILE = "output.txt";
+    private static final String STAGING_PREFIX = ".tmp-";
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private static ArtifactCache shared;
+    private static String buildId;
+
+    private final Path dir;
+    private final long maxBytes;
+
+    /**
+     * A cached program
+     *
+     * @param llvmCode The generated LLVM IR
+     * @param output The standard output of the program
+     */
+    public record Entry(String llvmCode, String output) {}
+
+    public ArtifactCache(Path dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return The cache configured with the system properties, or null if it is disabled
+     */
+    public static synchronized ArtifactCache shared() {
+        String location = System.getProperty("aguda.cache", "off");
+        if (location.equals("off")) {
+            return null;
+        }
+        if (shared == null || !shared.dir.equals(Paths.get(location))) {
+            long maxMb = Long.parseLong(System.getProperty("aguda.cache.maxMb", "256"));
+            shared = new ArtifactCache(Paths.get(location), maxMb * 1024 * 1024);
+        }
+        return shared;
+    }
+
+    /**
+     * @param source The bytes of the .agu file (not consumed)
+     * @param backend The backend flags the program is built with
+     * @return The key of the program
+     */
+    public String key(ByteBuffer source, String backend) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(source.duplicate());
+        digest.update((byte) 0);
+        digest.update(buildId().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(backend.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Looks a program up, counting the hit or the miss. An entry that lacks one of its files (e.g. one that is
+     * being evicted) is a miss, and is removed so that the program can be stored again.
+     *
+     * @param key The key of the program
+     * @return The cached program, if there is one
+     */
+    public Optional<Entry> lookup(String key) {
+        Path entry = dir.resolve(key);
+        try {
+            String llvmCode = Files.readString(entry.resolve(LL_FILE), StandardCharsets.UTF_8);
+            String output = Files.readString(entry.resolve(OUTPUT_FILE), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            count(hits, "hit");
+            return Optional.of(new Entry(llvmCode, output));
+        } catch (IOException e) {
+            // Missing, or removed by another process while it was read. Entries are stored whole, so what is left
+            // of one is only in the way of the next store
+            if (Files.isDirectory(entry)) {
+                deleteTree(entry);
+            }
+            count(misses, "miss");
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a program that was built and run, then evicts entries if the cache is too big. The entry is put
+     * together in a staging directory and moved in place, so a lookup never sees half of it.
+     *
+     * @param key The key of the program
+     * @param llvmCode The generated LLVM IR
+     * @param output The standard output of the program
+     */
+    public void store(String key, String llvmCode, String output) throws IOException {
+        Files.createDirectories(dir);
+        Path staging = Files.createTempDirectory(dir, STAGING_PREFIX);
+        try {
+            Files.writeString(staging.resolve(LL_FILE), llvmCode, StandardCharsets.UTF_8);
+            Files.writeString(staging.resolve(OUTPUT_FILE), output, StandardCharsets.UTF_8);
+            Files.move(staging, dir.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileSystemException e) {
+            if (!Files.isDirectory(dir.resolve(key))) {
+                throw e;
+            }
+            // Stored by another thread or process in the meantime, with the same content
+            return;
+        } finally {
+            deleteTree(staging);
+        }
+        evict();
+    }
+
+    /**
+     * @return The number of lookups that hit since the JVM started
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of lookups that missed since the JVM started
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Removes the least recently used entries until the cache fits in its size limit, along with
+     * staging directories left behind by runs that were killed
+     */
+    private synchronized void evict() throws IOException {
+        record Sized(Path path, long lastUsed, long bytes) {}
+
+        List<Sized> entries = new ArrayList<>();
+        long total = 0;
+        long stale = System.currentTimeMillis() - 60 * 60 * 1000;
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+            for (Path child : children) {
+                try {
+                    long lastUsed = Files.getLastModifiedTime(child).toMillis();
+                    if (child.getFileName().toString().startsWith(STAGING_PREFIX)) {
+                        if (lastUsed < stale) {
+                            deleteTree(child);
+                        }
+                        continue;
+                    }
+                    long bytes = size(child);
+                    entries.add(new Sized(child, lastUsed, bytes));
+                    total += bytes;
+                } catch (NoSuchFileException e) {
+                    // Evicted by another process
+                }
+            }
+        }
+
+        entries.sort(Comparator.comparingLong(Sized::lastUsed));
+        for (Sized entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            deleteTree(entry.path);
+            total -= entry.bytes;
+        }
+    }
+
+    private static void count(AtomicLong counter, String event) {
+        counter.incrementAndGet();
+        String log = System.getenv("AGUDA_CACHE_LOG");
+        if (log != null) {
+            try {
+                Files.writeString(Paths.get(log), event + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                // Only used for the summary of the scripts
+            }
+        }
+    }
+
+    /**
+     * The build id of the compiler: the hash of every class it is made of, so that entries built by another
+     * version of the compiler are never used. It can be set with the aguda.buildId system property.
+     */
+    static synchronized String buildId() throws IOException {
+        if (buildId == null) {
+            buildId = System.getProperty("aguda.buildId");
+        }
+        if (buildId == null) {
+            MessageDigest digest = sha256();
+            Set<Path> locations = new TreeSet<>();
+            for (Class<?> c : List.of(Main.class, aguda.codegen.CodeGenerator.class)) {
+                try {
+                    locations.add(Paths.get(c.getProtectionDomain().getCodeSource().getLocation().toURI()));
+                } catch (URISyntaxException | NullPointerException | SecurityException e) {
+                    throw new IOException("Could not find the classes of the compiler: " + e.getMessage(), e);
+                }
+            }
+            for (Path location : locations) {
+                List<Path> files;
+                try (var walk = Files.walk(location)) {
+                    files = walk.filter(Files::isRegularFile).sorted().toList();
+                }
+                for (Path file : files) {
+                    if (Files.isDirectory(location) && !file.toString().endsWith(".class")) {
+                        continue;
+                    }
+                    digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                    digest.update(Files.readAllBytes(file));
+                }
+            }
+            buildId = HexFormat.of().formatHex(digest.digest());
+        }
+        return buildId;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static long size(Path path) throws IOException {
+        try (var walk = Files.walk(path)) {
+            return walk.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteTree(Path path) {
+        try (var walk = Files.walk(path)) {
+            for (Path file : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            // Being removed by another process, or already gone
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package app;
+
+import aguda.ast.FlatAst;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk cache of the ASTs of the programs that parsed without errors, so that a file that did not change is
+ * not lexed and parsed again.
+ *
+ * An entry is keyed by the SHA-256 of the source bytes and the build id of the compiler, and is one file: the
+ * time the parse took (lex, parse and AST), then the AST in the encoding of {@link FlatAst#encode}, positions
+ * included. It is loaded with one read of the whole file. Entries are never changed once written and nothing
+ * else is kept, so the directory can be removed at any time.
+ *
+ * Off unless the aguda.astCache system property names the directory of the cache.
+ */
+public class AstCache {
+    private static final String SUFFIX = ".ast";
+    private static final String STAGING_PREFIX = ".tmp-";
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong loadNanos = new AtomicLong();
+    private static final AtomicLong parseNanos = new AtomicLong();
+
+    private static AstCache shared;
+
+    private final Path dir;
+
+    /**
+     * A cached AST
+     *
+     * @param ast The AST, with the identifiers of the program
+     * @param parseNanos How long lexing, parsing and building the AST took when it was stored
+     */
+    public record Entry(FlatAst ast, long parseNanos) {}
+
+    public AstCache(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * @return The cache configured with the system property, or null if it is disabled
+     */
+    public static synchronized AstCache shared() {
+        String location = System.getProperty("aguda.astCache");
+        if (location == null || location.equals("off")) {
+            return null;
+        }
+        if (shared == null || !shared.dir.equals(Paths.get(location))) {
+            shared = new AstCache(Paths.get(location));
+        }
+        return shared;
+    }
+
+    /**
+     * @param source The bytes of the .agu file (not consumed)
+     * @return The key of the AST of the file
+     */
+    public String key(ByteBuffer source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update(source.duplicate());
+        digest.update((byte) 0);
+        digest.update(ArtifactCache.buildId().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Loads an AST, counting the hit (with the time it took) or the miss
+     *
+     * @param key The key of the file
+     * @return The cached AST, if there is one
+     */
+    public Optional<Entry> load(String key) {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(dir.resolve(key + SUFFIX), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Entry too large: " + size + " bytes");
+            }
+            ByteBuffer bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // Usually one read
+            }
+            bytes.flip();
+            long parsed = bytes.getLong();
+            Entry entry = new Entry(FlatAst.decode(bytes), parsed);
+            hits.incrementAndGet();
+            loadNanos.addAndGet(System.nanoTime() - start);
+            parseNanos.addAndGet(parsed);
+            return Optional.of(entry);
+        } catch (IOException | IllegalArgumentException | BufferUnderflowException e) {
+            // Missing, or cut short by a run that was killed while it wrote it
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the AST of a file that parsed without errors
+     *
+     * @param key The key of the file
+     * @param ast Its AST
+     * @param parseNanos How long lexing, parsing and building the AST took
+     */
+    public void store(String key, FlatAst ast, long parseNanos) throws IOException {
+        ByteBuffer encoded = ast.encode();
+        Files.createDirectories(dir);
+        Path staging = Files.createTempFile(dir, STAGING_PREFIX, SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(staging, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(Long.BYTES).putLong(0, parseNanos);
+                ByteBuffer[] buffers = {header, encoded};
+                while (encoded.hasRemaining()) {
+                    channel.write(buffers);
+                }
+            }
+            // Another thread or process may store the same entry in the meantime, with the same content
+            Files.move(staging, dir.resolve(key + SUFFIX), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+
+    /**
+     * @return The number of loads that hit since the JVM started
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of loads that missed since the JVM started
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The nanoseconds spent loading the ASTs that hit since the JVM started
+     */
+    public static long getLoadNanos() {
+        return loadNanos.get();
+    }
+
+    /**
+     * @return The nanoseconds that lexing, parsing and building the ASTs that hit took when they were stored
+     */
+    public static long getParseNanos() {
+        return parseNanos.get();
+    }
+}
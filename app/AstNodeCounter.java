@@ -0,0 +1,154 @@
+package app;
+
+import aguda.ast.*;
+
+import java.util.List;
+
+/**
+ * Counts the nodes of an AST, for --stats. The body of a function is only counted if it was built already, so
+ * counting never parses a lazy body nor builds one from a {@link FlatAst}.
+ */
+final class AstNodeCounter implements AstVisitor<Long> {
+    private static final AstNodeCounter INSTANCE = new AstNodeCounter();
+
+    private AstNodeCounter() {}
+
+    /**
+     * @return The number of nodes of the tree of this node, 0 for null
+     */
+    static long count(AstNode node) {
+        return node == null ? 0 : node.accept(INSTANCE);
+    }
+
+    private static long count(List<AstNode> nodes) {
+        long count = 0;
+        for (AstNode node : nodes) {
+            count += count(node);
+        }
+        return count;
+    }
+
+    @Override
+    public Long visitProgram(Program node) {
+        return 1 + count(node.declarations);
+    }
+
+    @Override
+    public Long visitVariableDeclaration(VariableDeclaration node) {
+        return 1 + count(node.typeElem) + count(node.exprs);
+    }
+
+    @Override
+    public Long visitFunctionTypeDeclaration(FunctionTypeDeclaration node) {
+        return 1 + count(node.idList) + count(node.functionType) + count(node.getBuiltExprs());
+    }
+
+    @Override
+    public Long visitIdList(IdList node) {
+        return 1 + count(node.ids);
+    }
+
+    @Override
+    public Long visitFunctionType(FunctionType node) {
+        return 1 + count(node.typeList) + count(node.returnType);
+    }
+
+    @Override
+    public Long visitTypeList(TypeList node) {
+        return 1 + count(node.typesParam);
+    }
+
+    @Override
+    public Long visitBasicType(BasicType node) {
+        return 1L;
+    }
+
+    @Override
+    public Long visitArrayType(ArrayType node) {
+        return 1 + count(node.basicType);
+    }
+
+    @Override
+    public Long visitExpressions(Expressions node) {
+        return 1 + count(node.expressions);
+    }
+
+    @Override
+    public Long visitLetExpression(LetExpression node) {
+        return 1 + count(node.type) + count(node.blockExpr);
+    }
+
+    @Override
+    public Long visitIfExpression(IfExpression node) {
+        return 1 + count(node.condition) + count(node.thenBranch) + count(node.elseBranch);
+    }
+
+    @Override
+    public Long visitSetExpression(SetExpression node) {
+        return 1 + count(node.lhs) + count(node.value);
+    }
+
+    @Override
+    public Long visitWhileExpression(WhileExpression node) {
+        return 1 + count(node.condition) + count(node.body);
+    }
+
+    @Override
+    public Long visitCallFunctionExpression(CallFunctionExpression node) {
+        return 1 + count(node.exprs);
+    }
+
+    @Override
+    public Long visitBinaryOp(BinaryOp node) {
+        return 1 + count(node.left) + count(node.right);
+    }
+
+    @Override
+    public Long visitUnaryOp(UnaryOp node) {
+        return 1 + count(node.expr);
+    }
+
+    @Override
+    public Long visitArrayAccess(ArrayAccess node) {
+        return 1 + count(node.array) + count(node.indices);
+    }
+
+    @Override
+    public Long visitArrayCreation(ArrayCreation node) {
+        long count = 1;
+        for (ArrayCreation.Dimension dimension : node.getDimensions()) {
+            count += count(dimension.sizeExpr) + count(dimension.initExpr);
+        }
+        return count;
+    }
+
+    @Override
+    public Long visitParenthicalExpression(ParenthicalExpression node) {
+        return 1 + count(node.expression);
+    }
+
+    @Override
+    public Long visitIdentifier(Identifier node) {
+        return 1L;
+    }
+
+    @Override
+    public Long visitIntLiteral(IntLiteral node) {
+        return 1L;
+    }
+
+    @Override
+    public Long visitBoolLiteral(BoolLiteral node) {
+        return 1L;
+    }
+
+    @Override
+    public Long visitStringLiteral(StringLiteral node) {
+        return 1L;
+    }
+
+    @Override
+    public Long visitNullLiteral(NullLiteral node) {
+        return 1L;
+    }
+}
@@ -0,0 +1,189 @@
+package app;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+/**
+ * Runs the compiler over many files in a single JVM, on a bounded pool of worker threads.
+ * Every file goes through {@link Main#run} with its own output streams, so a failing file
+ * never stops the batch, and results are reported in the order of the input files.
+ */
+public class BatchCompiler {
+
+    private final List<Path> files;
+    private final String mode;
+    private final int maxErrors;
+    private final int jobs;
+
+    public BatchCompiler(List<Path> files, String mode, int maxErrors, int jobs) {
+        this.files = files;
+        this.mode = mode;
+        this.maxErrors = maxErrors;
+        this.jobs = jobs;
+    }
+
+    /**
+     * Builds a batch from the arguments: --batch [--jobs n] flag max_number_of_errors paths...
+     * Directories are searched recursively for .agu files.
+     *
+     * @param args The command line arguments, starting with --batch
+     * @param err Where usage problems are reported
+     * @return The batch to run
+     */
+    public static BatchCompiler fromArgs(String[] args, PrintStream err) throws IOException {
+        int i = 1;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        if (i < args.length && args[i].equals("--jobs")) {
+            jobs = Math.max(1, Integer.parseInt(args[i + 1]));
+            i += 2;
+        }
+        if (args.length < i + 3) {
+            err.println("Usage: java Main --batch [--jobs <n>] <flag> <max_number_of_errors> <file.agu | directory>...");
+            return new BatchCompiler(List.of(), null, 0, 1);
+        }
+        String mode = args[i];
+        int maxErrors = Integer.parseInt(args[i + 1]);
+
+        // In the order of the arguments, the files of a directory sorted, so every run reports them in the same
+        // order. A file named twice (e.g. once with a relative and once with an absolute path) is compiled once,
+        // under the first of its names
+        Map<Path, Path> files = new LinkedHashMap<>();
+        for (int j = i + 2; j < args.length; j++) {
+            Path path = Paths.get(args[j]);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    List<Path> found = walk.filter(p -> p.toString().endsWith(".agu") && Files.isRegularFile(p))
+                        .sorted()
+                        .toList();
+                    for (Path file : found) {
+                        files.putIfAbsent(identity(file), file);
+                    }
+                }
+            } else {
+                files.putIfAbsent(identity(path), path);
+            }
+        }
+        return new BatchCompiler(new ArrayList<>(files.values()), mode, maxErrors, jobs);
+    }
+
+    /**
+     * @return The real path of a file, or its absolute path if it does not exist (it is reported when compiled)
+     */
+    private static Path identity(Path file) {
+        try {
+            return file.toRealPath();
+        } catch (IOException e) {
+            return file.toAbsolutePath().normalize();
+        }
+    }
+
+    /**
+     * Compiles every file and prints one line per file followed by a summary
+     *
+     * @param out Where the results are written
+     * @return 0 if every file passed, 1 otherwise
+     */
+    public int run(PrintStream out) {
+        if (mode == null) return 1;
+
+        // Output of --ast and --parser is the product itself, for the other modes it only matters on failure
+        boolean printAll = mode.equals("--ast") || mode.equals("--parser");
+        // Bounds how many finished results wait to be printed in order
+        int window = jobs * 4;
+
+        // Deeply nested programs recurse deeply in the parser, checker and code generator
+        ExecutorService pool = Executors.newFixedThreadPool(jobs, runnable -> {
+            Thread thread = new Thread(null, runnable, "aguda-batch", 256L << 20);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        int passed = 0;
+        int failed = 0;
+        long start = System.nanoTime();
+        // The compile server runs many batches in one JVM, only this one is reported
+        long hitsBefore = ArtifactCache.getHits();
+        long missesBefore = ArtifactCache.getMisses();
+        long astHitsBefore = AstCache.getHits();
+        long astMissesBefore = AstCache.getMisses();
+        long astLoadBefore = AstCache.getLoadNanos();
+        long astParseBefore = AstCache.getParseNanos();
+        try {
+            Deque<Future<Result>> pending = new ArrayDeque<>();
+            Iterator<Path> next = files.iterator();
+            while (next.hasNext() || !pending.isEmpty()) {
+                while (next.hasNext() && pending.size() < window) {
+                    Path file = next.next();
+                    pending.add(pool.submit(() -> compile(file)));
+                }
+
+                Result result = pending.poll().get();
+                if (result.exitCode == 0) {
+                    passed++;
+                    out.println("✅ " + result.file);
+                } else {
+                    failed++;
+                    out.println("❌ " + result.file);
+                }
+                if (printAll || result.exitCode != 0) {
+                    out.print(result.output);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            out.println("Batch interrupted.");
+            return 1;
+        } catch (ExecutionException e) {
+            // compile() catches everything, this only happens if the pool itself breaks
+            out.println("Batch failed: " + e.getCause());
+            return 1;
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        out.println("\n=============================== 📋");
+        out.println("✅ SUMMARY");
+        out.println("📊 TOTAL: " + files.size() + " | ✅ PASSED: " + passed + " | ❌ FAILED: " + failed);
+        out.println("⏱️  " + elapsed + " ms on " + jobs + " thread(s)");
+        long hits = ArtifactCache.getHits() - hitsBefore;
+        long misses = ArtifactCache.getMisses() - missesBefore;
+        if (hits + misses > 0) {
+            out.println("🗄️  CACHE: " + hits + " hit(s) | " + misses + " miss(es)");
+        }
+        long astHits = AstCache.getHits() - astHitsBefore;
+        long astMisses = AstCache.getMisses() - astMissesBefore;
+        if (astHits + astMisses > 0) {
+            // What the hits cost to load, against what parsing them cost when they were stored
+            out.printf("🌳 AST CACHE: %d hit(s) | %d miss(es) | loaded in %.1f ms, parsed in %.1f ms%n", astHits, astMisses,
+                    (AstCache.getLoadNanos() - astLoadBefore) / 1e6, (AstCache.getParseNanos() - astParseBefore) / 1e6);
+        }
+        return failed == 0 ? 0 : 1;
+    }
+
+    /**
+     * Compiles one file, capturing its output
+     *
+     * @param file The file to compile
+     * @return The exit code and output of the compilation
+     */
+    private Result compile(Path file) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int exitCode;
+        try (PrintStream stream = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            try {
+                exitCode = Main.run(new String[] { file.toString(), mode, String.valueOf(maxErrors) }, stream, stream);
+            } catch (Exception | StackOverflowError e) {
+                stream.println("Internal compiler error: " + e);
+                exitCode = 1;
+            }
+        }
+        return new Result(file, exitCode, bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    private record Result(Path file, int exitCode, String output) {}
+}
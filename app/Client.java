@@ -0,0 +1,99 @@
+package app;
+
+import java.io.*;
+import java.net.*;
+import java.nio.file.*;
+
+/**
+ * Thin client for {@link CompileServer}. It accepts exactly the same arguments as {@link Main},
+ * forwards them to the server and reproduces its output and exit code, so it can replace
+ * "java app.Main" in the test scripts.
+ *
+ * The port is read from the AGUDA_PORT environment variable (default 4545).
+ * If no server is running, or it drops the connection before answering, the request is compiled in this JVM
+ * instead.
+ */
+public class Client {
+    public static void main(String[] args) throws IOException {
+        String portEnv = System.getenv("AGUDA_PORT");
+        int port = portEnv != null ? Integer.parseInt(portEnv) : CompileServer.DEFAULT_PORT;
+
+        // The server does not share our working directory
+        String[] request = args.clone();
+        for (int i = 0; i < request.length; i++) {
+            if (!request[i].startsWith("--") && Files.exists(Paths.get(request[i]))) {
+                request[i] = Paths.get(request[i]).toAbsolutePath().toString();
+            }
+        }
+
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (ConnectException e) {
+            socket.close();
+            compileHere(args, port);
+        }
+
+        int exitCode;
+        byte[] stdout;
+        byte[] stderr;
+        try (socket) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(request.length);
+            for (String arg : request) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            exitCode = in.readInt();
+            stdout = readBytes(in);
+            stderr = readBytes(in);
+        } catch (IOException e) {
+            // The server went away without an answer, nothing was printed yet
+            compileHere(args, port);
+            return;
+        }
+
+        System.out.write(stdout);
+        System.out.flush();
+        System.err.write(stderr);
+        System.err.flush();
+        System.exit(exitCode);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException();
+        }
+        return bytes;
+    }
+
+    /**
+     * Compiles the request in this JVM, as there is no server to do it, and exits. Like the server, on a thread
+     * with a large stack, for deeply nested programs.
+     */
+    private static void compileHere(String[] args, int port) {
+        if (args.length == 1 && args[0].equals(CompileServer.SHUTDOWN)) {
+            System.err.println("No server running on port " + port);
+            System.exit(1);
+        }
+        int[] exitCode = {1};
+        Thread thread = new Thread(null, () -> {
+            try {
+                exitCode[0] = Main.run(args, System.out, System.err);
+            } catch (Exception | StackOverflowError e) {
+                System.err.println("Internal compiler error: " + e);
+            }
+        }, "aguda-client", 256L << 20);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.exit(exitCode[0]);
+    }
+}
@@ -0,0 +1,116 @@
+package app;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+
+/**
+ * Keeps one warm JVM alive and serves compile/check/execute requests over a loopback socket,
+ * so the ANTLR parser and the compiler only pay class loading and JIT warm up once.
+ *
+ * Protocol (one request per connection, see {@link Client}):
+ *   request:  int argc, then argc strings (writeUTF)
+ *   response: int exitCode, int outLength, out bytes, int errLength, err bytes
+ *
+ * A request whose only argument is "--shutdown" stops the server.
+ */
+public class CompileServer {
+
+    public static final int DEFAULT_PORT = 4545;
+    public static final String SHUTDOWN = "--shutdown";
+
+    private final int port;
+    // Runs the requests, one at a time: deeply nested programs recurse deeply in the parser, checker and code
+    // generator, which the stack of the main thread may not hold
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(null, runnable, "aguda-server", 256L << 20);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CompileServer(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Accepts requests until a shutdown request arrives.
+     * Requests are served one at a time, in the order they arrive.
+     */
+    public void serve() throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Aguda compile server listening on " + server.getLocalSocketAddress());
+            boolean running = true;
+            while (running) {
+                try (Socket socket = server.accept()) {
+                    running = handle(socket);
+                } catch (IOException e) {
+                    System.err.println("Error serving request: " + e.getMessage());
+                } catch (RuntimeException | Error e) {
+                    // A failing request must never bring the server down
+                    System.err.println("Error serving request: " + e);
+                }
+            }
+        } finally {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * Serves a single request
+     *
+     * @param socket The connection with the client
+     * @return false if the request asked the server to stop, true otherwise
+     */
+    private boolean handle(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream response = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = in.readUTF();
+        }
+
+        if (args.length == 1 && args[0].equals(SHUTDOWN)) {
+            writeResponse(response, 0, new byte[0], "Server stopped.\n".getBytes(StandardCharsets.UTF_8));
+            return false;
+        }
+
+        ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        int exitCode;
+        try (PrintStream out = new PrintStream(outBytes, true, StandardCharsets.UTF_8);
+             PrintStream err = new PrintStream(errBytes, true, StandardCharsets.UTF_8)) {
+            try {
+                exitCode = worker.submit(() -> {
+                    try {
+                        return Main.run(args, out, err);
+                    } catch (Exception | StackOverflowError e) {
+                        // A failing request must never bring the server down
+                        err.println("Internal compiler error: " + e);
+                        return 1;
+                    }
+                }).get();
+            } catch (ExecutionException e) {
+                err.println("Internal compiler error: " + e.getCause());
+                exitCode = 1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                err.println("Interrupted");
+                exitCode = 1;
+            }
+        }
+
+        writeResponse(response, exitCode, outBytes.toByteArray(), errBytes.toByteArray());
+        return true;
+    }
+
+    private static void writeResponse(DataOutputStream response, int exitCode, byte[] out, byte[] err) throws IOException {
+        response.writeInt(exitCode);
+        response.writeInt(out.length);
+        response.write(out);
+        response.writeInt(err.length);
+        response.write(err);
+        response.flush();
+    }
+}
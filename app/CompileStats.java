@@ -0,0 +1,220 @@
+package app;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Wall time, CPU time and allocated bytes of each phase of one compilation (lex, parse, ast, check, codegen,
+ * llc, clang, execute), in the order the phases ran, plus counts such as tokens or IR instructions.
+ * Phases run one after the other, starting a phase ends the previous one.
+ *
+ * CPU time and allocations are the ones of the compiling thread, so for the phases that run an external
+ * tool (build, llc, clang, execute, jit) only the wall time is meaningful. The phases that also ran on a pool
+ * (-Daguda.parser.jobs, -Daguda.check.jobs) are marked as such, in the table and in the JSON.
+ */
+public class CompileStats {
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final boolean detailed;
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final Map<String, Long> phaseCpuNanos = new LinkedHashMap<>();
+    private final Map<String, Long> phaseAllocatedBytes = new LinkedHashMap<>();
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final Set<String> mainThreadOnly = new HashSet<>();
+    private String currentPhase;
+    private long phaseStart;
+    private long phaseCpuStart;
+    private long phaseAllocatedStart;
+
+    public CompileStats() {
+        this(false);
+    }
+
+    /**
+     * @param detailed Whether the compiler should also spend time counting tokens, nodes and instructions (--stats)
+     */
+    public CompileStats(boolean detailed) {
+        this.detailed = detailed;
+    }
+
+    /**
+     * @return Whether counts were asked for
+     */
+    public boolean isDetailed() {
+        return detailed;
+    }
+
+    /**
+     * Ends the running phase (if any) and starts measuring a new one
+     *
+     * @param phase The name of the phase
+     * @throws CancellationException If the compiling thread was interrupted, e.g. by a test that timed out
+     */
+    public void start(String phase) {
+        stop();
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Interrupted before " + phase);
+        }
+        currentPhase = phase;
+        phaseAllocatedStart = allocatedBytes();
+        phaseCpuStart = cpuNanos();
+        phaseStart = System.nanoTime();
+    }
+
+    /**
+     * Ends the running phase (if any)
+     */
+    public void stop() {
+        if (currentPhase != null) {
+            phaseNanos.merge(currentPhase, System.nanoTime() - phaseStart, Long::sum);
+            phaseCpuNanos.merge(currentPhase, cpuNanos() - phaseCpuStart, Long::sum);
+            phaseAllocatedBytes.merge(currentPhase, allocatedBytes() - phaseAllocatedStart, Long::sum);
+            currentPhase = null;
+        }
+    }
+
+    /**
+     * Marks a phase whose work is partly done by other threads, whose CPU time and allocations are not counted
+     *
+     * @param phase The name of the phase
+     */
+    public void mainThreadOnly(String phase) {
+        mainThreadOnly.add(phase);
+    }
+
+    /**
+     * Records a count, adding to it if it was already recorded
+     *
+     * @param name What was counted (e.g. "tokens")
+     * @param value How many there are
+     */
+    public void count(String name, long value) {
+        counts.merge(name, value, Long::sum);
+    }
+
+    /**
+     * Counts the instructions and basic blocks of generated LLVM code
+     *
+     * @param llvmCode The LLVM IR of the program
+     */
+    public void countIr(String llvmCode) {
+        long instructions = 0;
+        long blocks = 0;
+        long functions = 0;
+        boolean inFunction = false;
+        for (String line : llvmCode.split("\n")) {
+            String instruction = line.trim();
+            if (instruction.isEmpty() || instruction.startsWith(";")) {
+                continue;
+            }
+            if (instruction.startsWith("define ")) {
+                inFunction = true;
+                functions++;
+            } else if (instruction.equals("}")) {
+                inFunction = false;
+            } else if (inFunction && instruction.endsWith(":")) {
+                blocks++;
+            } else if (inFunction) {
+                instructions++;
+            }
+        }
+        count("ir.functions", functions);
+        count("ir.basicBlocks", blocks);
+        count("ir.instructions", instructions);
+    }
+
+    /**
+     * @return The nanoseconds spent in each finished phase, in the order the phases ran
+     */
+    public Map<String, Long> getPhaseNanos() {
+        return phaseNanos;
+    }
+
+    /**
+     * @return The CPU nanoseconds of the compiling thread in each finished phase (-1 if not supported)
+     */
+    public Map<String, Long> getPhaseCpuNanos() {
+        return phaseCpuNanos;
+    }
+
+    /**
+     * @return The bytes allocated by the compiling thread in each finished phase (-1 if not supported)
+     */
+    public Map<String, Long> getPhaseAllocatedBytes() {
+        return phaseAllocatedBytes;
+    }
+
+    /**
+     * @return Every count recorded, in the order they were recorded
+     */
+    public Map<String, Long> getCounts() {
+        return counts;
+    }
+
+    /**
+     * Prints a table with every phase and every count
+     */
+    public void print(PrintStream out) {
+        out.println("\n📊 Compile statistics:");
+        out.printf("%-10s %12s %12s %14s%n", "phase", "wall ms", "cpu ms", "allocated KB");
+        long wall = 0;
+        long cpu = 0;
+        long allocated = 0;
+        for (String phase : phaseNanos.keySet()) {
+            wall += phaseNanos.get(phase);
+            cpu += Math.max(0, phaseCpuNanos.get(phase));
+            allocated += Math.max(0, phaseAllocatedBytes.get(phase));
+            out.printf("%-10s %12.3f %12.3f %14.1f%s%n", phase, phaseNanos.get(phase) / 1e6,
+                    phaseCpuNanos.get(phase) / 1e6, phaseAllocatedBytes.get(phase) / 1024.0,
+                    mainThreadOnly.contains(phase) ? " *" : "");
+        }
+        out.printf("%-10s %12.3f %12.3f %14.1f%s%n", "total", wall / 1e6, cpu / 1e6, allocated / 1024.0,
+                mainThreadOnly.isEmpty() ? "" : " *");
+        if (!mainThreadOnly.isEmpty()) {
+            out.println("* cpu and allocated of the main thread only, without the threads of the pool");
+        }
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            out.printf("%-20s %d%n", count.getKey(), count.getValue());
+        }
+    }
+
+    /**
+     * Writes every phase and every count as a JSON object
+     *
+     * @param path The JSON file
+     */
+    public void writeJson(Path path) throws IOException {
+        StringBuilder sb = new StringBuilder("{\n  \"phases\": [");
+        int i = 0;
+        for (String phase : phaseNanos.keySet()) {
+            sb.append(i++ == 0 ? "\n" : ",\n");
+            sb.append("    {\"phase\": \"").append(phase).append("\"")
+              .append(", \"wallNanos\": ").append(phaseNanos.get(phase))
+              .append(", \"cpuNanos\": ").append(phaseCpuNanos.get(phase))
+              .append(", \"allocatedBytes\": ").append(phaseAllocatedBytes.get(phase))
+              .append(", \"mainThreadOnly\": ").append(mainThreadOnly.contains(phase)).append("}");
+        }
+        sb.append("\n  ],\n  \"counts\": {");
+        i = 0;
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            sb.append(i++ == 0 ? "\n" : ",\n");
+            sb.append("    \"").append(count.getKey()).append("\": ").append(count.getValue());
+        }
+        sb.append("\n  }\n}\n");
+        Files.writeString(path, sb.toString());
+    }
+
+    private static long cpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,223 @@
+package app;
+
+import aguda.ast.*;
+import aguda.checker.Checker;
+import aguda.codegen.CodeGenerator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * Checks and generates a program declaration by declaration, reusing what was found for every top-level
+ * declaration that did not change since the last run (--incremental).
+ *
+ * A declaration is identified by a fingerprint of its source text (from where it starts to where the next one
+ * starts), its column, and the signature of every global it mentions. Its semantic errors (with lines relative
+ * to the declaration, so they survive edits above it) and its LLVM code are kept in a .inc file next to
+ * the source, so only the declarations that were edited, or whose dependencies changed, are checked and
+ * generated again. Parsing and the predeclaration of the globals are still done for the whole file.
+ */
+public class IncrementalCompiler {
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-zA-Z_][a-zA-Z0-9'_]*");
+
+    /**
+     * What is kept for a declaration
+     *
+     * @param check Its semantic errors
+     * @param code Its LLVM code, or null if it was not generated (the program had errors)
+     */
+    private record DeclarationState(Checker.DeclarationResult check, CodeGenerator.EmittedDeclaration code) implements Serializable {}
+
+    private record State(String buildId, Map<String, DeclarationState> declarations) implements Serializable {}
+
+    private final Path stateFile;
+    private final Program program;
+    private final int maxErrors;
+    private final List<String> fingerprints = new ArrayList<>();
+    private final Map<String, DeclarationState> previous;
+    private final Map<String, DeclarationState> current = new HashMap<>();
+    private int checked;
+    private int generated;
+
+    /**
+     * Fingerprints the declarations of the program and loads what was kept by the last run
+     *
+     * @param filename The .agu file
+     * @param program The program parsed from it
+     * @param maxErrors The maximum number of errors to show
+     */
+    public IncrementalCompiler(String filename, Program program, int maxErrors) throws IOException {
+        this.stateFile = Paths.get(filename.replace(".agu", "") + ".inc");
+        this.program = program;
+        this.maxErrors = maxErrors;
+
+        String source = Files.readString(Paths.get(filename), StandardCharsets.UTF_8);
+        fingerprint(source);
+        previous = load();
+    }
+
+    /**
+     * Checks the program, like {@link Checker#typeof} does, but only the declarations that changed
+     *
+     * @throws RuntimeException If there are semantic errors, which are in the error message of the checker
+     */
+    public void check(Checker checker) {
+        checker.predeclareAll(program);
+        for (int i = 0; i < program.declarations.size(); i++) {
+            AstNode decl = program.declarations.get(i);
+            DeclarationState kept = previous.get(fingerprints.get(i));
+
+            Checker.DeclarationResult result;
+            if (kept != null && kept.check().covers(maxErrors)) {
+                checker.replay(kept.check(), decl);
+                result = kept.check();
+            } else {
+                result = checker.checkDeclaration(decl);
+                kept = null;
+                checked++;
+            }
+            current.put(fingerprints.get(i), new DeclarationState(result, kept != null ? kept.code() : null));
+        }
+        checker.finish();
+    }
+
+    /**
+     * Generates the program, like {@link CodeGenerator#generate} does, but only the declarations that changed.
+     * Must be called after {@link #check}.
+     *
+     * @return The LLVM code of the program
+     */
+    public String generate(CodeGenerator generator) {
+        generator.prepare(program);
+        for (int i = 0; i < program.declarations.size(); i++) {
+            DeclarationState state = current.get(fingerprints.get(i));
+            CodeGenerator.EmittedDeclaration code = state.code();
+            if (code == null) {
+                code = generator.generateDeclaration(program.declarations.get(i), program);
+                generated++;
+                if (!code.hasErrors()) {
+                    current.put(fingerprints.get(i), new DeclarationState(state.check(), code));
+                }
+            }
+            generator.emit(code);
+        }
+        return generator.getCode();
+    }
+
+    /**
+     * Writes what was found for the declarations of this run, for the next one
+     */
+    public void save() throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(stateFile)))) {
+            out.writeObject(new State(ArtifactCache.buildId(), new HashMap<>(current)));
+        }
+    }
+
+    /**
+     * @return How many declarations were checked and generated again, e.g. "checked 1/12, generated 1/12"
+     */
+    public String summary() {
+        int total = program.declarations.size();
+        return "checked " + checked + "/" + total + ", generated " + generated + "/" + total;
+    }
+
+    /**
+     * Computes the fingerprint of every declaration
+     *
+     * @param source The source of the program
+     */
+    private void fingerprint(String source) {
+        List<Integer> lineStarts = new ArrayList<>();
+        lineStarts.add(0);
+        for (int i = 0; i < source.length(); i++) {
+            if (source.charAt(i) == '\n') {
+                lineStarts.add(i + 1);
+            }
+        }
+
+        // The signature of a global is what the checker and the code generator know about it without
+        // looking at its body: its type and, for variables, the order in which they are declared
+        Map<String, StringBuilder> signatures = new HashMap<>();
+        Map<String, Integer> declarationCount = new HashMap<>();
+        int variables = 0;
+        for (AstNode decl : program.declarations) {
+            String name = null;
+            String signature = null;
+            if (decl instanceof FunctionTypeDeclaration funDecl && funDecl.idList instanceof IdList idList) {
+                name = idList.id;
+                signature = "function " + funDecl.functionType.print(0);
+            } else if (decl instanceof VariableDeclaration varDecl) {
+                name = varDecl.id;
+                signature = "variable " + varDecl.typeElem.print(0) + " #" + ++variables;
+            }
+            if (name != null) {
+                signatures.computeIfAbsent(name, k -> new StringBuilder()).append(signature).append("; ");
+                declarationCount.merge(name, 1, Integer::sum);
+            }
+        }
+
+        List<AstNode> decls = program.declarations;
+        for (int i = 0; i < decls.size(); i++) {
+            int start = offset(lineStarts, decls.get(i), source.length());
+            int end = i + 1 < decls.size() ? offset(lineStarts, decls.get(i + 1), source.length()) : source.length();
+            String text = source.substring(start, Math.max(start, end));
+
+            MessageDigest digest = sha256();
+            digest.update((decls.get(i).getColumn() + "\0" + text + "\0").getBytes(StandardCharsets.UTF_8));
+
+            // Every word that names a global, in a stable order (some may be locals or keywords, that is harmless)
+            Set<String> globals = new TreeSet<>();
+            Matcher words = IDENTIFIER.matcher(text);
+            while (words.find()) {
+                if (signatures.containsKey(words.group())) {
+                    globals.add(words.group());
+                }
+            }
+            for (String global : globals) {
+                digest.update((global + "=" + signatures.get(global)).getBytes(StandardCharsets.UTF_8));
+                // Checking a variable redefines it, so with duplicates the position of the declaration matters
+                if (declarationCount.get(global) > 1) {
+                    digest.update(("@" + i).getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) 0);
+            }
+            fingerprints.add(HexFormat.of().formatHex(digest.digest()));
+        }
+    }
+
+    private static int offset(List<Integer> lineStarts, AstNode node, int length) {
+        if (node.getLine() < 1 || node.getLine() > lineStarts.size()) {
+            return length;
+        }
+        return Math.min(length, lineStarts.get(node.getLine() - 1) + node.getColumn());
+    }
+
+    /**
+     * @return What the last run kept, or nothing if there was no run or it was done by another compiler
+     */
+    private Map<String, DeclarationState> load() throws IOException {
+        if (!Files.exists(stateFile)) {
+            return Map.of();
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+            if (in.readObject() instanceof State state && state.buildId().equals(ArtifactCache.buildId())) {
+                return state.declarations();
+            }
+        } catch (ClassNotFoundException | ObjectStreamException | ClassCastException e) {
+            // Written by another version of the compiler
+        }
+        return Map.of();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package app;
+
+import aguda.ast.*;
+
+import java.util.*;
+
+/**
+ * Reference evaluator of checked AGUDA programs, used to produce the expected output of generated programs
+ * (see {@link ProgramGenerator}) without going through LLVM.
+ *
+ * It follows the semantics of the generated code: Int is a 32-bit integer that wraps around, / and % truncate
+ * like sdiv and srem, ^ multiplies the base exponent times (1 for exponents below 1), && and || short-circuit,
+ * and print writes Int, Bool and Unit values with no separator. Scopes are the ones of the checker: the
+ * branches of an if and the body of a while open a scope, a let adds to the current one. Arrays, which the
+ * code generator does not support, are evaluated too: new T [n | e] evaluates e once and every element starts
+ * with that value.
+ */
+public class Interpreter {
+    private static final Object UNIT = new Object() {
+        @Override
+        public String toString() {
+            return "unit";
+        }
+    };
+
+    private final Map<String, FunctionTypeDeclaration> functions = new HashMap<>();
+    private final Map<String, Object> globals = new HashMap<>();
+    private final StringBuilder output = new StringBuilder();
+    private Deque<Map<String, Object>> frame = new ArrayDeque<>();
+
+    /**
+     * Runs the main function of a program that passed the checker
+     *
+     * @param program The program
+     * @return What the program printed
+     * @throws RuntimeException If the program fails at run time (e.g. division by zero)
+     */
+    public static String run(Program program) {
+        Interpreter interpreter = new Interpreter();
+        for (AstNode decl : program.declarations) {
+            if (decl instanceof FunctionTypeDeclaration funDecl && funDecl.idList instanceof IdList idList) {
+                interpreter.functions.put(idList.id, funDecl);
+            }
+        }
+        interpreter.frame.push(new HashMap<>());
+        for (AstNode decl : program.declarations) {
+            if (decl instanceof VariableDeclaration varDecl) {
+                interpreter.globals.put(varDecl.id, interpreter.eval(varDecl.exprs));
+            }
+        }
+        if (!interpreter.functions.containsKey("main")) {
+            throw new RuntimeException("The program has no main function");
+        }
+        interpreter.call("main", List.of(UNIT), program);
+        return interpreter.output.toString();
+    }
+
+    private Object eval(AstNode node) {
+        if (node instanceof Expressions exprs) {
+            Object value = UNIT;
+            for (AstNode expr : exprs.expressions) {
+                value = eval(expr);
+            }
+            return value;
+        } else if (node instanceof ParenthicalExpression paren) {
+            return eval(paren.expression);
+        } else if (node instanceof IntLiteral intLit) {
+            return intLit.toBigInteger().intValue();
+        } else if (node instanceof BoolLiteral boolLit) {
+            return boolLit.value;
+        } else if (node instanceof StringLiteral stringLit) {
+            return stringLit.value.substring(1, stringLit.value.length() - 1);
+        } else if (node instanceof NullLiteral) {
+            return UNIT;
+        } else if (node instanceof Identifier id) {
+            return scopeOf(id.value, id).get(id.value);
+        } else if (node instanceof LetExpression letExpr) {
+            Object value = eval(letExpr.blockExpr);
+            frame.peek().put(letExpr.id, value);
+            return UNIT;
+        } else if (node instanceof SetExpression setExpr) {
+            return evalSet(setExpr);
+        } else if (node instanceof IfExpression ifExpr) {
+            boolean condition = (Boolean) eval(ifExpr.condition);
+            AstNode branch = condition ? ifExpr.thenBranch : ifExpr.elseBranch;
+            return branch == null ? UNIT : inScope(branch);
+        } else if (node instanceof WhileExpression whileExpr) {
+            while ((Boolean) eval(whileExpr.condition)) {
+                inScope(whileExpr.body);
+            }
+            return UNIT;
+        } else if (node instanceof UnaryOp unary) {
+            Object value = eval(unary.expr);
+            return unary.op.equals("!") ? (Object) !(Boolean) value : (Object) (-(Integer) value);
+        } else if (node instanceof BinaryOp binop) {
+            return evalBinaryOp(binop);
+        } else if (node instanceof CallFunctionExpression call) {
+            return evalCall(call);
+        } else if (node instanceof ArrayAccess access) {
+            Object[] array = (Object[]) eval(access.array);
+            for (int i = 0; i < access.indices.size() - 1; i++) {
+                array = (Object[]) array[index(array, access.indices.get(i))];
+            }
+            return array[index(array, access.indices.get(access.indices.size() - 1))];
+        } else if (node instanceof ArrayCreation creation) {
+            for (ArrayCreation.Dimension dim : creation.getDimensions()) {
+                if (dim.sizeExpr != null) {
+                    int size = (Integer) eval(dim.sizeExpr);
+                    if (size < 0) {
+                        throw error(creation, "Negative array size " + size);
+                    }
+                    Object[] array = new Object[size];
+                    Arrays.fill(array, eval(dim.initExpr));
+                    return array;
+                }
+            }
+            throw error(creation, "Array without size");
+        }
+        throw error(node, "Cannot evaluate " + node.getClass().getSimpleName());
+    }
+
+    private Object evalSet(SetExpression setExpr) {
+        if (setExpr.lhs instanceof ArrayAccess access) {
+            Object[] array = (Object[]) eval(access.array);
+            for (int i = 0; i < access.indices.size() - 1; i++) {
+                array = (Object[]) array[index(array, access.indices.get(i))];
+            }
+            int last = index(array, access.indices.get(access.indices.size() - 1));
+            array[last] = eval(setExpr.value);
+        } else if (setExpr.lhs instanceof Identifier id) {
+            Object value = eval(setExpr.value);
+            scopeOf(id.value, id).put(id.value, value);
+        } else {
+            throw error(setExpr, "Cannot assign to " + setExpr.lhs.getClass().getSimpleName());
+        }
+        return UNIT;
+    }
+
+    private Object evalBinaryOp(BinaryOp binop) {
+        switch (binop.op) {
+            case "&&" -> {
+                return (Boolean) eval(binop.left) && (Boolean) eval(binop.right);
+            }
+            case "||" -> {
+                return (Boolean) eval(binop.left) || (Boolean) eval(binop.right);
+            }
+            case "==" -> {
+                return Objects.equals(eval(binop.left), eval(binop.right));
+            }
+            case "!=" -> {
+                return !Objects.equals(eval(binop.left), eval(binop.right));
+            }
+        }
+
+        int left = (Integer) eval(binop.left);
+        int right = (Integer) eval(binop.right);
+        return switch (binop.op) {
+            case "+" -> left + right;
+            case "-" -> left - right;
+            case "*" -> left * right;
+            case "/" -> {
+                if (right == 0) throw error(binop, "Division by zero");
+                yield left / right;
+            }
+            case "%" -> {
+                if (right == 0) throw error(binop, "Division by zero");
+                yield left % right;
+            }
+            case "^" -> {
+                int result = 1;
+                for (int i = 0; i < right; i++) {
+                    result *= left;
+                }
+                yield result;
+            }
+            case "<" -> left < right;
+            case "<=" -> left <= right;
+            case ">" -> left > right;
+            case ">=" -> left >= right;
+            default -> throw error(binop, "Unknown operator " + binop.op);
+        };
+    }
+
+    private Object evalCall(CallFunctionExpression call) {
+        List<Object> args = new ArrayList<>();
+        if (call.exprs instanceof Expressions exprs) {
+            for (AstNode arg : exprs.expressions) {
+                args.add(eval(arg));
+            }
+        } else if (call.exprs != null) {
+            args.add(eval(call.exprs));
+        }
+
+        if (call.id.equals("print")) {
+            for (Object arg : args) {
+                if (arg instanceof Object[]) {
+                    throw error(call, "Cannot print an array");
+                }
+                output.append(arg);
+            }
+            return UNIT;
+        } else if (call.id.equals("length")) {
+            return ((Object[]) args.get(0)).length;
+        }
+        return call(call.id, args, call);
+    }
+
+    private Object call(String name, List<Object> args, AstNode at) {
+        FunctionTypeDeclaration funDecl = functions.get(name);
+        if (funDecl == null) {
+            throw error(at, "Undeclared function '" + name + "'");
+        }
+        List<AstNode> params = ((IdList) funDecl.idList).ids;
+        Map<String, Object> locals = new HashMap<>();
+        for (int i = 0; i < params.size() && i < args.size(); i++) {
+            locals.put(((Identifier) params.get(i)).value, args.get(i));
+        }
+
+        Deque<Map<String, Object>> caller = frame;
+        frame = new ArrayDeque<>();
+        frame.push(locals);
+        try {
+            return eval(funDecl.getExprs());
+        } finally {
+            frame = caller;
+        }
+    }
+
+    private Object inScope(AstNode node) {
+        frame.push(new HashMap<>());
+        try {
+            return eval(node);
+        } finally {
+            frame.pop();
+        }
+    }
+
+    private Map<String, Object> scopeOf(String name, AstNode at) {
+        for (Map<String, Object> scope : frame) {
+            if (scope.containsKey(name)) {
+                return scope;
+            }
+        }
+        if (globals.containsKey(name)) {
+            return globals;
+        }
+        throw error(at, "Undeclared variable '" + name + "'");
+    }
+
+    private int index(Object[] array, AstNode indexExpr) {
+        int index = (Integer) eval(indexExpr);
+        if (index < 0 || index >= array.length) {
+            throw error(indexExpr, "Index " + index + " out of bounds for length " + array.length);
+        }
+        return index;
+    }
+
+    private static RuntimeException error(AstNode node, String message) {
+        return new RuntimeException("Runtime error (" + node.getLine() + ", " + node.getColumn() + "): " + message);
+    }
+}
@@ -0,0 +1,144 @@
+package app;
+
+import aguda.parser.*;
+import org.antlr.v4.runtime.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Differential test of {@link FastLexer} against the lexer generated from Aguda.g4: every file (and, with
+ * --mutations, random byte-level mutations of it) must give the same tokens (type, text, line, column, start and
+ * stop index) and the same lexical errors, reported before the same token.
+ *
+ * Usage: java app.LexerCheck [--mutations <n>] [--seed <s>] <file.agu | directory>...
+ */
+public class LexerCheck {
+    // Mutations favour the characters where the two lexers could disagree
+    private static final String[] MUTATIONS = {
+            "-", "--", "->", "&", "&&", "|", "||", "=", "==", "!", "!=", "<", "<=", ">", ">=", "\"", "'", "0", "07",
+            "_", "\n", "\r", "\t", " ", "$", "#", "é", "→", "﻿", "let", "unit", "true", "Int", "x'"};
+
+    public static void main(String[] args) throws IOException {
+        int mutations = 0;
+        long seed = 1;
+        List<Path> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--mutations" -> mutations = Integer.parseInt(args[++i]);
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    default -> {
+                        try (Stream<Path> walk = Files.walk(Paths.get(args[i]))) {
+                            walk.filter(p -> p.toString().endsWith(".agu")).sorted().forEach(files::add);
+                        }
+                    }
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            files.clear();
+        }
+        if (files.isEmpty()) {
+            System.out.println("Usage: java app.LexerCheck [--mutations <n>] [--seed <s>] <file.agu | directory>...");
+            System.exit(1);
+        }
+
+        Random random = new Random(seed);
+        int inputs = 0;
+        int failures = 0;
+        long tokens = 0;
+        for (Path file : files) {
+            byte[] source = Files.readAllBytes(file);
+            for (int m = 0; m <= mutations; m++) {
+                byte[] input = m == 0 ? source : mutate(source, random);
+                List<String> expected = antlr(input);
+                List<String> actual = fast(input);
+                inputs++;
+                tokens += expected.size();
+                int at = firstDifference(expected, actual);
+                if (at >= 0) {
+                    failures++;
+                    System.out.println("❌ " + file + (m == 0 ? "" : " (mutation " + m + ")"));
+                    System.out.println("   AgudaLexer: " + (at < expected.size() ? expected.get(at) : "nothing"));
+                    System.out.println("   FastLexer:  " + (at < actual.size() ? actual.get(at) : "nothing"));
+                    if (m > 0) {
+                        Path saved = Paths.get(file.toString().replace(".agu", "") + ".mutation" + m + ".agu.txt");
+                        Files.write(saved, input);
+                        System.out.println("   Input saved to " + saved);
+                    }
+                }
+            }
+        }
+        System.out.println(inputs + " input(s), " + tokens + " token(s) and error(s), " + failures + " difference(s)");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * @return Every token and error of the generated lexer, in the order the parser would see them
+     */
+    private static List<String> antlr(byte[] source) {
+        List<String> events = new ArrayList<>();
+        AgudaLexer lexer = new AgudaLexer(CharStreams.fromString(new String(source, StandardCharsets.UTF_8)));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(recorder(events));
+        Token token;
+        do {
+            token = lexer.nextToken();
+            events.add(describe(token));
+        } while (token.getType() != Token.EOF);
+        return events;
+    }
+
+    private static List<String> fast(byte[] source) {
+        List<String> events = new ArrayList<>();
+        FastTokenSource tokenSource = new FastTokenSource(FastLexer.lex(source), recorder(events));
+        Token token;
+        do {
+            token = tokenSource.nextToken();
+            events.add(describe(token));
+        } while (token.getType() != Token.EOF);
+        return events;
+    }
+
+    private static BaseErrorListener recorder(List<String> events) {
+        return new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                    int line, int charPositionInLine, String msg, RecognitionException e) {
+                events.add("error " + line + ":" + charPositionInLine + " " + msg);
+            }
+        };
+    }
+
+    private static String describe(Token token) {
+        return AgudaLexer.VOCABULARY.getSymbolicName(token.getType()) + " '" + token.getText() + "' "
+                + token.getLine() + ":" + token.getCharPositionInLine()
+                + " [" + token.getStartIndex() + ".." + token.getStopIndex() + "] channel " + token.getChannel();
+    }
+
+    private static int firstDifference(List<String> expected, List<String> actual) {
+        for (int i = 0; i < Math.max(expected.size(), actual.size()); i++) {
+            if (i >= expected.size() || i >= actual.size() || !expected.get(i).equals(actual.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] mutate(byte[] source, Random random) {
+        StringBuilder sb = new StringBuilder(new String(source, StandardCharsets.UTF_8));
+        for (int edits = 1 + random.nextInt(4); edits > 0; edits--) {
+            int at = sb.length() == 0 ? 0 : random.nextInt(sb.length());
+            String text = MUTATIONS[random.nextInt(MUTATIONS.length)];
+            switch (random.nextInt(3)) {
+                case 0 -> sb.insert(at, text);
+                case 1 -> sb.replace(at, Math.min(sb.length(), at + 1 + random.nextInt(3)), text);
+                default -> sb.delete(at, Math.min(sb.length(), at + 1 + random.nextInt(3)));
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -4,57 +4,151 @@ import aguda.parser.*;
 import aguda.ast.*;
 import aguda.checker.*;
 import aguda.codegen.*;
+import aguda.events.*;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.tree.*;
 
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
+    // The threads of -Daguda.parser.jobs=n, shared by every run of the JVM, like the files of a batch
+    private static final class ParserPool {
+        static final ForkJoinPool POOL = new ForkJoinPool(Integer.getInteger("aguda.parser.jobs", 1));
+    }
+
+    // The threads of -Daguda.check.jobs=n, which check the function bodies
+    private static final class CheckerPool {
+        static final ForkJoinPool POOL = new ForkJoinPool(Integer.getInteger("aguda.check.jobs", 1));
+    }
+
+    // A lexical or syntax error, as it is shown by the test modes
+    private record ErrorInfo(String type, int line, int column, String message) {}
+
     public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : CompileServer.DEFAULT_PORT;
+            new CompileServer(port).serve();
+            return;
+        }
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Runs the compiler once, writing everything that would go to the console to the given streams.
+     * Used by main, and by the compile server so that a warm JVM can serve many requests.
+     *
+     * @param args The same arguments accepted on the command line
+     * @param out Where the standard output is written
+     * @param err Where the error output is written
+     * @return The exit code of the run
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) throws IOException {
+        // --stats [file.json] can follow the other arguments of a single file
+        List<String> rest = new ArrayList<>(Arrays.asList(args));
+        int statsAt = rest.indexOf("--stats");
+        if (statsAt < 1 || rest.get(0).equals("--batch")) {
+            return run(args, out, err, new CompileStats());
+        }
+        rest.remove(statsAt);
+        String json = statsAt < rest.size() && rest.get(statsAt).endsWith(".json") ? rest.remove(statsAt) : null;
+
+        CompileStats stats = new CompileStats(true);
+        int exitCode = run(rest.toArray(new String[0]), out, err, stats);
+        stats.stop();
+        stats.print(out);
+        if (json != null) {
+            stats.writeJson(Paths.get(json));
+            out.println("📝 Statistics written to " + json);
+        }
+        return exitCode;
+    }
+
+    /**
+     * Same as {@link #run(String[], PrintStream, PrintStream)}, recording the time spent in each phase
+     *
+     * @param stats Where the time of each phase is recorded
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err, CompileStats stats) throws IOException {
         if (args.length < 2) {
-            System.err.println("Usage: java Main <file.agu> [--ast | --parser | --test-syntax <max_number_of_errors> | --test-semantic <max_number_of_errors> | --test-execution <max_number_of_errors>]");
-            System.exit(1);
+            err.println("Usage: java Main <file.agu> [--ast | --parser | --test-syntax <max_number_of_errors> | --test-semantic <max_number_of_errors> | --test-execution <max_number_of_errors> | --run-jit <max_number_of_errors> | --compile <max_number_of_errors> | --incremental <max_number_of_errors>]");
+            err.println("       java Main <file.agu> <flag> [<max_number_of_errors>] --stats [stats.json]");
+            err.println("       java Main --batch [--jobs <n>] <flag> <max_number_of_errors> <file.agu | directory>...");
+            err.println("       java Main --server [port]");
+            return 1;
+        }
+
+        if (args[0].equals("--batch")) {
+            return BatchCompiler.fromArgs(args, err).run(out);
         }
 
         String filename = args[0];
         String mode = args[1];
         
-        if (!mode.equals("--ast") && !mode.equals("--parser") && !mode.equals("--test-syntax") && !mode.equals("--test-semantic") && !mode.equals("--test-execution")) {
-            System.err.println("Unknown flag: " + mode);
-            System.err.println("Use one of: --ast, --parser, --test-syntax <max_number_of_errors>, --test-semantic <max_number_of_errors>, --test-execution <max_number_of_errors>");
-            System.exit(1);
+        if (!mode.equals("--ast") && !mode.equals("--parser") && !mode.equals("--test-syntax") && !mode.equals("--test-semantic") && !mode.equals("--test-execution") && !mode.equals("--run-jit") && !mode.equals("--compile") && !mode.equals("--incremental")) {
+            err.println("Unknown flag: " + mode);
+            err.println("Use one of: --ast, --parser, --test-syntax <max_number_of_errors>, --test-semantic <max_number_of_errors>, --test-execution <max_number_of_errors>, --run-jit <max_number_of_errors>, --compile <max_number_of_errors>, --incremental <max_number_of_errors>");
+            return 1;
         }
         int maxErrors = args.length > 2 ? Integer.parseInt(args[2]) : 10;
 
-        CharStream input = CharStreams.fromFileName(filename);
-        AgudaLexer lexer = new AgudaLexer(input);
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        AgudaParser parser = new AgudaParser(tokens);
-        Checker checker = null;
-
-        class ErrorInfo {
-            String type;
-            int line;
-            int column;
-            String message;
-
-            ErrorInfo(String type, int line, int column, String message) {
-                this.type = type;
-                this.line = line;
-                this.column = column;
-                this.message = message;
+        // A program already built and run by this compiler with the same backend is not compiled again
+        ArtifactCache cache = null;
+        String cacheKey = null;
+        NativeBackend.Mode backendMode = mode.equals("--run-jit") ? NativeBackend.Mode.JIT : NativeBackend.selectedMode();
+        if (mode.equals("--test-execution") || mode.equals("--run-jit")) {
+            cache = ArtifactCache.shared();
+        }
+        // Mapped once, for the lexer, the cache key and the lines shown under errors
+        SourceFile source = SourceFile.open(Paths.get(filename));
+        if (cache != null) {
+            stats.start("cache");
+            cacheKey = cache.key(source.bytes(), backendMode.name());
+            Optional<ArtifactCache.Entry> cached = cache.lookup(cacheKey);
+            stats.stop();
+            if (cached.isPresent()) {
+                String baseFilename = filename.replace(".agu", "");
+                try {
+                    String expContent = Files.readString(Paths.get(baseFilename + ".expect"));
+                    Files.writeString(Paths.get(baseFilename + ".ll"), cached.get().llvmCode());
+                    Files.writeString(Paths.get(baseFilename + ".txt"), cached.get().output());
+                    return compareOutput(cached.get().output(), expContent, out);
+                } catch (IOException e) {
+                    err.println("Error writing cached files: " + e.getMessage());
+                    return 1;
+                }
             }
         }
 
-        List<ErrorInfo> errors = new ArrayList<>();
+        // -Daguda.astCache=<directory> loads the AST of a file that parsed without errors before instead of
+        // lexing and parsing it again. Not for --parser, which prints the parse tree
+        AstCache astCache = mode.equals("--parser") ? null : AstCache.shared();
+        String astKey = null;
+        AstCache.Entry cachedAst = null;
+        if (astCache != null) {
+            stats.start("astLoad");
+            astKey = astCache.key(source.bytes());
+            cachedAst = astCache.load(astKey).orElse(null);
+            stats.stop();
+        }
+        long parseStart = System.nanoTime();
+
+        FastLexer.Tokens lexed = null;
+        if (cachedAst == null) {
+            stats.start("lex");
+            lexed = FastLexer.lex(source);
+            stats.stop();
+        }
+        Checker checker = null;
 
-        if (mode.equals("--test-syntax") || mode.equals("--test-semantic") || mode.equals("--test-execution")) {
-            lexer.removeErrorListeners();
-            parser.removeErrorListeners();
+        List<ErrorInfo> errors = new ArrayList<>();
+        ANTLRErrorListener lexerListener;
+        ANTLRErrorListener parserListener;
 
-            lexer.addErrorListener(new BaseErrorListener() {
+        if (mode.equals("--test-syntax") || mode.equals("--test-semantic") || mode.equals("--test-execution") || mode.equals("--run-jit") || mode.equals("--compile") || mode.equals("--incremental")) {
+            lexerListener = new BaseErrorListener() {
                 @Override
                 public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
                                         int line, int charPositionInLine, String msg, RecognitionException e) {
@@ -62,9 +156,9 @@ public class Main {
                         errors.add(new ErrorInfo("Lexical error", line, charPositionInLine, msg));
                     }
                 }
-            });
+            };
 
-            parser.addErrorListener(new BaseErrorListener() {
+            parserListener = new BaseErrorListener() {
                 @Override
                 public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
                                         int line, int charPositionInLine, String msg, RecognitionException e) {
@@ -72,101 +166,281 @@ public class Main {
                         errors.add(new ErrorInfo("Syntactic error", line, charPositionInLine, msg));
                     }
                 }
-            });
+            };
+        } else {
+            // Same format as ANTLR's ConsoleErrorListener, but on our error stream
+            BaseErrorListener toErr = new BaseErrorListener() {
+                @Override
+                public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                        int line, int charPositionInLine, String msg, RecognitionException e) {
+                    err.println("line " + line + ":" + charPositionInLine + " " + msg);
+                }
+            };
+            lexerListener = toErr;
+            parserListener = toErr;
         }
 
-        parser.setErrorHandler(new DefaultErrorStrategy());
-        parser.setBuildParseTree(true);
-        ParseTree tree = parser.program();
+        // --test-syntax only needs to know whether the program parses, not its tree
+        boolean buildParseTree = !mode.equals("--test-syntax");
+        // -Daguda.parser=descent builds the AST without a parse tree, except for --parser, which prints it.
+        // -Daguda.parser=lazy also leaves the function bodies for when the checker needs them, which needs
+        // every body for --test-syntax and --ast anyway. With -Daguda.parser.jobs=n, both parse the top-level
+        // declarations of large files on n threads. Neither recovers from errors, so a program with a lexical
+        // error, or that they find a syntax error in, is parsed by ANTLR, which reports them
+        String parserName = System.getProperty("aguda.parser", "antlr");
+        boolean parallel = Integer.getInteger("aguda.parser.jobs", 1) > 1;
+        boolean descent = (parserName.equals("descent") || parserName.equals("lazy")) && !mode.equals("--parser");
+        boolean lazyBodies = parserName.equals("lazy") && !mode.equals("--test-syntax") && !mode.equals("--ast");
+        AgudaParser parser = null;
+        ParseTree tree = null;
+        AstNode ast = null;
+        int syntaxErrors;
+        boolean llFallback = false;
+        boolean splitFallback = false;
+        boolean descentFallback = false;
+        // -Daguda.ast=flat keeps the AST in the arrays of a FlatAst, from which the checker and the code generator
+        // build each function body when they get to it, and drop it after. Lazy bodies are not built at all anyway
+        boolean flatAst = System.getProperty("aguda.ast", "objects").equals("flat") && !lazyBodies;
+        // -Daguda.check.jobs=n checks the function bodies on n threads. Not with lazy bodies, whose syntax errors
+        // must be found in the order of the declarations, by the thread that reports them
+        ForkJoinPool checkPool = Integer.getInteger("aguda.check.jobs", 1) > 1 && !lazyBodies ? CheckerPool.POOL : null;
+        // The threads of the pools are not measured, only the one that waits for them
+        if (descent && parallel && cachedAst == null) {
+            stats.mainThreadOnly("parse");
+        }
+        if (checkPool != null) {
+            stats.mainThreadOnly("check");
+        }
+        ParseEvent parseEvent = new ParseEvent();
+        parseEvent.begin();
+        stats.start(cachedAst != null ? "astLoad" : "parse");
+        if (cachedAst != null) {
+            // Without errors when it was stored
+            ast = flatAst ? cachedAst.ast().program() : cachedAst.ast().node(0);
+            syntaxErrors = 0;
+        } else {
+            syntaxErrors = 0;
+            if (descent && lexed.errors().isEmpty()) {
+                // Its syntax errors are not reported: the ones found here or in a lazy body make ANTLR parse the
+                // program again, which reports them
+                DescentParser descentParser = new DescentParser(lexed, lexerListener, new BaseErrorListener(), lazyBodies);
+                ast = parallel ? descentParser.program(ParserPool.POOL) : descentParser.program();
+                syntaxErrors = descentParser.getNumberOfSyntaxErrors();
+                splitFallback = descentParser.fellBack();
+            }
+            if (!descent || !lexed.errors().isEmpty() || syntaxErrors > 0) {
+                descentFallback = descent;
+                ast = null;
+                TwoStageParser.Result parsed = TwoStageParser.parse(lexed, lexerListener, parserListener, buildParseTree);
+                parser = parsed.parser();
+                tree = parsed.tree();
+                syntaxErrors = parser.getNumberOfSyntaxErrors();
+                llFallback = parsed.fellBack();
+            }
+        }
+        parseEvent.end();
+        stats.stop();
+        if (parseEvent.shouldCommit() && lexed != null) {
+            parseEvent.file = filename;
+            parseEvent.tokens = lexed.size();
+            parseEvent.syntaxErrors = syntaxErrors;
+            parseEvent.llFallback = llFallback;
+            parseEvent.commit();
+        }
+        if (stats.isDetailed() && cachedAst != null) {
+            stats.count("astCache.parseMicros", cachedAst.parseNanos() / 1000);
+        } else if (stats.isDetailed()) {
+            stats.count("tokens", lexed.size());
+            stats.count("parse.llFallbacks", llFallback ? 1 : 0);
+            if (descent) {
+                // Programs with an error, parsed again by ANTLR
+                stats.count("parse.antlrFallbacks", descentFallback ? 1 : 0);
+            }
+            if (descent && parallel) {
+                // Chunks of the parallel parse that did not parse, so that the program was parsed twice
+                stats.count("parse.splitFallbacks", splitFallback ? 1 : 0);
+            }
+            if (tree != null && buildParseTree) {
+                stats.count("parseTree.nodes", countParseTree(tree));
+            }
+        }
 
         // HANDLE TEST MODE BEFORE DOING ANYTHING ELSE
-        if (mode.equals("--test-syntax") || mode.equals("--test-semantic") || mode.equals("--test-execution")) {
+        if (mode.equals("--test-syntax") || mode.equals("--test-semantic") || mode.equals("--test-execution") || mode.equals("--run-jit") || mode.equals("--compile") || mode.equals("--incremental")) {
             if (!errors.isEmpty()) {
-                System.out.println("Test failed ❌");
-                try {
-                    List<String> lines = Files.readAllLines(Paths.get(filename));
-                    for (ErrorInfo err : errors) {
-                        System.out.printf("\n%s: line %d, column %d\n", err.type, err.line, err.column);
-                        System.out.println("Description: " + err.message);
-                        if (err.line > 0 && err.line <= lines.size()) {
-                            String codeLine = lines.get(err.line - 1);
-                            System.out.printf(">> %s\n", codeLine);
-                            System.out.println(" ".repeat(err.column) + "   " + "^");
-                        }
-                    }
-                } catch (IOException e) {
-                    System.err.println("Could not read source file for error display.");
-                }
-                System.exit(1);
+                out.println("Test failed ❌");
+                printErrors(errors, source, out, err);
+                return 1;
             } else {
                 if(mode.equals("--test-syntax")) {
-                    System.out.println("Test passed ✅");
-                    System.exit(0);
+                    out.println("Test passed ✅");
+                    return 0;
                 } 
             }
         }
 
         // ONLY DO AST/PARSER MODE IF NOT TEST-SYNTAX MODE
-        if (tree == null || parser.getNumberOfSyntaxErrors() > 0) {
-            System.out.println("Test failed ❌");
-            System.out.println("Parsing failed: could not build parse tree.");
+        if ((tree == null && ast == null) || syntaxErrors > 0) {
+            out.println("Test failed ❌");
+            out.println("Parsing failed: could not build parse tree.");
 
-            if (!errors.isEmpty()) {
-                List<String> lines = Files.readAllLines(Paths.get(filename));
-                for (ErrorInfo err : errors) {
-                    System.out.printf("\n%s: line %d, column %d\n", err.type, err.line, err.column);
-                    System.out.println("Description: " + err.message);
-                    if (err.line > 0 && err.line <= lines.size()) {
-                        String codeLine = lines.get(err.line - 1);
-                        System.out.printf(">> %s\n", codeLine);
-                        System.out.println(" ".repeat(err.column) + "   " + "^");
-                    }
-                }
-            }
-            System.exit(1);
+            printErrors(errors, source, out, err);
+            return 1;
         }
 
         if (mode.equals("--parser")) {
-            System.out.println("Parser Tree:");
+            out.println("Parser Tree:");
             try {
-                System.out.println(tree.toStringTree(parser));
+                // Written as it goes: the text of a large tree is several times the size of the source
+                ParseTreePrinter.print(tree, Arrays.asList(parser.getRuleNames()), out);
+                out.println();
             } catch (Exception e) {
-                System.err.println("⚠️  Failed to print parser tree due to an internal error.");
-                System.err.println("Reason: " + e.getMessage());
+                err.println("⚠️  Failed to print parser tree due to an internal error.");
+                err.println("Reason: " + e.getMessage());
             }
         }
 
-        AstBuilder builder = new AstBuilder();
-        AstNode ast = builder.visit(tree);
+        if (ast == null) {
+            AstBuilder builder = new AstBuilder();
+            stats.start("ast");
+            AstBuildEvent astEvent = new AstBuildEvent();
+            astEvent.begin();
+            ast = builder.visit(tree);
+            astEvent.end();
+            stats.stop();
+            if (astEvent.shouldCommit()) {
+                astEvent.file = filename;
+                astEvent.declarations = ast instanceof Program program ? program.declarations.size() : 0;
+                astEvent.commit();
+            }
+        }
+        long parseNanos = System.nanoTime() - parseStart;
+        if (stats.isDetailed()) {
+            stats.count("ast.nodes", AstNodeCounter.count(ast));
+        }
+        FlatAst flat = null;
+        if (flatAst && cachedAst == null && ast instanceof Program program) {
+            stats.start("flatten");
+            flat = FlatAst.of(program);
+            ast = flat.program();
+            stats.stop();
+            if (stats.isDetailed()) {
+                stats.count("ast.flatBytes", flat.footprint());
+            }
+        }
+        // Only without errors, which --ast and --parser print as they go and do not collect. Lazy bodies may still
+        // have syntax errors
+        if (astCache != null && cachedAst == null && !lazyBodies && lexed.errors().isEmpty() && syntaxErrors == 0
+                && ast instanceof Program program) {
+            stats.start("astStore");
+            try {
+                astCache.store(astKey, flat != null ? flat : FlatAst.of(program), parseNanos);
+            } catch (IOException e) {
+                // Parsed again next time
+            }
+            stats.stop();
+        }
 
         switch (mode) {
             case "--ast" -> {
-                System.out.println("AST:");
-                System.out.println(ast.print(0));
+                out.println("AST:");
+                ast.print(out, 0);
+                out.println();
             }
             case "--test-semantic" -> {
-                checker = new Checker(filename, maxErrors);
+                checker = new Checker(source, maxErrors);
+                checker.setPool(checkPool);
                 try {
-                    checker.typeof(ast, true);
-                    System.out.println("Test Valid ✅");
+                    stats.start("check");
+                    try {
+                        checker.typeof(ast, true);
+                    } finally {
+                        stats.stop();
+                    }
+                    out.println("Test Valid ✅");
+                } catch (DescentParser.SyntaxError e) {
+                    return reportLazySyntaxErrors(e, lexed, lexerListener, parserListener, errors, source, out, err);
                 } catch (RuntimeException e) {
                     checker.registerInternalError(e.getMessage());
-                    System.out.println(checker.getErrorMessage());
-                    System.exit(1);
+                    out.println(checker.getErrorMessage());
+                    return 1;
                 }
             }
-            case "--test-execution" -> {
-                checker = new Checker(filename, maxErrors);
+            case "--compile", "--incremental" -> {
+                // --incremental only checks and generates the declarations that changed since the last run
+                IncrementalCompiler incremental = mode.equals("--incremental") ? new IncrementalCompiler(filename, (Program) ast, maxErrors) : null;
+                checker = new Checker(source, maxErrors);
+                checker.setPool(checkPool);
                 try {
-                    checker.typeof(ast, true);
+                    stats.start("check");
+                    try {
+                        if (incremental != null) {
+                            incremental.check(checker);
+                        } else {
+                            checker.typeof(ast, true);
+                        }
+                    } finally {
+                        stats.stop();
+                    }
+                } catch (DescentParser.SyntaxError e) {
+                    return reportLazySyntaxErrors(e, lexed, lexerListener, parserListener, errors, source, out, err);
                 } catch(RuntimeException e) {
                     checker.registerInternalError(e.getMessage());
-                    System.out.println(checker.getErrorMessage());
-                    System.exit(1);
+                    out.println(checker.getErrorMessage());
+                    if (incremental != null) {
+                        incremental.save();
+                    }
+                    return 1;
+                }
+
+                stats.start("codegen");
+                CodeGenerator generator = new CodeGenerator(maxErrors);
+                String llvmCode = incremental != null ? incremental.generate(generator) : generator.generate(ast);
+                stats.stop();
+                countCode(stats, generator, llvmCode);
+                String baseFilename = filename.replace(".agu", "");
+
+                try {
+                    if (!generator.getErrorMessage().equals("")) {
+                        out.println(generator.getErrorMessage());
+                        Files.writeString(Paths.get(baseFilename + ".err"), generator.getErrorMessage());
+                        return 1;
+                    }
+                    Files.writeString(Paths.get(baseFilename + ".ll"), llvmCode);
+                } catch (IOException e) {
+                    err.println("Error writing LLVM file: " + e.getMessage());
+                    return 1;
+                }
+                if (incremental != null) {
+                    incremental.save();
+                    out.println("Compiled ✅ " + baseFilename + ".ll (" + incremental.summary() + " declarations)");
+                } else {
+                    out.println("Compiled ✅ " + baseFilename + ".ll");
+                }
+            }
+            case "--test-execution", "--run-jit" -> {
+                checker = new Checker(source, maxErrors);
+                checker.setPool(checkPool);
+                try {
+                    stats.start("check");
+                    try {
+                        checker.typeof(ast, true);
+                    } finally {
+                        stats.stop();
+                    }
+                } catch (DescentParser.SyntaxError e) {
+                    return reportLazySyntaxErrors(e, lexed, lexerListener, parserListener, errors, source, out, err);
+                } catch(RuntimeException e) {
+                    checker.registerInternalError(e.getMessage());
+                    out.println(checker.getErrorMessage());
+                    return 1;
                 }
                 if (checker != null && !checker.hasErrors()) {
+                    stats.start("codegen");
                     CodeGenerator generator = new CodeGenerator(maxErrors);
                     String llvmCode = generator.generate(ast);
+                    stats.stop();
+                    countCode(stats, generator, llvmCode);
 
                     String outputPath = filename.replace(".agu", "") + ".ll";
 
@@ -174,14 +448,14 @@ public class Main {
                     if (!generator.getErrorMessage().equals("")) {
                         String baseFilename = outputPath.replaceAll("\\.ll$", "");
                         String outputerror = baseFilename + ".err";
-                        System.out.println(generator.getErrorMessage());
+                        out.println(generator.getErrorMessage());
                         try (FileWriter writer = new FileWriter(outputerror)){
                             writer.write(generator.getErrorMessage());
                         } catch (IOException e) {
-                            System.err.println("Error writing Output error file: " + e.getMessage());
-                            System.exit(1);
+                            err.println("Error writing Output error file: " + e.getMessage());
+                            return 1;
                         }
-                        System.exit(1);
+                        return 1;
                     }
 
                     // Write the test itself (copy .agu file content to the logs/codegen folder)
@@ -193,8 +467,8 @@ public class Main {
                             writer.write(testContent);
                         }
                     } catch (IOException e) {
-                        System.err.println("Error writing test file: " + e.getMessage());
-                        System.exit(1);
+                        err.println("Error writing test file: " + e.getMessage());
+                        return 1;
                     }
 
                     // Write the expect file (copy .exp file content to the logs/codegen folder)
@@ -208,87 +482,122 @@ public class Main {
                             writer.write(expContent);
                         }
                     } catch (IOException e) {
-                        System.err.println("Error writing expected output file: " + e.getMessage());
-                        System.exit(1); 
+                        err.println("Error writing expected output file: " + e.getMessage());
+                        return 1; 
                     }
 
                     // 1. Write llvmCode to a .ll file
                     try (FileWriter writer = new FileWriter(outputPath)) {
                         writer.write(llvmCode);
                     } catch (IOException e) {
-                        System.err.println("Error writing LLVM file: " + e.getMessage());
-                        System.exit(1);
+                        err.println("Error writing LLVM file: " + e.getMessage());
+                        return 1;
                     }
 
                     try {
                         String baseFilename = outputPath.replaceAll("\\.ll$", "");
 
-                        // 2. Generate .s com llc
-                        ProcessBuilder pb1 = new ProcessBuilder("llc", outputPath, "-o", baseFilename + ".s");
-                        pb1.inheritIO();
-                        Process p1 = pb1.start();
-                        p1.waitFor();
-
-                        // 3. Compile to binary with clang
-                        ProcessBuilder pb2 = new ProcessBuilder("clang", baseFilename + ".s", "-o", baseFilename + ".out", "-no-pie");
-                        pb2.inheritIO();
-                        Process p2 = pb2.start();
-                        p2.waitFor();
-
-                        // 4. Make the binary executable
-                        ProcessBuilder chmod = new ProcessBuilder("chmod", "+x", baseFilename + ".out");
-                        chmod.inheritIO();
-                        Process pchmod = chmod.start();
-                        pchmod.waitFor();
-
-                        // 5. Execute the binary and redirect output
-                        StringBuilder outputText = new StringBuilder();
-
-                        ProcessBuilder pb3 = new ProcessBuilder(baseFilename + ".out");
-                        pb3.redirectError(ProcessBuilder.Redirect.INHERIT);
-                        Process p3 = pb3.start();
-                        try (BufferedReader reader = new BufferedReader(new InputStreamReader(p3.getInputStream()))) {
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                outputText.append(line).append("\n");
-                            }
+                        // 2. Build the binary and run it (or run the IR with lli), capturing its output
+                        NativeBackend backend = new NativeBackend(backendMode, err, stats);
+                        String programOutput = backend.buildAndRun(llvmCode, outputPath);
+                        if (cache != null && backend.toolsSucceeded()) {
+                            cache.store(cacheKey, llvmCode, programOutput);
                         }
-                        p3.waitFor();
                         try (FileWriter writer = new FileWriter(baseFilename + ".txt")) {
-                            writer.write(outputText.toString());
-                        }
-                        String programOutput = outputText.toString();
-
-                        // 6. Clean up .s and .out
-                        new File(baseFilename + ".s").delete();
-                        new File(baseFilename + ".out").delete();
-
-                        if (programOutput.trim().equals(expContent.trim())) {
-                            System.out.println("Test Valid ✅");
-                            System.exit(0);
-                        } else {
-                            System.out.println("Test failed ❌");
-                            System.out.println(String.format("Value different from the expected output. Got %s and the expected was %s", programOutput, expContent));
-                            System.exit(1);
+                            writer.write(programOutput);
                         }
 
-                        System.out.println("Test Valid ✅");
-                        System.exit(0);
+                        return compareOutput(programOutput, expContent, out);
 
                     } catch (IOException | InterruptedException e) {
-                        System.err.println("Error during assembly generation or execution: " + e.getMessage());
-                        System.exit(1);
+                        err.println("Error during assembly generation or execution: " + e.getMessage());
+                        return 1;
                     }
 
                 } else {
-                    System.exit(1);
+                    return 1;
                 }
             }
             default -> {
-                System.err.println("Unknown flag: " + mode);
-                System.err.println("Use one of: --ast, --parser, --test-syntax <max_number_of_errors>, --test-semantic <max_number_of_errors>, --test-execution <max_number_of_errors>");
-                System.exit(1);
+                err.println("Unknown flag: " + mode);
+                err.println("Use one of: --ast, --parser, --test-syntax <max_number_of_errors>, --test-semantic <max_number_of_errors>, --test-execution <max_number_of_errors>, --run-jit <max_number_of_errors>, --compile <max_number_of_errors>, --incremental <max_number_of_errors>");
+                return 1;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Prints the lexical and syntax errors, each with its line and a caret under its column
+     */
+    private static void printErrors(List<ErrorInfo> errors, SourceFile source, PrintStream out, PrintStream err) {
+        try {
+            int lines = source.lineCount();
+            for (ErrorInfo error : errors) {
+                out.printf("\n%s: line %d, column %d\n", error.type(), error.line(), error.column());
+                out.println("Description: " + error.message());
+                if (error.line() > 0 && error.line() <= lines) {
+                    String codeLine = source.line(error.line());
+                    out.printf(">> %s\n", codeLine);
+                    out.println(" ".repeat(error.column()) + "   " + "^");
+                }
             }
+        } catch (IOException e) {
+            err.println("Could not read source file for error display.");
+        }
+    }
+
+    /**
+     * Reports the errors of a program with a lazy body that did not parse, which is only found when the body is
+     * needed: the program is parsed again by ANTLR, so they are reported as when the parse finds them up front
+     *
+     * @return The exit code
+     */
+    private static int reportLazySyntaxErrors(DescentParser.SyntaxError error, FastLexer.Tokens lexed,
+                                              ANTLRErrorListener lexerListener, ANTLRErrorListener parserListener,
+                                              List<ErrorInfo> errors, SourceFile source, PrintStream out,
+                                              PrintStream err) {
+        errors.clear();
+        TwoStageParser.parse(lexed, lexerListener, parserListener, false);
+        out.println("Test failed ❌");
+        if (errors.isEmpty()) {
+            // Only if ANTLR accepts what the descent parser does not, which it should not
+            out.println("\n" + error.getMessage());
+        }
+        printErrors(errors, source, out, err);
+        return 1;
+    }
+
+    private static void countCode(CompileStats stats, CodeGenerator generator, String llvmCode) {
+        if (stats.isDetailed()) {
+            stats.countIr(llvmCode);
+            stats.count("ir.registers", generator.getRegisterCount());
+            stats.count("ir.labels", generator.getLabelCount());
+        }
+    }
+
+    private static long countParseTree(ParseTree tree) {
+        long nodes = 1;
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            nodes += countParseTree(tree.getChild(i));
+        }
+        return nodes;
+    }
+
+    /**
+     * Compares the output of a program with the expected one, printing the result of the test
+     *
+     * @return The exit code of the test
+     */
+    private static int compareOutput(String programOutput, String expContent, PrintStream out) {
+        if (programOutput.trim().equals(expContent.trim())) {
+            out.println("Test Valid ✅");
+            return 0;
+        } else {
+            out.println("Test failed ❌");
+            out.println(String.format("Value different from the expected output. Got %s and the expected was %s", programOutput, expContent));
+            return 1;
         }
     }
 }
\ No newline at end of file
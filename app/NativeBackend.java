@@ -0,0 +1,287 @@
+package app;
+
+import aguda.events.ToolEvent;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns the generated LLVM IR into a native binary and runs it.
+ *
+ * The default pipeline streams the IR straight into one "clang -x ir -" process, which writes an executable
+ * into a scratch directory that is created once per JVM and reused by every test (one binary per thread).
+ * There is no .s file, no separate llc process and no chmod process.
+ *
+ * The old pipeline (write .ll, llc to .s, clang to .out, chmod, run) can still be selected with
+ * -Daguda.backend=files, and -Daguda.backend=compare builds every program both ways so the time saved is
+ * recorded in the stats (phases "llc", "clang" and "chmod" against "build").
+ *
+ * In JIT mode (--run-jit or -Daguda.backend=jit) nothing is built: the IR is piped into "lli -" and its output
+ * is kept in memory. Compiling and running the program is then a single phase, "jit".
+ */
+public class NativeBackend {
+
+    public enum Mode { PIPE, FILES, COMPARE, JIT }
+
+    private static Path scratchDir;
+
+    private final Mode mode;
+    private final PrintStream err;
+    private final CompileStats stats;
+    private boolean toolsSucceeded = true;
+
+    public NativeBackend(Mode mode, PrintStream err, CompileStats stats) {
+        this.mode = mode;
+        this.err = err;
+        this.stats = stats;
+    }
+
+    /**
+     * @return The mode selected with the aguda.backend system property (pipe by default)
+     */
+    public static Mode selectedMode() {
+        return switch (System.getProperty("aguda.backend", "pipe")) {
+            case "files" -> Mode.FILES;
+            case "compare" -> Mode.COMPARE;
+            case "jit" -> Mode.JIT;
+            default -> Mode.PIPE;
+        };
+    }
+
+    /**
+     * @return Whether every LLVM tool started so far (llc, clang, lli) exited normally
+     */
+    public boolean toolsSucceeded() {
+        return toolsSucceeded;
+    }
+
+    /**
+     * Builds the program and runs it
+     *
+     * @param llvmCode The LLVM IR of the program
+     * @param llPath The .ll file already written for this program (only read by the old pipeline)
+     * @return The standard output of the program
+     */
+    public String buildAndRun(String llvmCode, String llPath) throws IOException, InterruptedException {
+        if (mode == Mode.JIT) {
+            stats.start("jit");
+            String output = runJit(llvmCode);
+            stats.stop();
+            return output;
+        }
+
+        Path binary;
+        if (mode == Mode.FILES) {
+            binary = buildWithFiles(llPath);
+        } else {
+            if (mode == Mode.COMPARE) {
+                Files.deleteIfExists(buildWithFiles(llPath));
+            }
+            binary = buildWithPipe(llvmCode);
+        }
+
+        stats.start("execute");
+        String output = run(binary);
+        stats.stop();
+
+        if (mode == Mode.FILES) {
+            Files.deleteIfExists(binary);
+        }
+        return output;
+    }
+
+    /**
+     * Compiles the IR with a single clang process reading from its standard input
+     *
+     * @param llvmCode The LLVM IR of the program
+     * @return The path of the executable
+     */
+    private Path buildWithPipe(String llvmCode) throws IOException, InterruptedException {
+        stats.start("build");
+        Path binary = scratchFile(".out");
+        Files.deleteIfExists(binary);
+        ProcessBuilder pb = new ProcessBuilder("clang", "-x", "ir", "-", "-o", binary.toString(), "-no-pie");
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        pb.redirectError(scratchFile(".log").toFile());
+        ToolEvent event = toolEvent(pb);
+        Process clang = pb.start();
+        try (Writer stdin = new OutputStreamWriter(clang.getOutputStream(), StandardCharsets.UTF_8)) {
+            stdin.write(llvmCode);
+        } catch (IOException e) {
+            // clang stopped reading (bad IR), the reason is in its error output
+        }
+        int exitCode = waitFor(clang);
+        commit(event, exitCode);
+        toolsSucceeded &= exitCode == 0;
+        copyLog();
+        stats.stop();
+        return binary;
+    }
+
+    /**
+     * The original pipeline: llc to a .s file next to the .ll file, clang to a .out file, then chmod
+     *
+     * @param llPath The .ll file of the program
+     * @return The path of the executable
+     */
+    private Path buildWithFiles(String llPath) throws IOException, InterruptedException {
+        String baseFilename = llPath.replaceAll("\\.ll$", "");
+
+        stats.start("llc");
+        exec("llc", llPath, "-o", baseFilename + ".s");
+
+        stats.start("clang");
+        exec("clang", baseFilename + ".s", "-o", baseFilename + ".out", "-no-pie");
+
+        stats.start("chmod");
+        exec("chmod", "+x", baseFilename + ".out");
+        stats.stop();
+
+        Files.deleteIfExists(Paths.get(baseFilename + ".s"));
+        return Paths.get(baseFilename + ".out");
+    }
+
+    /**
+     * Runs the binary, capturing its standard output
+     *
+     * @param binary The executable
+     * @return The standard output of the program
+     */
+    private String run(Path binary) throws IOException, InterruptedException {
+        // Written to a file so that waiting for the program can always be interrupted
+        Path stdout = scratchFile(".stdout");
+        ProcessBuilder pb = new ProcessBuilder(binary.toString());
+        pb.redirectOutput(stdout.toFile());
+        pb.redirectError(scratchFile(".log").toFile());
+        ToolEvent event = toolEvent(pb);
+        commit(event, waitFor(pb.start()));
+        copyLog();
+        String output = Files.readString(stdout, StandardCharsets.UTF_8);
+        Files.deleteIfExists(stdout);
+        return output;
+    }
+
+    /**
+     * Runs the IR with the LLVM JIT, without writing any file
+     *
+     * @param llvmCode The LLVM IR of the program
+     * @return The standard output of the program
+     */
+    private String runJit(String llvmCode) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder("lli", "-");
+        pb.redirectError(scratchFile(".log").toFile());
+        ToolEvent event = toolEvent(pb);
+        Process lli = pb.start();
+
+        // Drained by another thread so that waiting for lli can always be interrupted
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        Thread drainer = new Thread(() -> {
+            try (InputStream in = lli.getInputStream()) {
+                in.transferTo(stdout);
+            } catch (IOException e) {
+                // lli was killed, whatever it printed so far is kept
+            }
+        }, "aguda-lli-stdout");
+        drainer.setDaemon(true);
+        drainer.start();
+
+        try (Writer stdin = new OutputStreamWriter(lli.getOutputStream(), StandardCharsets.UTF_8)) {
+            stdin.write(llvmCode);
+        } catch (IOException e) {
+            // lli stopped reading (bad IR), the reason is in its error output
+        }
+        // The exit code of lli is the value returned by main, so only its error output tells that it failed
+        commit(event, waitFor(lli));
+        drainer.join();
+        toolsSucceeded &= !copyLog();
+        return stdout.toString(StandardCharsets.UTF_8);
+    }
+
+    private void exec(String... command) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        pb.redirectError(scratchFile(".log").toFile());
+        ToolEvent event = toolEvent(pb);
+        int exitCode = waitFor(pb.start());
+        commit(event, exitCode);
+        toolsSucceeded &= exitCode == 0;
+        copyLog();
+    }
+
+    private static ToolEvent toolEvent(ProcessBuilder pb) {
+        ToolEvent event = new ToolEvent();
+        if (event.isEnabled()) {
+            event.tool = Paths.get(pb.command().get(0)).getFileName().toString();
+            event.command = String.join(" ", pb.command());
+        }
+        event.begin();
+        return event;
+    }
+
+    private static void commit(ToolEvent event, int exitCode) {
+        event.end();
+        event.exitCode = exitCode;
+        event.commit();
+    }
+
+    /**
+     * Waits for a process, killing it if this thread is interrupted (e.g. by a test timeout)
+     *
+     * @return The exit code of the process
+     */
+    private static int waitFor(Process process) throws InterruptedException {
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            process.waitFor(1, TimeUnit.SECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * Forwards what the last process wrote to its error output
+     *
+     * @return Whether it wrote anything
+     */
+    private boolean copyLog() throws IOException {
+        Path log = scratchFile(".log");
+        boolean written = Files.exists(log) && Files.size(log) > 0;
+        if (written) {
+            err.print(Files.readString(log, StandardCharsets.UTF_8));
+            err.flush();
+        }
+        Files.deleteIfExists(log);
+        return written;
+    }
+
+    /**
+     * A file in the scratch directory that belongs to the current thread, so concurrent builds never collide
+     *
+     * @param extension The extension of the file
+     * @return The path of the file
+     */
+    private static Path scratchFile(String extension) throws IOException {
+        return scratchDir().resolve("program-" + Thread.currentThread().getId() + extension);
+    }
+
+    private static synchronized Path scratchDir() throws IOException {
+        if (scratchDir == null) {
+            scratchDir = Files.createTempDirectory("aguda-");
+            Path dir = scratchDir;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try (var files = Files.list(dir)) {
+                    for (Path file : files.toList()) {
+                        Files.deleteIfExists(file);
+                    }
+                    Files.deleteIfExists(dir);
+                } catch (IOException e) {
+                    // Nothing left to do, it is a temporary directory
+                }
+            }));
+        }
+        return scratchDir;
+    }
+}
@@ -0,0 +1,163 @@
+package app;
+
+import aguda.ast.*;
+import aguda.parser.*;
+import org.antlr.v4.runtime.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Differential test of the parallel parse of {@link DescentParser} (-Daguda.parser.jobs) against its sequential
+ * parse: every input must give the same AST, positions included, and the same lexical and syntax errors.
+ *
+ * Besides the given files, it checks programs built here that are large enough to be cut in chunks, around a
+ * function whose body has a let where the cut could go wrong: inside brackets or after a ; (no cut, and no second
+ * parse), or right after a closing bracket or an expression, which only happens in a body that does not parse
+ * (the chunk fails, and the whole program must be parsed again, with the errors of the sequential parse).
+ *
+ * Usage: java app.ParallelParseCheck [--jobs <n>] [file.agu | directory]...
+ */
+public class ParallelParseCheck {
+    // Declarations around the function of a built program, enough tokens to be cut in several chunks
+    private static final int FILLER = 3000;
+
+    /**
+     * @param source The program
+     * @param valid Whether it parses
+     * @param fallsBack Whether the parallel parse must parse the program again on one thread
+     */
+    private record Case(String name, String source, boolean valid, boolean fallsBack) {}
+
+    private static final List<Case> CASES = List.of(
+            new Case("empty file", "", false, false),
+            new Case("file with only a comment", "-- nothing here\n", false, false),
+            new Case("let inside brackets", program("(let y : Int = (x); y)"), true, false),
+            new Case("let after a ;", program("g(x); let y : Int = x; y"), true, false),
+            new Case("let right after a closing bracket", program("g(x)) let y : Int = x; y"), false, true),
+            new Case("let right after an expression", program("x x let y : Int = x; y"), false, true));
+
+    public static void main(String[] args) throws IOException {
+        int jobs = 4;
+        List<Path> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--jobs")) {
+                    jobs = Integer.parseInt(args[++i]);
+                } else {
+                    try (Stream<Path> walk = Files.walk(Paths.get(args[i]))) {
+                        walk.filter(p -> p.toString().endsWith(".agu")).sorted().forEach(files::add);
+                    }
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            System.out.println("Usage: java app.ParallelParseCheck [--jobs <n>] [file.agu | directory]...");
+            System.exit(1);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(2, jobs));
+        int failures = 0;
+        for (Case c : CASES) {
+            Outcome sequential = parse(c.source().getBytes(StandardCharsets.UTF_8), null);
+            Outcome parallel = parse(c.source().getBytes(StandardCharsets.UTF_8), pool);
+            String difference = compare(sequential, parallel);
+            if (difference == null && parallel.fellBack() != c.fallsBack()) {
+                difference = c.fallsBack() ? "was not parsed again" : "was parsed again";
+            }
+            if (difference == null && sequential.errors().isEmpty() != c.valid()) {
+                difference = c.valid() ? "has errors: " + sequential.errors() : "has no error";
+            }
+            failures += report(c.name(), difference);
+        }
+        int fallbacks = 0;
+        for (Path file : files) {
+            byte[] source = Files.readAllBytes(file);
+            Outcome parallel = parse(source, pool);
+            fallbacks += parallel.fellBack() ? 1 : 0;
+            failures += report(file.toString(), compare(parse(source, null), parallel));
+        }
+        pool.shutdown();
+        System.out.println((CASES.size() + files.size()) + " input(s), " + fallbacks + " file(s) parsed again, "
+                + failures + " difference(s)");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * @param ast The printed AST, empty if it did not parse
+     * @param errors The lexical and syntax errors, in the order they were reported
+     * @param fellBack Whether the parallel parse parsed the program again on one thread
+     */
+    private record Outcome(String ast, List<String> errors, boolean fellBack) {}
+
+    /**
+     * @param pool The pool of the parallel parse, or null for the sequential one
+     */
+    private static Outcome parse(byte[] source, ForkJoinPool pool) throws IOException {
+        List<String> errors = new ArrayList<>();
+        DescentParser parser = new DescentParser(FastLexer.lex(source), recorder("lexical", errors),
+                recorder("syntax", errors));
+        Program program;
+        try {
+            program = pool == null ? parser.program() : parser.program(pool);
+        } catch (RuntimeException e) {
+            // A crash is a difference too, not the end of the check
+            errors.add("exception " + e);
+            program = null;
+        }
+        StringBuilder ast = new StringBuilder();
+        if (program != null) {
+            program.print(ast, 0);
+        }
+        return new Outcome(ast.toString(), errors, parser.fellBack());
+    }
+
+    /**
+     * @return How the parallel parse differs from the sequential one, or null if it does not
+     */
+    private static String compare(Outcome sequential, Outcome parallel) {
+        if (!sequential.errors().equals(parallel.errors())) {
+            return "errors " + parallel.errors() + " instead of " + sequential.errors();
+        }
+        if (!sequential.ast().equals(parallel.ast())) {
+            return "another AST";
+        }
+        return null;
+    }
+
+    private static int report(String input, String difference) {
+        if (difference == null) {
+            return 0;
+        }
+        System.out.println("❌ " + input + ": " + difference);
+        return 1;
+    }
+
+    /**
+     * @return A program with the function "f" that has this body between many global variables
+     */
+    private static String program(String body) {
+        StringBuilder sb = new StringBuilder("let g (x) : Int -> Int = x\n");
+        for (int i = 0; i < FILLER; i++) {
+            sb.append("let a").append(i).append(" : Int = ").append(i).append("\n");
+        }
+        sb.append("let f (x) : Int -> Int = ").append(body).append("\n");
+        for (int i = 0; i < FILLER; i++) {
+            sb.append("let b").append(i).append(" : Int = ").append(i).append("\n");
+        }
+        return sb.toString();
+    }
+
+    private static BaseErrorListener recorder(String kind, List<String> errors) {
+        return new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                    int line, int charPositionInLine, String msg, RecognitionException e) {
+                errors.add(kind + " " + line + ":" + charPositionInLine + " " + msg);
+            }
+        };
+    }
+}
@@ -0,0 +1,378 @@
+package app;
+
+import aguda.ast.*;
+import aguda.checker.Checker;
+import aguda.parser.*;
+import org.antlr.v4.runtime.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Generates valid AGUDA programs of any size, for stress and scaling tests of the compiler, each with the
+ * output it must print, computed by the {@link Interpreter}.
+ *
+ * The shape of the programs is chosen with knobs:
+ *   --functions N    Functions besides main (default 10)
+ *   --depth D        Depth of every expression tree (default 2)
+ *   --nesting K      Depth of the while/if nest in every function (default 2)
+ *   --lets L         Length of the let chain that starts every function (default 3)
+ *   --array-dims A   Dimensions of an array declared in every function, 0 for none (default 0)
+ *   --calls SHAPE    Call graph: none, chain (f0 calls f1 calls f2...), tree (fi calls f2i+1 and f2i+2) or
+ *                    random (fi calls one fj, j > i) (default chain)
+ *   --iterations I   Iterations of every while loop (default 3)
+ *   --seed S         Seed of the first program (default 1)
+ *   --count C        Number of programs, with seeds S to S+C-1 (default 1)
+ *   --out DIR        Writes DIR/gen_S/gen_S.agu and gen_S.expect, like the test corpus, instead of printing
+ *                    the program
+ *
+ * Programs always terminate: functions only call functions declared after them, every loop runs a fixed number
+ * of times, and divisions are by non-zero literals. Every function is run once per caller, so the running time
+ * grows linearly with the number of functions (and with the chain shape, so does the depth of the recursion).
+ * Arrays are only checked by the front end, the code generator does not support them, so programs generated
+ * with --array-dims are for the syntax and semantic tests.
+ */
+public class ProgramGenerator {
+    public enum CallGraph { NONE, CHAIN, TREE, RANDOM }
+
+    /**
+     * The knobs of the generator
+     */
+    public record Knobs(int functions, int depth, int nesting, int lets, int arrayDimensions, CallGraph calls, int iterations) {
+        public static Knobs defaults() {
+            return new Knobs(10, 2, 2, 3, 0, CallGraph.CHAIN, 3);
+        }
+
+        /**
+         * @return The command line options that select these knobs
+         */
+        public String flags() {
+            return "--functions " + functions + " --depth " + depth + " --nesting " + nesting + " --lets " + lets
+                    + " --array-dims " + arrayDimensions + " --calls " + calls.name().toLowerCase() + " --iterations " + iterations;
+        }
+    }
+
+    private record ArrayVar(String name, int dimensions, int size) {}
+
+    private final Knobs knobs;
+    private final long seed;
+    private final Random random;
+    private final StringBuilder sb = new StringBuilder();
+
+    // What the expression being generated can use
+    private final List<String> ints = new ArrayList<>();
+    private final List<String> bools = new ArrayList<>();
+    private final List<String> targets = new ArrayList<>();
+    private final List<ArrayVar> arrays = new ArrayList<>();
+    private int counters;
+
+    public ProgramGenerator(Knobs knobs, long seed) {
+        this.knobs = knobs;
+        this.seed = seed;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @return The source of the program
+     */
+    public String generate() {
+        sb.setLength(0);
+        sb.append("-- Generated by ProgramGenerator ").append(knobs.flags()).append(" --seed ").append(seed).append("\n\n");
+
+        List<String> globalInts = List.of("g0", "g1");
+        sb.append("let g0 : Int = ").append(random.nextInt(100)).append("\n\n");
+        sb.append("let g1 : Int = ").append(random.nextInt(100)).append("\n\n");
+        sb.append("let g2 : Bool = ").append(random.nextBoolean()).append("\n\n");
+
+        int n = knobs.functions();
+        int[] params = new int[n];
+        for (int i = 0; i < n; i++) {
+            params[i] = 1 + random.nextInt(3);
+        }
+        List<List<Integer>> callees = callGraph(n);
+        boolean[] called = new boolean[n];
+        callees.forEach(list -> list.forEach(j -> called[j] = true));
+
+        for (int i = 0; i < n; i++) {
+            ints.clear();
+            bools.clear();
+            targets.clear();
+            arrays.clear();
+            counters = 0;
+            ints.addAll(globalInts);
+            bools.add("g2");
+            function(i, params[i], callees.get(i), params);
+        }
+
+        ints.clear();
+        bools.clear();
+        arrays.clear();
+        sb.append("let main (_) : Unit -> Unit =\n");
+        for (int i = 0; i < n; i++) {
+            if (!called[i]) {
+                sb.append("  print(").append(call(i, params[i], true)).append(");\n");
+            }
+        }
+        sb.append("  print(g2)\n");
+        return sb.toString();
+    }
+
+    /**
+     * @return Which functions each function calls, always functions declared after it
+     */
+    private List<List<Integer>> callGraph(int n) {
+        List<List<Integer>> callees = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            List<Integer> list = new ArrayList<>();
+            switch (knobs.calls()) {
+                case CHAIN -> {
+                    if (i + 1 < n) list.add(i + 1);
+                }
+                case TREE -> {
+                    if (2 * i + 1 < n) list.add(2 * i + 1);
+                    if (2 * i + 2 < n) list.add(2 * i + 2);
+                }
+                case RANDOM -> {
+                    if (i + 1 < n && random.nextInt(4) > 0) list.add(i + 1 + random.nextInt(n - i - 1));
+                }
+                case NONE -> {}
+            }
+            callees.add(list);
+        }
+        return callees;
+    }
+
+    private void function(int index, int params, List<Integer> callees, int[] allParams) {
+        List<String> names = new ArrayList<>();
+        for (int p = 0; p < params; p++) {
+            names.add("p" + p);
+        }
+        String type = params == 1 ? "Int -> Int" : "(" + String.join(", ", Collections.nCopies(params, "Int")) + ") -> Int";
+        sb.append("let f").append(index).append(" (").append(String.join(", ", names)).append(") : ").append(type).append(" =\n");
+        ints.addAll(names);
+
+        for (int v = 0; v < Math.max(1, knobs.lets()); v++) {
+            sb.append("  let v").append(v).append(" : Int = ").append(intExpr(knobs.depth())).append(";\n");
+            ints.add("v" + v);
+            targets.add("v" + v);
+        }
+        sb.append("  let b0 : Bool = ").append(boolExpr(knobs.depth())).append(";\n");
+        bools.add("b0");
+        if (knobs.arrayDimensions() > 0) {
+            ArrayVar array = new ArrayVar("a0", knobs.arrayDimensions(), 2 + random.nextInt(3));
+            sb.append("  let a0 : Int").append("[]".repeat(array.dimensions())).append(" = ")
+              .append(arrayCreation(array.dimensions(), array.size())).append(";\n");
+            arrays.add(array);
+        }
+
+        control(knobs.nesting(), "  ");
+        sb.append(";\n");
+
+        StringBuilder result = new StringBuilder(intExpr(knobs.depth()));
+        for (int callee : callees) {
+            result.insert(0, "(").append(" + ").append(call(callee, allParams[callee], false)).append(")");
+        }
+        sb.append("  ").append(result).append("\n\n");
+    }
+
+    /**
+     * A nest of while loops and ifs that assigns the locals, followed by nothing (the caller ends the line)
+     */
+    private void control(int level, String indent) {
+        if (level == 0) {
+            sb.append(indent).append(assignment());
+            return;
+        }
+        if (random.nextBoolean()) {
+            String counter = "c" + counters++;
+            sb.append(indent).append("let ").append(counter).append(" : Int = 0;\n");
+            sb.append(indent).append("while ").append(counter).append(" < ").append(knobs.iterations()).append(" do (\n");
+            ints.add(counter);
+            control(level - 1, indent + "  ");
+            sb.append(";\n");
+            for (ArrayVar array : arrays) {
+                sb.append(indent).append("  set ").append(array.name());
+                sb.append("[").append(counter).append(" % ").append(array.size()).append("]");
+                for (int d = 1; d < array.dimensions(); d++) {
+                    sb.append("[").append(random.nextInt(array.size())).append("]");
+                }
+                sb.append(" = ").append(intExpr(knobs.depth())).append(";\n");
+            }
+            sb.append(indent).append("  set ").append(counter).append(" = ").append(counter).append(" + 1\n");
+            sb.append(indent).append(")");
+            ints.remove(counter);
+        } else {
+            sb.append(indent).append("if ").append(boolExpr(knobs.depth())).append(" then (\n");
+            control(level - 1, indent + "  ");
+            sb.append("\n").append(indent).append(") else (\n");
+            sb.append(indent).append("  ").append(assignment()).append("\n");
+            sb.append(indent).append(")");
+        }
+    }
+
+    private String assignment() {
+        return "set " + pick(targets) + " = " + intExpr(knobs.depth());
+    }
+
+    private String call(int callee, int params, boolean literals) {
+        StringBuilder call = new StringBuilder("f").append(callee).append("(");
+        for (int p = 0; p < params; p++) {
+            call.append(p > 0 ? ", " : "").append(literals ? String.valueOf(random.nextInt(10)) : intLeaf());
+        }
+        return call.append(")").toString();
+    }
+
+    private String arrayCreation(int dimensions, int size) {
+        String init = dimensions == 1 ? intLeaf() : arrayCreation(dimensions - 1, size);
+        return "new Int [" + size + " | " + init + "]" + "[]".repeat(dimensions - 1);
+    }
+
+    private String intExpr(int depth) {
+        if (depth == 0) {
+            return intLeaf();
+        }
+        return switch (random.nextInt(8)) {
+            case 0, 1, 2 -> "(" + intExpr(depth - 1) + " " + pick(List.of("+", "-", "*")) + " " + intExpr(depth - 1) + ")";
+            case 3 -> "(" + intExpr(depth - 1) + " / " + (1 + random.nextInt(9)) + ")";
+            case 4 -> "(" + intExpr(depth - 1) + " % " + (1 + random.nextInt(9)) + ")";
+            case 5 -> "(" + intExpr(depth - 1) + " ^ " + random.nextInt(4) + ")";
+            case 6 -> "-(" + intExpr(depth - 1) + ")";
+            default -> "(if " + boolExpr(depth - 1) + " then " + intExpr(depth - 1) + " else " + intExpr(depth - 1) + ")";
+        };
+    }
+
+    private String intLeaf() {
+        int choice = random.nextInt(10);
+        if (!arrays.isEmpty() && choice == 0) {
+            ArrayVar array = pick(arrays);
+            StringBuilder access = new StringBuilder(array.name());
+            for (int d = 0; d < array.dimensions(); d++) {
+                access.append("[").append(random.nextInt(array.size())).append("]");
+            }
+            return access.toString();
+        } else if (!arrays.isEmpty() && choice == 1) {
+            return "length(" + pick(arrays).name() + ")";
+        } else if (ints.isEmpty() || choice < 4) {
+            return String.valueOf(random.nextInt(100));
+        }
+        return pick(ints);
+    }
+
+    private String boolExpr(int depth) {
+        if (depth == 0) {
+            return switch (random.nextInt(4)) {
+                case 0 -> String.valueOf(random.nextBoolean());
+                case 1 -> bools.isEmpty() ? "true" : pick(bools);
+                default -> "(" + intLeaf() + " " + pick(List.of("<", "<=", ">", ">=", "==", "!=")) + " " + intLeaf() + ")";
+            };
+        }
+        return switch (random.nextInt(5)) {
+            case 0 -> "(" + boolExpr(depth - 1) + " && " + boolExpr(depth - 1) + ")";
+            case 1 -> "(" + boolExpr(depth - 1) + " || " + boolExpr(depth - 1) + ")";
+            case 2 -> "!(" + boolExpr(depth - 1) + ")";
+            default -> "(" + intExpr(depth - 1) + " " + pick(List.of("<", "<=", ">", ">=", "==", "!=")) + " " + intExpr(depth - 1) + ")";
+        };
+    }
+
+    private <T> T pick(List<T> list) {
+        return list.get(random.nextInt(list.size()));
+    }
+
+    /**
+     * Parses and checks a generated program, then runs it with the interpreter
+     *
+     * @param source The source of the program
+     * @return What the program prints
+     * @throws IllegalStateException If the program is not valid, which is a bug of the generator
+     */
+    public static String expectedOutput(String source) {
+        AgudaLexer lexer = new AgudaLexer(CharStreams.fromString(source));
+        AgudaParser parser = new AgudaParser(new CommonTokenStream(lexer));
+        lexer.removeErrorListeners();
+        parser.removeErrorListeners();
+        AstNode ast = new AstBuilder().visit(parser.program());
+        if (parser.getNumberOfSyntaxErrors() > 0) {
+            throw new IllegalStateException("Generated a program with " + parser.getNumberOfSyntaxErrors() + " syntax error(s)");
+        }
+        Checker checker = new Checker("generated.agu", 10);
+        try {
+            checker.typeof(ast, true);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Generated a program with semantic errors:\n" + checker.getErrorMessage());
+        }
+        return Interpreter.run((Program) ast);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Knobs defaults = Knobs.defaults();
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                usage();
+                return;
+            }
+            options.put(args[i], args[++i]);
+        }
+
+        Knobs knobs;
+        long seed;
+        int count;
+        try {
+            knobs = new Knobs(
+                    Integer.parseInt(options.getOrDefault("--functions", String.valueOf(defaults.functions()))),
+                    Integer.parseInt(options.getOrDefault("--depth", String.valueOf(defaults.depth()))),
+                    Integer.parseInt(options.getOrDefault("--nesting", String.valueOf(defaults.nesting()))),
+                    Integer.parseInt(options.getOrDefault("--lets", String.valueOf(defaults.lets()))),
+                    Integer.parseInt(options.getOrDefault("--array-dims", String.valueOf(defaults.arrayDimensions()))),
+                    CallGraph.valueOf(options.getOrDefault("--calls", defaults.calls().name()).toUpperCase()),
+                    Integer.parseInt(options.getOrDefault("--iterations", String.valueOf(defaults.iterations()))));
+            seed = Long.parseLong(options.getOrDefault("--seed", "1"));
+            count = Integer.parseInt(options.getOrDefault("--count", "1"));
+        } catch (IllegalArgumentException e) {
+            usage();
+            return;
+        }
+        Set<String> known = Set.of("--functions", "--depth", "--nesting", "--lets", "--array-dims", "--calls",
+                "--iterations", "--seed", "--count", "--out");
+        if (!known.containsAll(options.keySet())) {
+            usage();
+            return;
+        }
+
+        String out = options.get("--out");
+        // The interpreter recurses once per call, and the chain shape calls as deep as there are functions
+        boolean[] failed = new boolean[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                for (long s = seed; s < seed + count; s++) {
+                    String source = new ProgramGenerator(knobs, s).generate();
+                    if (out == null) {
+                        System.out.print(source);
+                        continue;
+                    }
+                    Path dir = Paths.get(out, "gen_" + s);
+                    Files.createDirectories(dir);
+                    Files.writeString(dir.resolve("gen_" + s + ".agu"), source, StandardCharsets.UTF_8);
+                    Files.writeString(dir.resolve("gen_" + s + ".expect"), expectedOutput(source), StandardCharsets.UTF_8);
+                    System.out.println("Generated " + dir.resolve("gen_" + s + ".agu"));
+                }
+            } catch (IOException | RuntimeException | StackOverflowError | OutOfMemoryError e) {
+                System.err.println("⚠️  " + e.getMessage());
+                failed[0] = true;
+            }
+        }, "aguda-generator", 1L << 30);
+        thread.start();
+        thread.join();
+        if (failed[0]) {
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: java app.ProgramGenerator [--functions N] [--depth D] [--nesting K] [--lets L]");
+        System.out.println("         [--array-dims A] [--calls none|chain|tree|random] [--iterations I]");
+        System.out.println("         [--seed S] [--count C] [--out DIR]");
+    }
+}
@@ -0,0 +1,419 @@
+package app;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.*;
+
+/**
+ * Runs the test suite in test/test/{valid,invalid-syntax,invalid-semantic} inside one JVM, with the tests
+ * running in parallel. It follows the same rules and prints the same summary and logs/ report as
+ * test-syntax.sh, test-semantic.sh and test-codegen.sh, and also writes the results as JSON and JUnit XML
+ * with the duration of every test and of every compiler phase.
+ *
+ * Usage: java app.TestRunner <syntax | semantic | execution> [max_number_of_errors]
+ *                            [--jobs n] [--timeout seconds] [--dir test/test] [--backend pipe | files | compare | jit]
+ */
+public class TestRunner {
+
+    private static final List<String> CATEGORIES = List.of("valid", "invalid-syntax", "invalid-semantic");
+
+    private final String phase;
+    private final int maxErrors;
+    private final int jobs;
+    private final long timeoutNanos;
+    private final Path testDir;
+
+    public TestRunner(String phase, int maxErrors, int jobs, long timeoutSeconds, Path testDir) {
+        this.phase = phase;
+        this.maxErrors = maxErrors;
+        this.jobs = jobs;
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        this.testDir = testDir;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || !List.of("syntax", "semantic", "execution").contains(args[0])) {
+            System.err.println("Usage: java app.TestRunner <syntax | semantic | execution> [max_number_of_errors] [--jobs n] [--timeout seconds] [--dir test/test] [--backend pipe | files | compare | jit]");
+            System.exit(1);
+        }
+
+        int maxErrors = 10;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        long timeout = 30;
+        Path testDir = Paths.get("test", "test");
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--jobs" -> jobs = Math.max(1, Integer.parseInt(args[++i]));
+                case "--timeout" -> timeout = Long.parseLong(args[++i]);
+                case "--dir" -> testDir = Paths.get(args[++i]);
+                case "--backend" -> System.setProperty("aguda.backend", args[++i]);
+                default -> {
+                    if (!args[i].matches("[0-9]+")) {
+                        System.out.println("Invalid argument: must be a number.");
+                        System.exit(1);
+                    }
+                    maxErrors = Integer.parseInt(args[i]);
+                }
+            }
+        }
+
+        System.exit(new TestRunner(args[0], maxErrors, jobs, timeout, testDir).run());
+    }
+
+    /**
+     * Runs every test, printing the progress and writing the reports
+     *
+     * @return 0 if every test passed, 1 otherwise
+     */
+    public int run() throws IOException {
+        List<TestCase> tests = discover();
+
+        ExecutorService pool = Executors.newFixedThreadPool(jobs, runnable -> {
+            Thread thread = new Thread(null, runnable, "aguda-test", 256L << 20);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        System.out.println("Running tests...");
+        long start = System.nanoTime();
+
+        List<Pending> pending = new ArrayList<>();
+        for (TestCase test : tests) {
+            AtomicLong started = new AtomicLong();
+            pending.add(new Pending(test, started, pool.submit(() -> execute(test, started))));
+        }
+
+        List<Outcome> outcomes = new ArrayList<>();
+        String category = null;
+        for (Pending p : pending) {
+            if (!p.test.category.equals(category)) {
+                category = p.test.category;
+                System.out.println("\n== " + category + " ==");
+            }
+            Outcome outcome = await(p);
+            outcomes.add(outcome);
+            System.out.println((outcome.passed ? "✅ " : "❌ ") + p.test.name);
+        }
+        pool.shutdownNow();
+        long elapsed = System.nanoTime() - start;
+
+        Path log = writeLog(outcomes);
+        String base = log.toString().replaceAll("\\.log$", "");
+        writeJson(Paths.get(base + ".json"), outcomes, elapsed);
+        writeJunit(Paths.get(base + ".xml"), outcomes);
+
+        long passed = outcomes.stream().filter(o -> o.passed).count();
+        System.out.println("\n=============================== 📋");
+        System.out.println("✅ SUMMARY");
+        System.out.println("📊 TOTAL: " + outcomes.size() + " | ✅ PASSED: " + passed + " | ❌ FAILED: " + (outcomes.size() - passed));
+        System.out.printf("⏱️  %.2f s on %d thread(s)%n", elapsed / 1e9, jobs);
+        printBuildSavings(outcomes);
+        if (ArtifactCache.getHits() + ArtifactCache.getMisses() > 0) {
+            System.out.println("🗄️  CACHE: " + ArtifactCache.getHits() + " hit(s) | " + ArtifactCache.getMisses() + " miss(es)");
+        }
+        System.out.println("📝 Report written to " + log + " (" + base + ".json, " + base + ".xml)");
+        return passed == outcomes.size() ? 0 : 1;
+    }
+
+    /* ---------------------- DISCOVERY AND EXECUTION ------------------- */
+
+    /**
+     * Finds the tests the same way the scripts do: the first .agu file of every directory of every category
+     *
+     * @return The tests, ordered by category and then by name
+     */
+    private List<TestCase> discover() throws IOException {
+        List<String> categories = phase.equals("execution") ? List.of("valid") : CATEGORIES;
+        List<TestCase> tests = new ArrayList<>();
+        for (String category : categories) {
+            Path dir = testDir.resolve(category);
+            if (!Files.isDirectory(dir)) continue;
+
+            List<Path> testDirs;
+            try (Stream<Path> list = Files.list(dir)) {
+                testDirs = list.filter(Files::isDirectory).sorted().toList();
+            }
+            for (Path testCaseDir : testDirs) {
+                Optional<Path> agu;
+                try (Stream<Path> list = Files.list(testCaseDir)) {
+                    agu = list.filter(p -> p.toString().endsWith(".agu")).sorted().findFirst();
+                }
+                if (agu.isEmpty()) {
+                    System.out.println("No .agu file found in " + testCaseDir);
+                    continue;
+                }
+                String name = testCaseDir.getFileName().toString();
+                tests.add(new TestCase(category, name, category + "/" + name + "/" + agu.get().getFileName(), agu.get()));
+            }
+        }
+        return tests;
+    }
+
+    /**
+     * Compiles one test with the flag of this phase and decides if it passed
+     *
+     * @param test The test to run
+     * @param started Set to the moment the test starts running, used for its timeout
+     * @return The outcome of the test
+     */
+    private Outcome execute(TestCase test, AtomicLong started) {
+        started.set(System.nanoTime());
+        CompileStats stats = new CompileStats();
+        ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+        int exitCode;
+
+        try (PrintStream out = new PrintStream(outBytes, true, StandardCharsets.UTF_8);
+             // test-syntax.sh only keeps the standard output, the other scripts keep both
+             PrintStream err = phase.equals("syntax") ? new PrintStream(OutputStream.nullOutputStream()) : out) {
+            try {
+                exitCode = Main.run(new String[] { test.file.toString(), "--test-" + phase, String.valueOf(maxErrors) }, out, err, stats);
+            } catch (Exception | StackOverflowError e) {
+                out.println("Internal compiler error: " + e);
+                exitCode = 1;
+            }
+        }
+        stats.stop();
+        long duration = System.nanoTime() - started.get();
+
+        boolean expectsError = test.category.equals("invalid-syntax")
+                || (test.category.equals("invalid-semantic") && phase.equals("semantic"));
+        boolean passed = expectsError ? exitCode != 0 : exitCode == 0;
+        String details = expectsError && !passed ? "⚠️  Expected an error but none was thrown." : outBytes.toString(StandardCharsets.UTF_8).stripTrailing();
+        return new Outcome(test, passed, false, details, duration, stats.getPhaseNanos());
+    }
+
+    /**
+     * Waits for a test to finish, giving up when it has been running for longer than the timeout. The test is
+     * then interrupted, which stops the compiler at its next phase or top-level declaration (see CompileStats.start)
+     *
+     * @param p The test being run
+     * @return The outcome of the test
+     */
+    private Outcome await(Pending p) {
+        while (true) {
+            long started = p.started.get();
+            // Until the test starts it is only waiting for a free thread
+            long wait = started == 0 ? TimeUnit.MILLISECONDS.toNanos(100) : started + timeoutNanos - System.nanoTime();
+            try {
+                return p.future.get(Math.max(wait, 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (started != 0 && System.nanoTime() - started >= timeoutNanos) {
+                    p.future.cancel(true);
+                    String details = "⏰ Timed out after " + TimeUnit.NANOSECONDS.toSeconds(timeoutNanos) + " s";
+                    return new Outcome(p.test, false, true, details, System.nanoTime() - started, Map.of());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Outcome(p.test, false, false, "Interrupted", 0, Map.of());
+            } catch (ExecutionException e) {
+                return new Outcome(p.test, false, false, "Internal compiler error: " + e.getCause(), 0, Map.of());
+            }
+        }
+    }
+
+    /* ---------------------------- REPORTS ----------------------------- */
+
+    /**
+     * When the tests were built with both native pipelines (--backend compare), prints how much
+     * wall time the single clang pipe saved against llc + clang + chmod
+     *
+     * @param outcomes The outcomes of every test
+     */
+    private static void printBuildSavings(List<Outcome> outcomes) {
+        List<Outcome> compared = outcomes.stream().filter(o -> o.phaseNanos.containsKey("build") && o.phaseNanos.containsKey("llc")).toList();
+        if (compared.isEmpty()) return;
+
+        double files = compared.stream().mapToLong(TestRunner::filesBuildNanos).average().orElse(0) / 1e6;
+        double pipe = compared.stream().mapToLong(o -> o.phaseNanos.get("build")).average().orElse(0) / 1e6;
+        System.out.printf("🔧 Native build per test: %.1f ms (llc + clang + chmod) vs %.1f ms (clang pipe), %.1f ms saved%n", files, pipe, files - pipe);
+    }
+
+    private static long filesBuildNanos(Outcome o) {
+        return o.phaseNanos.getOrDefault("llc", 0L) + o.phaseNanos.getOrDefault("clang", 0L) + o.phaseNanos.getOrDefault("chmod", 0L);
+    }
+
+    /**
+     * Writes the same report as the scripts to the logs directory
+     *
+     * @param outcomes The outcomes of every test
+     * @return The path of the report
+     */
+    private Path writeLog(List<Outcome> outcomes) throws IOException {
+        String kind = Character.toUpperCase(phase.charAt(0)) + phase.substring(1);
+        String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("ddMMyyyy-HHmm"));
+        Path log = Paths.get("logs", "Test_" + kind + "-" + date + ".log");
+        Files.createDirectories(log.getParent());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Test Report\n");
+        sb.append("Generated on ").append(new Date()).append("\n");
+        sb.append("===============================\n");
+        sb.append("\n📊 Test Summary:\n");
+        if (!phase.equals("execution")) {
+            sb.append("==============================\n");
+            appendCategory(sb, "Valid tests", "valid", outcomes);
+            sb.append("==============================\n");
+            appendCategory(sb, "Invalid syntax tests", "invalid-syntax", outcomes);
+            sb.append("==============================\n");
+            appendCategory(sb, "Invalid semantic tests", "invalid-semantic", outcomes);
+            sb.append("============================== 📋\n");
+            sb.append("✅ SUMMARY\n");
+        }
+        long passed = outcomes.stream().filter(o -> o.passed).count();
+        sb.append("📊 TOTAL: ").append(outcomes.size()).append(" | ✅ PASSED: ").append(passed)
+          .append(" | ❌ FAILED: ").append(outcomes.size() - passed).append("\n");
+
+        if (passed < outcomes.size()) {
+            sb.append("\n\nTests Failed ❌:\n");
+            for (Outcome outcome : outcomes) {
+                if (outcome.passed) continue;
+                sb.append("\n> ").append(outcome.test.relativePath).append("\n");
+                sb.append("--------------------------------\n");
+                sb.append(outcome.details).append("\n\n");
+            }
+        }
+
+        Files.writeString(log, sb.toString(), StandardCharsets.UTF_8);
+        return log;
+    }
+
+    private static void appendCategory(StringBuilder sb, String title, String category, List<Outcome> outcomes) {
+        long passed = outcomes.stream().filter(o -> o.test.category.equals(category) && o.passed).count();
+        long failed = outcomes.stream().filter(o -> o.test.category.equals(category) && !o.passed).count();
+        sb.append(title).append(" (").append(passed + failed).append(")\n");
+        sb.append("✅ Passed: ").append(passed).append("\n");
+        sb.append("❌ Failed: ").append(failed).append("\n");
+    }
+
+    private void writeJson(Path path, List<Outcome> outcomes, long elapsed) throws IOException {
+        long passed = outcomes.stream().filter(o -> o.passed).count();
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"phase\": ").append(json(phase)).append(",\n");
+        sb.append("  \"maxErrors\": ").append(maxErrors).append(",\n");
+        if (phase.equals("execution")) {
+            sb.append("  \"backend\": \"").append(NativeBackend.selectedMode().name().toLowerCase()).append("\",\n");
+        }
+        sb.append("  \"jobs\": ").append(jobs).append(",\n");
+        sb.append("  \"cacheHits\": ").append(ArtifactCache.getHits()).append(",\n");
+        sb.append("  \"cacheMisses\": ").append(ArtifactCache.getMisses()).append(",\n");
+        sb.append("  \"durationMs\": ").append(millis(elapsed)).append(",\n");
+        sb.append("  \"total\": ").append(outcomes.size()).append(",\n");
+        sb.append("  \"passed\": ").append(passed).append(",\n");
+        sb.append("  \"failed\": ").append(outcomes.size() - passed).append(",\n");
+        sb.append("  \"tests\": [");
+        for (int i = 0; i < outcomes.size(); i++) {
+            Outcome o = outcomes.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"category\": ").append(json(o.test.category))
+              .append(", \"name\": ").append(json(o.test.name))
+              .append(", \"file\": ").append(json(o.test.relativePath))
+              .append(", \"status\": ").append(json(o.timedOut ? "timeout" : o.passed ? "passed" : "failed"))
+              .append(", \"durationMs\": ").append(millis(o.durationNanos))
+              .append(", \"phasesMs\": {");
+            String separator = "";
+            for (Map.Entry<String, Long> entry : o.phaseNanos.entrySet()) {
+                sb.append(separator).append(json(entry.getKey())).append(": ").append(millis(entry.getValue()));
+                separator = ", ";
+            }
+            sb.append("}");
+            if (o.phaseNanos.containsKey("build") && o.phaseNanos.containsKey("llc")) {
+                sb.append(", \"buildSavedMs\": ").append(millis(filesBuildNanos(o) - o.phaseNanos.get("build")));
+            }
+            if (!o.passed) {
+                sb.append(", \"output\": ").append(json(o.details));
+            }
+            sb.append("}");
+        }
+        sb.append("\n  ]\n}\n");
+        Files.writeString(path, sb.toString(), StandardCharsets.UTF_8);
+    }
+
+    private void writeJunit(Path path, List<Outcome> outcomes) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<testsuites name=\"aguda-").append(phase).append("\">\n");
+        for (String category : CATEGORIES) {
+            List<Outcome> inCategory = outcomes.stream().filter(o -> o.test.category.equals(category)).toList();
+            if (inCategory.isEmpty()) continue;
+
+            long failures = inCategory.stream().filter(o -> !o.passed).count();
+            long time = inCategory.stream().mapToLong(o -> o.durationNanos).sum();
+            sb.append("  <testsuite name=\"").append(xml(category)).append("\" tests=\"").append(inCategory.size())
+              .append("\" failures=\"").append(failures).append("\" time=\"").append(seconds(time)).append("\">\n");
+            for (Outcome o : inCategory) {
+                sb.append("    <testcase classname=\"").append(xml(phase + "." + category)).append("\" name=\"").append(xml(o.test.name))
+                  .append("\" file=\"").append(xml(o.test.relativePath)).append("\" time=\"").append(seconds(o.durationNanos)).append("\">\n");
+                sb.append("      <properties>\n");
+                for (Map.Entry<String, Long> entry : o.phaseNanos.entrySet()) {
+                    sb.append("        <property name=\"phase.").append(xml(entry.getKey())).append("\" value=\"")
+                      .append(seconds(entry.getValue())).append("\"/>\n");
+                }
+                sb.append("      </properties>\n");
+                if (!o.passed) {
+                    sb.append("      <failure message=\"").append(o.timedOut ? "timeout" : "failed").append("\">")
+                      .append(xml(o.details)).append("</failure>\n");
+                }
+                sb.append("    </testcase>\n");
+            }
+            sb.append("  </testsuite>\n");
+        }
+        sb.append("</testsuites>\n");
+        Files.writeString(path, sb.toString(), StandardCharsets.UTF_8);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1e9);
+    }
+
+    private static String json(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append("\"").toString();
+    }
+
+    private static String xml(String value) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                case '"' -> sb.append("&quot;");
+                default -> {
+                    // Control characters are not allowed in XML 1.0
+                    if (c >= 0x20 || c == '\n' || c == '\t' || c == '\r') sb.append(c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private record TestCase(String category, String name, String relativePath, Path file) {}
+
+    private record Pending(TestCase test, AtomicLong started, Future<Outcome> future) {}
+
+    private record Outcome(TestCase test, boolean passed, boolean timedOut, String details, long durationNanos, Map<String, Long> phaseNanos) {}
+}
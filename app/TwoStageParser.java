@@ -0,0 +1,60 @@
+package app;
+
+import aguda.parser.*;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+/**
+ * Parses a program in two stages. The first one uses SLL prediction, which is much cheaper than full LL, and
+ * gives up at the first syntax error instead of recovering. It is enough for almost every valid program. Only
+ * when it fails (or the lexer found an error) the tokens are parsed again with full LL prediction and the
+ * default error recovery, so errors are reported exactly as by a single LL parse.
+ */
+public final class TwoStageParser {
+
+    /**
+     * The outcome of a parse
+     *
+     * @param tokens The tokens of the program
+     * @param parser The parser that produced the tree
+     * @param tree The parse tree, without children if it was not built
+     * @param fellBack Whether the second (LL) stage was needed
+     */
+    public record Result(TokenStream tokens, AgudaParser parser, ParseTree tree, boolean fellBack) {}
+
+    private TwoStageParser() {}
+
+    /**
+     * @param lexed The tokens of the program, from {@link FastLexer}
+     * @param lexerListener Where lexical errors are reported
+     * @param parserListener Where syntax errors are reported
+     * @param buildParseTree Whether the parse tree is needed, or only whether the program is valid
+     */
+    public static Result parse(FastLexer.Tokens lexed, ANTLRErrorListener lexerListener, ANTLRErrorListener parserListener,
+                               boolean buildParseTree) {
+        if (lexed.errors().isEmpty()) {
+            TokenStream tokens = new FastTokenStream(lexed, null);
+            AgudaParser parser = new AgudaParser(tokens);
+            parser.removeErrorListeners();
+            parser.setErrorHandler(new BailErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setBuildParseTree(buildParseTree);
+            try {
+                return new Result(tokens, parser, parser.program(), false);
+            } catch (ParseCancellationException e) {
+                // A syntax error, or a program that needs full LL prediction
+            }
+        }
+
+        TokenStream tokens = new FastTokenStream(lexed, lexerListener);
+        AgudaParser parser = new AgudaParser(tokens);
+        parser.removeErrorListeners();
+        parser.addErrorListener(parserListener);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        parser.setBuildParseTree(buildParseTree);
+        return new Result(tokens, parser, parser.program(), true);
+    }
+}
@@ -0,0 +1,51 @@
+#!/bin/bash
+
+# Runs the JMH benchmarks of the compiler (bench/src). The JMH jars are downloaded once into bench/lib.
+#
+# Usage: bash bench/run.sh [JMH options]
+#   bash bench/run.sh                                   every benchmark, on the corpus and on every synthetic size
+#   bash bench/run.sh FrontEndBenchmark.parse           only the parser
+#   bash bench/run.sh check -p input=corpus,10000       only the checker, on two inputs
+
+set -e
+
+BENCH_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$BENCH_DIR")"
+LIB_DIR="$BENCH_DIR/lib"
+BUILD_DIR="$BENCH_DIR/build"
+ANTLR_JAR="${ANTLR_JAR:-/app/antlr-4.13.2-complete.jar}"
+MAVEN="https://repo1.maven.org/maven2"
+JMH_VERSION="1.37"
+
+fetch() {
+    if [ ! -f "$LIB_DIR/$(basename "$1")" ]; then
+        echo "Downloading $(basename "$1")"
+        curl -sSfL -o "$LIB_DIR/$(basename "$1")" "$MAVEN/$1"
+    fi
+}
+
+mkdir -p "$LIB_DIR"
+fetch "org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar"
+fetch "org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar"
+fetch "net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar"
+fetch "org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar"
+
+if [ ! -f "$ANTLR_JAR" ]; then
+    echo "ANTLR jar not found at $ANTLR_JAR (set ANTLR_JAR)"
+    exit 1
+fi
+
+JMH_CP="$LIB_DIR/jmh-core-$JMH_VERSION.jar:$LIB_DIR/jopt-simple-5.0.4.jar:$LIB_DIR/commons-math3-3.6.1.jar"
+
+# Build the compiler and the benchmarks from the sources, so they always measure the current code
+rm -rf "$BUILD_DIR"
+mkdir -p "$BUILD_DIR/gen" "$BUILD_DIR/classes"
+java -cp "$ANTLR_JAR" org.antlr.v4.Tool -visitor -Xexact-output-dir -o "$BUILD_DIR/gen/aguda/parser" -package aguda.parser "$ROOT_DIR/src/aguda/parser/Aguda.g4"
+javac -encoding UTF-8 -nowarn \
+    -cp "$ANTLR_JAR:$JMH_CP" \
+    -processorpath "$LIB_DIR/jmh-generator-annprocess-$JMH_VERSION.jar:$JMH_CP" \
+    -d "$BUILD_DIR/classes" \
+    $(find "$ROOT_DIR/src" "$ROOT_DIR/app" "$BENCH_DIR/src" "$BUILD_DIR/gen" -name '*.java' ! -path "$ROOT_DIR/src/aguda/parser/Agu*.java")
+
+cd "$ROOT_DIR"
+java -cp "$BUILD_DIR/classes:$ANTLR_JAR:$JMH_CP" org.openjdk.jmh.Main -prof gc "$@"
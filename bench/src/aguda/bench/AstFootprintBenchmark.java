@@ -0,0 +1,93 @@
+package aguda.bench;
+
+import aguda.ast.*;
+import aguda.parser.*;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The object AST against the same AST in a FlatAst. The setup prints how much heap each one keeps (used heap
+ * after a GC, with and without them); the benchmarks measure turning one into the other, and counting the nodes
+ * of the flat AST with a cursor, with gc.alloc.rate.norm for what they allocate on the way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss256m", "-Xmx4g"})
+public class AstFootprintBenchmark {
+    private static final BaseErrorListener SILENT = new BaseErrorListener();
+
+    private List<FlatAst> flats;
+
+    @Setup(Level.Trial)
+    public void setup(Inputs inputs) {
+        long before = usedHeap();
+        List<AstNode> objects = new ArrayList<>();
+        for (byte[] source : inputs.bytes) {
+            objects.add(new DescentParser(FastLexer.lex(source), SILENT, SILENT).program());
+        }
+        long objectBytes = usedHeap() - before;
+        objects = null;
+
+        before = usedHeap();
+        flats = new ArrayList<>();
+        for (AstNode ast : inputs.asts) {
+            flats.add(FlatAst.of((Program) ast));
+        }
+        long flatBytes = usedHeap() - before;
+        System.out.printf("%nobject AST: %d KB, flat AST: %d KB, %.1f and %.1f bytes per node%n", objectBytes >> 10,
+                flatBytes >> 10, (double) objectBytes / inputs.astNodes, (double) flatBytes / inputs.astNodes);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public void flatten(Inputs inputs, Blackhole bh) {
+        for (AstNode ast : inputs.asts) {
+            bh.consume(FlatAst.of((Program) ast));
+        }
+    }
+
+    @Benchmark
+    public void inflate(Blackhole bh) {
+        for (FlatAst flat : flats) {
+            bh.consume(flat.node(0));
+        }
+    }
+
+    @Benchmark
+    public long walkFlat() {
+        long nodes = 0;
+        for (FlatAst flat : flats) {
+            FlatAst.Cursor cursor = flat.cursor();
+            // Pre-order: down to the first child, else to the next sibling of the node or of an ancestor
+            do {
+                if (cursor.kind() != FlatAst.Kind.NONE && cursor.kind() != FlatAst.Kind.DIMENSION) {
+                    nodes++;
+                }
+            } while (cursor.firstChild() || nextInPreOrder(cursor));
+        }
+        return nodes;
+    }
+
+    private static boolean nextInPreOrder(FlatAst.Cursor cursor) {
+        while (!cursor.nextSibling()) {
+            if (!cursor.parent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
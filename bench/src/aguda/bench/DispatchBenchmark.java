@@ -0,0 +1,155 @@
+package aguda.bench;
+
+import aguda.ast.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of finding the code for a node: the chain of instanceof tests the checker and the code generator
+ * used, in the order they used, against AstNode.accept with an AstVisitor. Both return a number for the class
+ * of every node of the inputs, in the order a walk of the AST meets them, so that the call sites see as many
+ * classes as the passes do; the walk itself is done once, in the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss256m", "-Xmx4g"})
+public class DispatchBenchmark {
+    private static final AstVisitor<Integer> KINDS = new Kinds();
+
+    private AstNode[] nodes;
+
+    @Setup(Level.Trial)
+    public void setup(Inputs inputs) {
+        List<AstNode> all = new ArrayList<>();
+        for (AstNode ast : inputs.asts) {
+            collect(ast, all);
+        }
+        nodes = all.toArray(new AstNode[0]);
+    }
+
+    /**
+     * Adds the AST nodes reachable from a node in pre-order, following the fields of the AST classes
+     */
+    private static void collect(Object node, List<AstNode> out) {
+        if (node == null || !node.getClass().getPackageName().equals("aguda.ast")) {
+            return;
+        }
+        if (node instanceof AstNode astNode) {
+            out.add(astNode);
+        }
+        for (Class<?> c = node.getClass(); c != null; c = c.getSuperclass()) {
+            for (java.lang.reflect.Field field : c.getDeclaredFields()) {
+                if (java.lang.reflect.Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    Object value = field.get(node);
+                    if (value instanceof Collection<?> children) {
+                        for (Object child : children) {
+                            collect(child, out);
+                        }
+                    } else {
+                        collect(value, out);
+                    }
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    // Not an AST field
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public long instanceofChain() {
+        long sum = 0;
+        for (AstNode node : nodes) {
+            sum += kind(node);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long visitor() {
+        long sum = 0;
+        for (AstNode node : nodes) {
+            sum += node.accept(KINDS);
+        }
+        return sum;
+    }
+
+    // The order of Checker.typeof before it was a visitor
+    private static Integer kind(AstNode node) {
+        if (node instanceof Program) {
+            return 0;
+        } else if (node instanceof VariableDeclaration) {
+            return 1;
+        } else if (node instanceof FunctionTypeDeclaration) {
+            return 2;
+        } else if (node instanceof Expressions) {
+            return 3;
+        } else if (node instanceof LetExpression) {
+            return 4;
+        } else if (node instanceof IfExpression) {
+            return 5;
+        } else if (node instanceof SetExpression) {
+            return 6;
+        } else if (node instanceof WhileExpression) {
+            return 7;
+        } else if (node instanceof CallFunctionExpression) {
+            return 8;
+        } else if (node instanceof BinaryOp) {
+            return 9;
+        } else if (node instanceof ArrayAccess) {
+            return 10;
+        } else if (node instanceof ArrayCreation) {
+            return 11;
+        } else if (node instanceof ParenthicalExpression) {
+            return 12;
+        } else if (node instanceof IntLiteral) {
+            return 13;
+        } else if (node instanceof BoolLiteral) {
+            return 14;
+        } else if (node instanceof StringLiteral) {
+            return 15;
+        } else if (node instanceof NullLiteral) {
+            return 16;
+        } else if (node instanceof Identifier) {
+            return 17;
+        } else if (node instanceof UnaryOp) {
+            return 18;
+        }
+        return 19;
+    }
+
+    private static final class Kinds implements AstVisitor<Integer> {
+        @Override public Integer visitProgram(Program node) { return 0; }
+        @Override public Integer visitVariableDeclaration(VariableDeclaration node) { return 1; }
+        @Override public Integer visitFunctionTypeDeclaration(FunctionTypeDeclaration node) { return 2; }
+        @Override public Integer visitExpressions(Expressions node) { return 3; }
+        @Override public Integer visitLetExpression(LetExpression node) { return 4; }
+        @Override public Integer visitIfExpression(IfExpression node) { return 5; }
+        @Override public Integer visitSetExpression(SetExpression node) { return 6; }
+        @Override public Integer visitWhileExpression(WhileExpression node) { return 7; }
+        @Override public Integer visitCallFunctionExpression(CallFunctionExpression node) { return 8; }
+        @Override public Integer visitBinaryOp(BinaryOp node) { return 9; }
+        @Override public Integer visitArrayAccess(ArrayAccess node) { return 10; }
+        @Override public Integer visitArrayCreation(ArrayCreation node) { return 11; }
+        @Override public Integer visitParenthicalExpression(ParenthicalExpression node) { return 12; }
+        @Override public Integer visitIntLiteral(IntLiteral node) { return 13; }
+        @Override public Integer visitBoolLiteral(BoolLiteral node) { return 14; }
+        @Override public Integer visitStringLiteral(StringLiteral node) { return 15; }
+        @Override public Integer visitNullLiteral(NullLiteral node) { return 16; }
+        @Override public Integer visitIdentifier(Identifier node) { return 17; }
+        @Override public Integer visitUnaryOp(UnaryOp node) { return 18; }
+        @Override public Integer visitIdList(IdList node) { return 19; }
+        @Override public Integer visitFunctionType(FunctionType node) { return 19; }
+        @Override public Integer visitTypeList(TypeList node) { return 19; }
+        @Override public Integer visitBasicType(BasicType node) { return 19; }
+        @Override public Integer visitArrayType(ArrayType node) { return 19; }
+    }
+}
@@ -0,0 +1,75 @@
+package aguda.bench;
+
+import aguda.ast.*;
+import aguda.checker.*;
+import aguda.codegen.*;
+import aguda.parser.*;
+import org.antlr.v4.runtime.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One benchmark per phase of the compiler, each starting from the output of the phase before it.
+ * Run with bench/run.sh, which adds the GC profiler so gc.alloc.rate.norm is reported for every phase.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss256m", "-Xmx4g"})
+public class FrontEndBenchmark {
+
+    @Benchmark
+    public void lex(Inputs inputs, Blackhole bh) {
+        for (String source : inputs.sources) {
+            AgudaLexer lexer = new AgudaLexer(CharStreams.fromString(source));
+            lexer.removeErrorListeners();
+            for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+                bh.consume(token);
+            }
+        }
+    }
+
+    @Benchmark
+    public void fastLex(Inputs inputs, Blackhole bh) {
+        for (byte[] source : inputs.bytes) {
+            bh.consume(FastLexer.lex(source));
+        }
+    }
+
+    @Benchmark
+    public void parse(Inputs inputs, Blackhole bh) {
+        for (java.util.List<Token> tokens : inputs.tokens) {
+            bh.consume(Inputs.parse(tokens));
+        }
+    }
+
+    @Benchmark
+    public void buildAst(Inputs inputs, Blackhole bh) {
+        for (org.antlr.v4.runtime.tree.ParseTree tree : inputs.trees) {
+            bh.consume(new AstBuilder().visit(tree));
+        }
+    }
+
+    @Benchmark
+    public void check(Inputs inputs, Blackhole bh) {
+        for (int i = 0; i < inputs.asts.size(); i++) {
+            Checker checker = new Checker(inputs.files.get(i), 10);
+            try {
+                bh.consume(checker.typeof(inputs.asts.get(i), true));
+            } catch (RuntimeException e) {
+                // A corpus program with semantic errors, checked all the same
+                bh.consume(checker.getErrorMessage());
+            }
+        }
+    }
+
+    @Benchmark
+    public void generate(Inputs inputs, Blackhole bh) {
+        for (AstNode ast : inputs.asts) {
+            bh.consume(new CodeGenerator(10).generate(ast));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package aguda.bench;
+
+import aguda.ast.*;
+import aguda.parser.*;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * The programs a benchmark runs on, with the output of every phase computed once, so that each benchmark
+ * only measures its own phase.
+ *
+ * "corpus" is every valid program of the test corpus (test/test/valid, or the aguda.bench.corpus property);
+ * a number is a synthetic program with about that many AST nodes.
+ */
+@State(Scope.Benchmark)
+public class Inputs {
+
+    @Param({"corpus", "1000", "10000", "100000", "1000000"})
+    public String input;
+
+    public List<String> files;
+    public List<String> sources;
+    public List<byte[]> bytes;
+    public List<List<Token>> tokens;
+    public List<ParseTree> trees;
+    public List<AstNode> asts;
+    public long astNodes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        files = new ArrayList<>();
+        sources = new ArrayList<>();
+        if (input.equals("corpus")) {
+            Path corpus = Paths.get(System.getProperty("aguda.bench.corpus", "test/test/valid"));
+            try (Stream<Path> walk = Files.walk(corpus)) {
+                for (Path file : walk.filter(p -> p.toString().endsWith(".agu")).sorted().toList()) {
+                    files.add(file.toString());
+                    sources.add(Files.readString(file));
+                }
+            }
+            if (sources.isEmpty()) {
+                throw new IllegalStateException("No .agu files in " + corpus.toAbsolutePath());
+            }
+        } else {
+            // Measure one function to know how many are needed
+            long perFunction = countAst(buildAst(SyntheticPrograms.withFunctions(2))) - countAst(buildAst(SyntheticPrograms.withFunctions(1)));
+            int functions = (int) Math.max(1, Long.parseLong(input) / perFunction);
+            Path file = Files.createTempFile("aguda-bench-", ".agu");
+            file.toFile().deleteOnExit();
+            String source = SyntheticPrograms.withFunctions(functions);
+            Files.writeString(file, source);
+            files.add(file.toString());
+            sources.add(source);
+        }
+
+        tokens = new ArrayList<>();
+        trees = new ArrayList<>();
+        asts = new ArrayList<>();
+        astNodes = 0;
+        bytes = new ArrayList<>();
+        for (String source : sources) {
+            bytes.add(source.getBytes(StandardCharsets.UTF_8));
+            List<Token> fileTokens = lex(source);
+            ParseTree tree = parse(fileTokens);
+            AstNode ast = new AstBuilder().visit(tree);
+            tokens.add(fileTokens);
+            trees.add(tree);
+            asts.add(ast);
+            astNodes += countAst(ast);
+        }
+        System.out.println("\n" + input + ": " + sources.size() + " program(s), " + astNodes + " AST nodes");
+    }
+
+    public static List<Token> lex(String source) {
+        AgudaLexer lexer = new AgudaLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        CommonTokenStream stream = new CommonTokenStream(lexer);
+        stream.fill();
+        return stream.getTokens();
+    }
+
+    public static ParseTree parse(List<Token> tokens) {
+        AgudaParser parser = new AgudaParser(new CommonTokenStream(new ListTokenSource(tokens)));
+        parser.removeErrorListeners();
+        return parser.program();
+    }
+
+    private static AstNode buildAst(String source) {
+        return new AstBuilder().visit(parse(lex(source)));
+    }
+
+    /**
+     * Counts the AST nodes reachable from a node, following the fields of the AST classes
+     */
+    static long countAst(Object node) {
+        if (node == null || !node.getClass().getPackageName().equals("aguda.ast")) {
+            return 0;
+        }
+        long nodes = node instanceof AstNode ? 1 : 0;
+        for (Class<?> c = node.getClass(); c != null; c = c.getSuperclass()) {
+            for (java.lang.reflect.Field field : c.getDeclaredFields()) {
+                if (java.lang.reflect.Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    Object value = field.get(node);
+                    if (value instanceof Collection<?> children) {
+                        for (Object child : children) {
+                            nodes += countAst(child);
+                        }
+                    } else {
+                        nodes += countAst(value);
+                    }
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    // Not an AST field
+                }
+            }
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,65 @@
+package aguda.bench;
+
+import aguda.ast.AstBuilder;
+import aguda.parser.*;
+import app.TwoStageParser;
+import org.antlr.v4.runtime.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexing and parsing from the source, the way Main used to (generated lexer, full LL, error recovery, parse
+ * tree), with FastLexer and the two-stage SLL/LL parser, and with the same without a parse tree (--test-syntax).
+ * Compare the scores and gc.alloc.rate.norm of the three.
+ *
+ * From the source to the AST, twoStageAst (parse tree, then AstBuilder) against descent (DescentParser).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss256m", "-Xmx4g"})
+public class ParserBenchmark {
+    private static final BaseErrorListener SILENT = new BaseErrorListener();
+
+    @Benchmark
+    public void fullLL(Inputs inputs, Blackhole bh) {
+        for (String source : inputs.sources) {
+            AgudaLexer lexer = new AgudaLexer(CharStreams.fromString(source));
+            lexer.removeErrorListeners();
+            AgudaParser parser = new AgudaParser(new CommonTokenStream(lexer));
+            parser.removeErrorListeners();
+            bh.consume(parser.program());
+        }
+    }
+
+    @Benchmark
+    public void twoStage(Inputs inputs, Blackhole bh) {
+        for (byte[] source : inputs.bytes) {
+            bh.consume(TwoStageParser.parse(FastLexer.lex(source), SILENT, SILENT, true));
+        }
+    }
+
+    @Benchmark
+    public void twoStageWithoutTree(Inputs inputs, Blackhole bh) {
+        for (byte[] source : inputs.bytes) {
+            bh.consume(TwoStageParser.parse(FastLexer.lex(source), SILENT, SILENT, false));
+        }
+    }
+
+    @Benchmark
+    public void twoStageAst(Inputs inputs, Blackhole bh) {
+        for (byte[] source : inputs.bytes) {
+            bh.consume(new AstBuilder().visit(TwoStageParser.parse(FastLexer.lex(source), SILENT, SILENT, true).tree()));
+        }
+    }
+
+    @Benchmark
+    public void descent(Inputs inputs, Blackhole bh) {
+        for (byte[] source : inputs.bytes) {
+            bh.consume(new DescentParser(FastLexer.lex(source), SILENT, SILENT).program());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package aguda.bench;
+
+/**
+ * Valid AGUDA programs of a chosen size, made of many small functions that call each other,
+ * so they can be checked and generated like the programs of the test corpus.
+ */
+public final class SyntheticPrograms {
+
+    private SyntheticPrograms() {}
+
+    /**
+     * @param functions The number of functions before main
+     * @return The source of the program
+     */
+    public static String withFunctions(int functions) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < functions; i++) {
+            sb.append("let f").append(i).append(" (x) : Int -> Int =\n");
+            sb.append("  let a : Int = x * 3 + ").append(i).append(";\n");
+            sb.append("  let b : Bool = a > x && x != ").append(i).append(";\n");
+            sb.append("  while a > 100 do set a = a / 2;\n");
+            if (i == 0) {
+                sb.append("  if b then a + 1 else a - x / 2\n\n");
+            } else {
+                sb.append("  if b then f").append(i - 1).append("(a % 100) else a - x / 2\n\n");
+            }
+        }
+        sb.append("let main (_) : Unit -> Unit =\n");
+        sb.append("  print(").append(functions > 0 ? "f" + (functions - 1) + "(7)" : "0").append(")\n");
+        return sb.toString();
+    }
+}
@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public abstract class AbstractAstNode implements AstNode {
     protected final int line;
     protected final int column;
@@ -18,4 +20,13 @@ public abstract class AbstractAstNode implements AstNode {
     public int getColumn() {
         return column;
     }
+
+    /**
+     * Writes the given number of spaces
+     */
+    protected static void indent(Appendable out, int spaces) throws IOException {
+        for (int i = 0; i < spaces; i++) {
+            out.append(' ');
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package aguda.ast;
 
+import java.io.IOException;
 import java.util.List;
 
 public class ArrayAccess extends AbstractAstNode {
@@ -13,17 +14,18 @@ public class ArrayAccess extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        StringBuilder sb = new StringBuilder(" ".repeat(indent)).append(array.print(indent));
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        array.print(out, indent);
         for (AstNode index : indices) {
-            if (index instanceof Expressions) {
-                sb.append("[");
-                sb.append(index.print(indent));
-                sb.append("]");
-            } else {
-                sb.append("[").append(index.print(indent)).append("]");
-            }
+            out.append('[');
+            index.print(out, indent);
+            out.append(']');
         }
-        return sb.toString();
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitArrayAccess(this);
     }
 }
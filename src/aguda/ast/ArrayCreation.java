@@ -1,5 +1,6 @@
 package aguda.ast;
 
+import java.io.IOException;
 import java.util.List;
 
 public class ArrayCreation extends AbstractAstNode {
@@ -23,20 +24,26 @@ public class ArrayCreation extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        StringBuilder sb = new StringBuilder(" ".repeat(indent)).append("new ").append(baseType);
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append("new ").append(baseType);
         for (Dimension dim : dimensions) {
-            sb.append("[");
+            out.append('[');
             if (dim.sizeExpr != null && dim.initExpr != null) {
-                sb.append(dim.sizeExpr.print(indent))
-                .append(" | ").append(dim.initExpr.print(indent));
+                dim.sizeExpr.print(out, indent);
+                out.append(" | ");
+                dim.initExpr.print(out, indent);
             }
-            sb.append("]");
+            out.append(']');
         }
-        return sb.toString();
     }
 
     public List<Dimension> getDimensions() {
         return dimensions;
     }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitArrayCreation(this);
+    }
 }
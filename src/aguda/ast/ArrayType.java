@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class ArrayType extends AbstractAstNode {
     public final AstNode basicType;
     public final int dimensions;
@@ -11,11 +13,15 @@ public class ArrayType extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        StringBuilder dimensionsBuilder = new StringBuilder();
+    public void print(Appendable out, int indent) throws IOException {
+        basicType.print(out, indent);
         for (int i = 0; i < this.dimensions; i++) {
-            dimensionsBuilder.append("[]");
+            out.append("[]");
         }
-        return basicType.print(indent) + dimensionsBuilder.toString();
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitArrayType(this);
     }
 }
@@ -7,6 +7,8 @@ import org.antlr.v4.runtime.tree.TerminalNode;
 import org.antlr.v4.runtime.Token;
 
 public class AstBuilder extends AgudaBaseVisitor<AstNode> {
+    // The identifiers of the program, interned as the nodes that name something are built
+    private final Symbols symbols = new Symbols();
 
     /****************************************************************************************
      *                                                                                      *
@@ -20,7 +22,7 @@ public class AstBuilder extends AgudaBaseVisitor<AstNode> {
         for (AgudaParser.DeclarationContext declCtx : ctx.declaration()) {
             decls.add(visit(declCtx));
         }
-        return new Program(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), decls);
+        return new Program(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), decls, symbols);
     }
 
     @Override
@@ -48,7 +50,7 @@ public class AstBuilder extends AgudaBaseVisitor<AstNode> {
         AstNode type = visit(ctx.typeElem());
         AstNode exprs = visit(ctx.exprs());
 
-        return new VariableDeclaration(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), id, type, exprs);
+        return new VariableDeclaration(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), id, symbols.intern(id), type, exprs);
     }
 
     /****************************************************************************************
@@ -61,9 +63,9 @@ public class AstBuilder extends AgudaBaseVisitor<AstNode> {
         List<AstNode> ids = new ArrayList<>();
         for (TerminalNode idToken : ctx.ID()) {
             Token token = idToken.getSymbol(); 
-            ids.add(new Identifier(token.getLine(), token.getCharPositionInLine(), token.getText()));
+            ids.add(new Identifier(token.getLine(), token.getCharPositionInLine(), token.getText(), symbols.intern(token.getText())));
         }
-        return new IdList(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), id, ids);
+        return new IdList(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), id, symbols.intern(id), ids);
     }
 
 
@@ -264,9 +266,10 @@ public class AstBuilder extends AgudaBaseVisitor<AstNode> {
         if (ctx.exprsList() != null) {
             String id = ctx.ID().getText();
             AstNode exprs = visit(ctx.exprsList());
-            return new CallFunctionExpression(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), id, exprs);
+            return new CallFunctionExpression(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), id, symbols.intern(id), exprs);
         } else if (ctx.ID() != null) {
-            return new Identifier(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), ctx.ID().getText());
+            String id = ctx.ID().getText();
+            return new Identifier(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), id, symbols.intern(id));
         } else if (ctx.MINUS() != null) {
             return new UnaryOp(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), ctx.MINUS().getText(), visit(ctx.primary()));
         } else if (ctx.INT() != null) {
@@ -303,7 +306,8 @@ public class AstBuilder extends AgudaBaseVisitor<AstNode> {
     @Override
     public AstNode visitLefthandside(AgudaParser.LefthandsideContext ctx) {
         if (ctx.ID() != null) {
-                AstNode base = new Identifier(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), ctx.ID().getText());
+                String id = ctx.ID().getText();
+                AstNode base = new Identifier(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), id, symbols.intern(id));
             
             if (ctx.blockexpression().isEmpty()) {
                 return base;
@@ -397,7 +401,7 @@ public class AstBuilder extends AgudaBaseVisitor<AstNode> {
         AstNode type = visit(ctx.typeElem());
         AstNode expr = visit(ctx.expr());
 
-        return new LetExpression(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), id, type, expr);
+        return new LetExpression(ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine(), id, symbols.intern(id), type, expr);
     }
 
                /********************************************************************
@@ -1,7 +1,34 @@
 package aguda.ast;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 public interface AstNode {
-    String print(int indent);
+    /**
+     * @return The text print(Appendable, int) writes
+     */
+    default String print(int indent) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            print(sb, indent);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // A StringBuilder does not throw
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the node as source text, as it goes, without building the text of its children first
+     *
+     * @param indent The number of spaces before the lines of the node
+     */
+    void print(Appendable out, int indent) throws IOException;
+
     int getLine();
     int getColumn();
-}
\ No newline at end of file
+
+    /**
+     * @return What the visitor returns for this node, from its method for the class of the node
+     */
+    <R> R accept(AstVisitor<R> visitor);
+}
@@ -0,0 +1,58 @@
+package aguda.ast;
+
+/**
+ * An operation on the AST with one method per node class, reached with {@link AstNode#accept}, which calls the
+ * method of the node's class. A pass that needs more than the node (a flag, the current label...) keeps it in
+ * fields, set before the call to accept.
+ *
+ * @param <R> What the operation returns for a node
+ */
+public interface AstVisitor<R> {
+    R visitProgram(Program node);
+
+    R visitVariableDeclaration(VariableDeclaration node);
+
+    R visitFunctionTypeDeclaration(FunctionTypeDeclaration node);
+
+    R visitIdList(IdList node);
+
+    R visitFunctionType(FunctionType node);
+
+    R visitTypeList(TypeList node);
+
+    R visitBasicType(BasicType node);
+
+    R visitArrayType(ArrayType node);
+
+    R visitExpressions(Expressions node);
+
+    R visitLetExpression(LetExpression node);
+
+    R visitIfExpression(IfExpression node);
+
+    R visitSetExpression(SetExpression node);
+
+    R visitWhileExpression(WhileExpression node);
+
+    R visitCallFunctionExpression(CallFunctionExpression node);
+
+    R visitBinaryOp(BinaryOp node);
+
+    R visitUnaryOp(UnaryOp node);
+
+    R visitArrayAccess(ArrayAccess node);
+
+    R visitArrayCreation(ArrayCreation node);
+
+    R visitParenthicalExpression(ParenthicalExpression node);
+
+    R visitIdentifier(Identifier node);
+
+    R visitIntLiteral(IntLiteral node);
+
+    R visitBoolLiteral(BoolLiteral node);
+
+    R visitStringLiteral(StringLiteral node);
+
+    R visitNullLiteral(NullLiteral node);
+}
@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class BasicType extends AbstractAstNode {
     public final String basicType;
 
@@ -9,7 +11,12 @@ public class BasicType extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        return basicType;
+    public void print(Appendable out, int indent) throws IOException {
+        out.append(basicType);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitBasicType(this);
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class BinaryOp extends AbstractAstNode {
     public final String op;
     public final AstNode left;
@@ -13,8 +15,15 @@ public class BinaryOp extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
+    public void print(Appendable out, int indent) throws IOException {
         // Print the operation with the operator in the middle and the operands enclosed with parentheses (eg. ( a ) + ( b ))
-        return left.print(indent) + " " + op + " " + right.print(indent);
+        left.print(out, indent);
+        out.append(' ').append(op).append(' ');
+        right.print(out, indent);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitBinaryOp(this);
     }
 }
\ No newline at end of file
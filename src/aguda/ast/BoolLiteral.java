@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class BoolLiteral extends AbstractAstNode {
     public final boolean value;
 
@@ -9,7 +11,13 @@ public class BoolLiteral extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        return " ".repeat(indent) + (value ? "true" : "false");
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append(value ? "true" : "false");
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitBoolLiteral(this);
     }
 }
\ No newline at end of file
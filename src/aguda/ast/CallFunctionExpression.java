@@ -1,17 +1,29 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class CallFunctionExpression extends AbstractAstNode {
     public final String id;
+    public final int symbol;
     public final AstNode exprs;
     
-    public CallFunctionExpression(int line, int column, String id, AstNode exprs) {
+    public CallFunctionExpression(int line, int column, String id, int symbol, AstNode exprs) {
         super(line, column);
         this.id = id;
+        this.symbol = symbol;
         this.exprs = exprs;
     }
 
     @Override
-    public String print(int indent) {
-        return " ".repeat(indent) + id + "(" + exprs.print(indent) + ")";
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append(id).append('(');
+        exprs.print(out, indent);
+        out.append(')');
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitCallFunctionExpression(this);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package aguda.ast;
 
+import java.io.IOException;
 import java.util.List;
 
 public class Expressions extends AbstractAstNode {
@@ -13,22 +14,27 @@ public class Expressions extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        StringBuilder sb = new StringBuilder();
-
+    public void print(Appendable out, int indent) throws IOException {
         for (int i = 0; i < expressions.size(); i++) {
-            sb.append(expressions.get(i).print(indent));
+            expressions.get(i).print(out, indent);
             if (i < expressions.size() - 1) {
-                sb.append(separator);
+                out.append(separator);
                 if(separator.equals(",")) {
-                    sb.append(" ");
+                    out.append(' ');
                 } else {    
-                    sb.append("\n");
+                    out.append('\n');
                 }
             }
 
         }
+    }
 
-        return sb.toString();
+    public String getSeparator() {
+        return separator;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitExpressions(this);
     }
 }
@@ -0,0 +1,574 @@
+package aguda.ast;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * The AST of a program in a few primitive arrays instead of one object per node. The nodes are stored in
+ * pre-order: the children of a node follow it, and ends[n] is the node right after the subtree of n, so a subtree
+ * is a range of indices and its next sibling is where it ends. Every node has a kind, a position (line and
+ * column packed in a long) and a value: the symbol id of what the node names (see {@link Symbols}), an index into
+ * the pool of the other strings (literals, operators and type names, each stored once) or a number (dimensions
+ * of an array type, value of a boolean).
+ *
+ * A null child (the else of an if, the arguments of a call without arguments, the size of an empty dimension)
+ * is kept as a NONE node, so that every child is at the same place in every node of a kind.
+ *
+ * It is walked with a {@link Cursor}, and turned back into objects with {@link #node} or {@link #program}. Its
+ * arrays are written as they are by {@link #encode} and read back with one bulk copy each by {@link #decode}.
+ */
+public final class FlatAst {
+
+    public enum Kind {
+        NONE(NUMBER), PROGRAM(NUMBER), VARIABLE_DECLARATION(SYMBOL), FUNCTION_DECLARATION(NUMBER), ID_LIST(SYMBOL),
+        IDENTIFIER(SYMBOL), FUNCTION_TYPE(NUMBER), TYPE_LIST(NUMBER), BASIC_TYPE(TEXT), ARRAY_TYPE(NUMBER),
+        EXPRESSIONS(TEXT), LET(SYMBOL), SET(NUMBER), IF(NUMBER), WHILE(NUMBER), CALL(SYMBOL), ARRAY_ACCESS(NUMBER),
+        ARRAY_CREATION(TEXT), DIMENSION(NUMBER), BINARY(TEXT), UNARY(TEXT), PARENTHESES(NUMBER), INT(TEXT),
+        BOOL(NUMBER), STRING(TEXT), NULL(NUMBER);
+
+        private static final Kind[] KINDS = values();
+
+        // What the value of the node is
+        private final int value;
+
+        Kind(int value) {
+            this.value = value;
+        }
+    }
+
+    // "AGAS" and the version of the encoding
+    private static final int MAGIC = 0x41474153;
+    private static final int VERSION = 1;
+
+    private static final int NUMBER = 0;
+    private static final int TEXT = 1;
+    private static final int SYMBOL = 2;
+
+    private final byte[] kinds;
+    private final long[] positions;
+    private final int[] ends;
+    private final int[] values;
+    private final String[] strings;
+    private final Symbols symbols;
+
+    private FlatAst(byte[] kinds, long[] positions, int[] ends, int[] values, String[] strings, Symbols symbols) {
+        this.kinds = kinds;
+        this.positions = positions;
+        this.ends = ends;
+        this.values = values;
+        this.strings = strings;
+        this.symbols = symbols;
+    }
+
+    /**
+     * @param program The object AST. Bodies that are built later are built now.
+     */
+    public static FlatAst of(Program program) {
+        Builder builder = new Builder(program.symbols);
+        builder.add(program);
+        return builder.build();
+    }
+
+    /**
+     * The AST with its positions and its identifiers, in big-endian: a header (magic, version, number of nodes),
+     * the kinds, positions, ends and values of the nodes, then the string pool and the identifiers in id order,
+     * each as its length in UTF-8 bytes (-1 for null) followed by the bytes.
+     *
+     * @return The encoded AST, from position 0 to its limit
+     */
+    public ByteBuffer encode() {
+        byte[][] pool = utf8(strings.length, i -> strings[i]);
+        byte[][] names = utf8(symbols.size(), symbols::name);
+        long bytes = 3 * 4 + (1L + 8 + 4 + 4) * kinds.length + 4 + length(pool) + 4 + length(names);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("AST too large to encode: " + bytes + " bytes");
+        }
+        ByteBuffer out = ByteBuffer.allocate((int) bytes);
+        out.putInt(MAGIC).putInt(VERSION).putInt(kinds.length);
+        out.put(kinds);
+        out.asLongBuffer().put(positions);
+        out.position(out.position() + 8 * positions.length);
+        out.asIntBuffer().put(ends);
+        out.position(out.position() + 4 * ends.length);
+        out.asIntBuffer().put(values);
+        out.position(out.position() + 4 * values.length);
+        for (byte[][] table : List.of(pool, names)) {
+            out.putInt(table.length);
+            for (byte[] string : table) {
+                out.putInt(string == null ? -1 : string.length);
+                if (string != null) {
+                    out.put(string);
+                }
+            }
+        }
+        return out.flip();
+    }
+
+    /**
+     * Reads an AST written by {@link #encode}, with new Symbols that give every identifier the id it had
+     *
+     * @param in The encoded AST, from its position to its limit, which it is read to
+     * @throws IllegalArgumentException If the bytes are not an encoded AST
+     */
+    public static FlatAst decode(ByteBuffer in) {
+        try {
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IllegalArgumentException("Not an encoded AST, or of another version");
+            }
+            int size = in.getInt();
+            byte[] kinds = new byte[size];
+            long[] positions = new long[size];
+            int[] ends = new int[size];
+            int[] values = new int[size];
+            in.get(kinds);
+            in.asLongBuffer().get(positions);
+            in.position(in.position() + 8 * size);
+            in.asIntBuffer().get(ends);
+            in.position(in.position() + 4 * size);
+            in.asIntBuffer().get(values);
+            in.position(in.position() + 4 * size);
+            String[] strings = new String[in.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = in.getInt();
+                if (length >= 0) {
+                    byte[] utf8 = new byte[length];
+                    in.get(utf8);
+                    strings[i] = new String(utf8, StandardCharsets.UTF_8);
+                }
+            }
+            Symbols symbols = new Symbols();
+            int names = in.getInt();
+            for (int id = 0; id < names; id++) {
+                int length = in.getInt();
+                if (length < 0 || symbols.intern(in, in.position(), length) != id) {
+                    throw new IllegalArgumentException("Identifier " + id + " is missing or repeated");
+                }
+                in.position(in.position() + length);
+            }
+            if (in.hasRemaining() || size == 0 || ends[0] != size) {
+                throw new IllegalArgumentException("Not a whole encoded AST");
+            }
+            return new FlatAst(kinds, positions, ends, values, strings, symbols);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated encoded AST", e);
+        }
+    }
+
+    private static byte[][] utf8(int count, IntFunction<String> strings) {
+        byte[][] utf8 = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            String string = strings.apply(i);
+            utf8[i] = string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+        }
+        return utf8;
+    }
+
+    private static long length(byte[][] strings) {
+        long bytes = 4L * strings.length;
+        for (byte[] string : strings) {
+            bytes += string == null ? 0 : string.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return The number of nodes, NONE nodes included
+     */
+    public int size() {
+        return kinds.length;
+    }
+
+    /**
+     * @return About how many bytes the arrays and the strings take on the heap, not counting the identifiers,
+     *         which belong to the Symbols of the program
+     */
+    public long footprint() {
+        long bytes = 5 * 16 + kinds.length + 8L * positions.length + 4L * ends.length + 4L * values.length + 4L * strings.length;
+        for (String string : strings) {
+            bytes += 40 + string.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return A cursor on the root
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public Kind kind(int node) {
+        return Kind.KINDS[kinds[node]];
+    }
+
+    public int line(int node) {
+        return (int) (positions[node] >>> 32);
+    }
+
+    public int column(int node) {
+        return (int) positions[node];
+    }
+
+    /**
+     * @return The identifier, literal, operator or type name of the node, or null if its value is not a string
+     */
+    public String text(int node) {
+        return switch (kind(node).value) {
+            case SYMBOL -> symbols.name(values[node]);
+            case TEXT -> strings[values[node]];
+            default -> null;
+        };
+    }
+
+    /**
+     * @return The symbol id of the identifier the node names, or -1 if it does not name one
+     */
+    public int symbol(int node) {
+        return kind(node).value == SYMBOL ? values[node] : -1;
+    }
+
+    /**
+     * @return The number of dimensions of an ARRAY_TYPE, or 1 for a true BOOL
+     */
+    public int number(int node) {
+        return values[node];
+    }
+
+    /**
+     * @return The index of the node after the subtree of the given node
+     */
+    public int end(int node) {
+        return ends[node];
+    }
+
+    /**
+     * @return The children of a node
+     */
+    public int[] children(int node) {
+        int count = 0;
+        for (int child = node + 1; child < ends[node]; child = ends[child]) {
+            count++;
+        }
+        int[] children = new int[count];
+        for (int i = 0, child = node + 1; i < count; i++, child = ends[child]) {
+            children[i] = child;
+        }
+        return children;
+    }
+
+    /**
+     * Builds the objects of a subtree
+     *
+     * @return Its root, or null for a NONE node
+     */
+    public AstNode node(int node) {
+        int line = line(node);
+        int column = column(node);
+        int[] children = children(node);
+        return switch (kind(node)) {
+            case NONE -> null;
+            case PROGRAM -> new Program(line, column, nodes(children, 0), symbols);
+            case VARIABLE_DECLARATION -> new VariableDeclaration(line, column, text(node), symbol(node), node(children[0]), node(children[1]));
+            case FUNCTION_DECLARATION -> new FunctionTypeDeclaration(line, column, node(children[0]), node(children[1]), node(children[2]));
+            case ID_LIST -> new IdList(line, column, text(node), symbol(node), nodes(children, 0));
+            case IDENTIFIER -> new Identifier(line, column, text(node), symbol(node));
+            case FUNCTION_TYPE -> new FunctionType(line, column, node(children[0]), node(children[1]));
+            case TYPE_LIST -> new TypeList(line, column, nodes(children, 0));
+            case BASIC_TYPE -> new BasicType(line, column, text(node));
+            case ARRAY_TYPE -> new ArrayType(line, column, node(children[0]), number(node));
+            case EXPRESSIONS -> new Expressions(line, column, nodes(children, 0), text(node));
+            case LET -> new LetExpression(line, column, text(node), symbol(node), node(children[0]), node(children[1]));
+            case SET -> new SetExpression(line, column, node(children[0]), node(children[1]));
+            case IF -> new IfExpression(line, column, node(children[0]), node(children[1]), node(children[2]));
+            case WHILE -> new WhileExpression(line, column, node(children[0]), node(children[1]));
+            case CALL -> new CallFunctionExpression(line, column, text(node), symbol(node), node(children[0]));
+            case ARRAY_ACCESS -> new ArrayAccess(line, column, node(children[0]), nodes(children, 1));
+            case ARRAY_CREATION -> {
+                List<ArrayCreation.Dimension> dimensions = new ArrayList<>(children.length);
+                for (int dimension : children) {
+                    int[] exprs = children(dimension);
+                    dimensions.add(new ArrayCreation.Dimension(node(exprs[0]), node(exprs[1])));
+                }
+                yield new ArrayCreation(line, column, text(node), dimensions);
+            }
+            case DIMENSION -> throw new IllegalArgumentException("A dimension is built with its array creation");
+            case BINARY -> new BinaryOp(line, column, text(node), node(children[0]), node(children[1]));
+            case UNARY -> new UnaryOp(line, column, text(node), node(children[0]));
+            case PARENTHESES -> new ParenthicalExpression(line, column, node(children[0]));
+            case INT -> new IntLiteral(line, column, text(node));
+            case BOOL -> new BoolLiteral(line, column, number(node) == 1);
+            case STRING -> new StringLiteral(line, column, text(node));
+            case NULL -> new NullLiteral(line, column);
+        };
+    }
+
+    private List<AstNode> nodes(int[] children, int from) {
+        List<AstNode> nodes = new ArrayList<>(children.length - from);
+        for (int i = from; i < children.length; i++) {
+            nodes.add(node(children[i]));
+        }
+        return nodes;
+    }
+
+    /**
+     * The program with its declarations as objects, except the bodies of its functions, which are built from
+     * the arrays every time {@link FunctionTypeDeclaration#getExprs} is called, and not kept. The checker and the
+     * code generator get each body once, so only the body they are working on is on the heap.
+     */
+    public Program program() {
+        if (kind(0) != Kind.PROGRAM) {
+            throw new IllegalStateException("Not the AST of a program: " + kind(0));
+        }
+        int[] children = children(0);
+        List<AstNode> declarations = new ArrayList<>(children.length);
+        for (int declaration : children) {
+            if (kind(declaration) == Kind.FUNCTION_DECLARATION) {
+                int[] parts = children(declaration);
+                int body = parts[2];
+                declarations.add(new FunctionTypeDeclaration(line(declaration), column(declaration), node(parts[0]),
+                        node(parts[1]), () -> node(body), false));
+            } else {
+                declarations.add(node(declaration));
+            }
+        }
+        return new Program(line(0), column(0), declarations, symbols);
+    }
+
+    /**
+     * Walks the nodes without building any object: moves to the first child, the next sibling or the parent of
+     * the current node, and reads its kind, position and value.
+     */
+    public final class Cursor {
+        private int node;
+        // The ancestors of the node, from the root
+        private int[] path = new int[16];
+        private int depth;
+
+        private Cursor() {
+        }
+
+        public int index() {
+            return node;
+        }
+
+        public Kind kind() {
+            return FlatAst.this.kind(node);
+        }
+
+        public int line() {
+            return FlatAst.this.line(node);
+        }
+
+        public int column() {
+            return FlatAst.this.column(node);
+        }
+
+        public String text() {
+            return FlatAst.this.text(node);
+        }
+
+        public int symbol() {
+            return FlatAst.this.symbol(node);
+        }
+
+        public int number() {
+            return FlatAst.this.number(node);
+        }
+
+        public int childCount() {
+            int count = 0;
+            for (int child = node + 1; child < ends[node]; child = ends[child]) {
+                count++;
+            }
+            return count;
+        }
+
+        /**
+         * @return Whether the node has children, in which case the cursor is now on the first one
+         */
+        public boolean firstChild() {
+            if (node + 1 == ends[node]) {
+                return false;
+            }
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = node;
+            node++;
+            return true;
+        }
+
+        /**
+         * @return Whether the node has a next sibling, in which case the cursor is now on it
+         */
+        public boolean nextSibling() {
+            if (depth == 0 || ends[node] == ends[path[depth - 1]]) {
+                return false;
+            }
+            node = ends[node];
+            return true;
+        }
+
+        /**
+         * @return Whether the node has a parent, in which case the cursor is now on it
+         */
+        public boolean parent() {
+            if (depth == 0) {
+                return false;
+            }
+            node = path[--depth];
+            return true;
+        }
+
+        /**
+         * Moves to a child of the node
+         *
+         * @param index Its index, from 0
+         */
+        public void child(int index) {
+            if (!firstChild()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            for (int i = 0; i < index; i++) {
+                if (!nextSibling()) {
+                    parent();
+                    throw new IndexOutOfBoundsException(index);
+                }
+            }
+        }
+
+        /**
+         * @return The objects of the subtree of the node
+         */
+        public AstNode toNode() {
+            return node(node);
+        }
+    }
+
+    private static final class Builder {
+        private byte[] kinds = new byte[1024];
+        private long[] positions = new long[1024];
+        private int[] ends = new int[1024];
+        private int[] values = new int[1024];
+        private final Map<String, Integer> pool = new HashMap<>();
+        private final Symbols symbols;
+        private int size;
+
+        Builder(Symbols symbols) {
+            this.symbols = symbols;
+        }
+
+        FlatAst build() {
+            String[] strings = new String[pool.size()];
+            pool.forEach((string, index) -> strings[index] = string);
+            return new FlatAst(Arrays.copyOf(kinds, size), Arrays.copyOf(positions, size), Arrays.copyOf(ends, size),
+                    Arrays.copyOf(values, size), strings, symbols);
+        }
+
+        private void add(AstNode node) {
+            if (node == null) {
+                end(open(Kind.NONE, 0, 0, 0));
+            } else if (node instanceof Program program) {
+                end(open(Kind.PROGRAM, node, 0), program.declarations);
+            } else if (node instanceof VariableDeclaration declaration) {
+                end(open(Kind.VARIABLE_DECLARATION, node, declaration.symbol), declaration.typeElem, declaration.exprs);
+            } else if (node instanceof FunctionTypeDeclaration declaration) {
+                end(open(Kind.FUNCTION_DECLARATION, node, 0), declaration.idList, declaration.functionType, declaration.getExprs());
+            } else if (node instanceof IdList idList) {
+                end(open(Kind.ID_LIST, node, idList.symbol), idList.ids);
+            } else if (node instanceof Identifier identifier) {
+                end(open(Kind.IDENTIFIER, node, identifier.symbol));
+            } else if (node instanceof FunctionType type) {
+                end(open(Kind.FUNCTION_TYPE, node, 0), type.typeList, type.returnType);
+            } else if (node instanceof TypeList types) {
+                end(open(Kind.TYPE_LIST, node, 0), types.typesParam);
+            } else if (node instanceof BasicType type) {
+                end(open(Kind.BASIC_TYPE, node, string(type.basicType)));
+            } else if (node instanceof ArrayType type) {
+                end(open(Kind.ARRAY_TYPE, node, type.dimensions), type.basicType);
+            } else if (node instanceof Expressions exprs) {
+                end(open(Kind.EXPRESSIONS, node, string(exprs.getSeparator())), exprs.expressions);
+            } else if (node instanceof LetExpression let) {
+                end(open(Kind.LET, node, let.symbol), let.type, let.blockExpr);
+            } else if (node instanceof SetExpression set) {
+                end(open(Kind.SET, node, 0), set.lhs, set.value);
+            } else if (node instanceof IfExpression ifExpr) {
+                end(open(Kind.IF, node, 0), ifExpr.condition, ifExpr.thenBranch, ifExpr.elseBranch);
+            } else if (node instanceof WhileExpression whileExpr) {
+                end(open(Kind.WHILE, node, 0), whileExpr.condition, whileExpr.body);
+            } else if (node instanceof CallFunctionExpression call) {
+                end(open(Kind.CALL, node, call.symbol), call.exprs);
+            } else if (node instanceof ArrayAccess access) {
+                int at = open(Kind.ARRAY_ACCESS, node, 0);
+                add(access.array);
+                end(at, access.indices);
+            } else if (node instanceof ArrayCreation creation) {
+                int at = open(Kind.ARRAY_CREATION, node, string(creation.baseType));
+                for (ArrayCreation.Dimension dimension : creation.getDimensions()) {
+                    end(open(Kind.DIMENSION, 0, 0, 0), dimension.sizeExpr, dimension.initExpr);
+                }
+                end(at);
+            } else if (node instanceof BinaryOp op) {
+                end(open(Kind.BINARY, node, string(op.op)), op.left, op.right);
+            } else if (node instanceof UnaryOp op) {
+                end(open(Kind.UNARY, node, string(op.op)), op.expr);
+            } else if (node instanceof ParenthicalExpression parentheses) {
+                end(open(Kind.PARENTHESES, node, 0), parentheses.expression);
+            } else if (node instanceof IntLiteral literal) {
+                end(open(Kind.INT, node, string(literal.value)));
+            } else if (node instanceof BoolLiteral literal) {
+                end(open(Kind.BOOL, node, literal.value ? 1 : 0));
+            } else if (node instanceof StringLiteral literal) {
+                end(open(Kind.STRING, node, string(literal.value)));
+            } else if (node instanceof NullLiteral) {
+                end(open(Kind.NULL, node, 0));
+            } else {
+                throw new IllegalArgumentException("Unknown AST node: " + node.getClass().getSimpleName());
+            }
+        }
+
+        private int open(Kind kind, AstNode node, int value) {
+            return open(kind, node.getLine(), node.getColumn(), value);
+        }
+
+        /**
+         * Appends a node, whose end is set by {@link #end} once its children are added
+         *
+         * @return Its index
+         */
+        private int open(Kind kind, int line, int column, int value) {
+            if (size == kinds.length) {
+                int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                positions = Arrays.copyOf(positions, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            kinds[size] = (byte) kind.ordinal();
+            positions[size] = ((long) line << 32) | (column & 0xffffffffL);
+            values[size] = value;
+            return size++;
+        }
+
+        private void end(int node, AstNode... children) {
+            for (AstNode child : children) {
+                add(child);
+            }
+            ends[node] = size;
+        }
+
+        private void end(int node, List<AstNode> children) {
+            for (AstNode child : children) {
+                add(child);
+            }
+            ends[node] = size;
+        }
+
+        private int string(String string) {
+            return pool.computeIfAbsent(string, key -> pool.size());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class FunctionType extends AbstractAstNode {
     public final AstNode typeList;
     public final AstNode returnType;
@@ -11,8 +13,14 @@ public class FunctionType extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-            
-        return typeList.print(indent) + " -> " + returnType.print(indent);
+    public void print(Appendable out, int indent) throws IOException {
+        typeList.print(out, indent);
+        out.append(" -> ");
+        returnType.print(out, indent);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitFunctionType(this);
     }
 }
\ No newline at end of file
@@ -1,21 +1,80 @@
 package aguda.ast;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class FunctionTypeDeclaration extends AbstractAstNode {
     public final AstNode idList;
     public final AstNode functionType;
-    public final AstNode exprs;
+    private AstNode exprs;
+    private Supplier<AstNode> body;
+    // Whether a body that was built later is kept once built, instead of built again every time
+    private final boolean keepBody;
 
     public FunctionTypeDeclaration(int line, int column, AstNode idList, AstNode functionType, AstNode exprs) {
         super(line, column);
         this.idList = idList;
         this.functionType = functionType;
         this.exprs = exprs;
+        this.keepBody = true;
+    }
+
+    /**
+     * A function whose body is only parsed the first time it is needed
+     *
+     * @param body Parses the body
+     */
+    public FunctionTypeDeclaration(int line, int column, AstNode idList, AstNode functionType, Supplier<AstNode> body) {
+        this(line, column, idList, functionType, body, true);
+    }
+
+    /**
+     * @param keepBody Whether the body is kept the first time it is built, or built again by every call to getExprs
+     */
+    FunctionTypeDeclaration(int line, int column, AstNode idList, AstNode functionType, Supplier<AstNode> body,
+                            boolean keepBody) {
+        super(line, column);
+        this.idList = idList;
+        this.functionType = functionType;
+        this.body = body;
+        this.keepBody = keepBody;
+    }
+
+    /**
+     * @return The body of the function, built now if it was not yet, or if it is not kept
+     */
+    public AstNode getExprs() {
+        if (exprs != null) {
+            return exprs;
+        }
+        AstNode built = body.get();
+        if (keepBody) {
+            exprs = built;
+            body = null;
+        }
+        return built;
+    }
+
+    /**
+     * @return The body of the function if it was built and kept, without building it, or null
+     */
+    public AstNode getBuiltExprs() {
+        return exprs;
+    }
+
+    @Override
+    public void print(Appendable out, int indent) throws IOException {
+        out.append("let ");
+        idList.print(out, indent);
+        out.append(" : ");
+        functionType.print(out, indent);
+        out.append(" =\n");
+        getExprs().print(out, indent + 2);
     }
 
     @Override
-    public String print(int indent) {
-        return "let " + idList.print(indent) + " : " + functionType.print(indent) + " =\n" + exprs.print(indent + 2);
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitFunctionTypeDeclaration(this);
     }
 }
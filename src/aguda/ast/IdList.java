@@ -1,27 +1,34 @@
 package aguda.ast;
 
+import java.io.IOException;
 import java.util.List;
 
 public class IdList extends AbstractAstNode {
     public final String id;
+    public final int symbol;
     public final List<AstNode> ids;
 
-    public IdList(int line, int column, String id, List<AstNode> ids) {
+    public IdList(int line, int column, String id, int symbol, List<AstNode> ids) {
         super(line, column);
         this.id = id;
+        this.symbol = symbol;
         this.ids = ids;
     }
 
     @Override
-    public String print(int indent) {
-        StringBuilder sb = new StringBuilder(id + "(");
+    public void print(Appendable out, int indent) throws IOException {
+        out.append(id).append('(');
         for (int i = 0; i < ids.size(); i++) {
-            sb.append(ids.get(i).print(0)); // no internal indent
+            ids.get(i).print(out, 0); // no internal indent
             if (i < ids.size() - 1) {
-                sb.append(", ");
+                out.append(", ");
             }
         }
-        sb.append(")");
-        return sb.toString();
+        out.append(')');
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitIdList(this);
     }
 }
@@ -1,15 +1,25 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class Identifier extends AbstractAstNode {
     public final String value;
+    public final int symbol;
 
-    public Identifier(int line, int column, String value) {
+    public Identifier(int line, int column, String value, int symbol) {
         super(line, column);
         this.value = value;
+        this.symbol = symbol;
+    }
+
+    @Override
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append(value);
     }
 
     @Override
-    public String print(int indent) {
-        return " ".repeat(indent) + value;
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitIdentifier(this);
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class IfExpression extends AbstractAstNode {
     public final AstNode condition;
     public final AstNode thenBranch;
@@ -13,10 +15,24 @@ public class IfExpression extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        if(elseBranch == null) {
-            return " ".repeat(indent) + "if " + condition.print(indent) + " then " + thenBranch.print(indent) + "\n" +" ".repeat(indent) + "else Unit";
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append("if ");
+        condition.print(out, indent);
+        out.append(" then ");
+        thenBranch.print(out, indent);
+        out.append('\n');
+        indent(out, indent);
+        out.append("else ");
+        if (elseBranch == null) {
+            out.append("Unit");
+        } else {
+            elseBranch.print(out, indent);
         }
-        return " ".repeat(indent) + "if " + condition.print(indent) + " then " + thenBranch.print(indent) + "\n" + " ".repeat(indent) + "else " + elseBranch.print(indent);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitIfExpression(this);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package aguda.ast;
 
+import java.io.IOException;
 import java.math.BigInteger;
 
 public class IntLiteral extends AbstractAstNode {
@@ -15,7 +16,13 @@ public class IntLiteral extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        return " ".repeat(indent) + value;
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append(value);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitIntLiteral(this);
     }
 }
@@ -1,19 +1,32 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class LetExpression extends AbstractAstNode {
     public final String id;
+    public final int symbol;
     public final AstNode type;
     public final AstNode blockExpr;
 
-    public LetExpression(int line, int column, String id, AstNode type, AstNode blockExpr) {
+    public LetExpression(int line, int column, String id, int symbol, AstNode type, AstNode blockExpr) {
         super(line, column);
         this.id = id;
+        this.symbol = symbol;
         this.type = type;
         this.blockExpr = blockExpr;
     }
 
     @Override
-    public String print(int indent) {
-        return " ".repeat(indent) + "let " + id + " : " + type.print(indent) + " =\n" + blockExpr.print(indent + 2);
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append("let ").append(id).append(" : ");
+        type.print(out, indent);
+        out.append(" =\n");
+        blockExpr.print(out, indent + 2);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitLetExpression(this);
     }
 }
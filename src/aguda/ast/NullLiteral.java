@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class NullLiteral extends AbstractAstNode {
 
     public NullLiteral(int line, int column) {
@@ -7,7 +9,13 @@ public class NullLiteral extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        return " ".repeat(indent) + "unit";
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append("unit");
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitNullLiteral(this);
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class ParenthicalExpression extends AbstractAstNode {
     public final AstNode expression;
 
@@ -9,7 +11,17 @@ public class ParenthicalExpression extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        return " ".repeat(indent) + "(\n" + expression.print(indent + 2) + "\n" + " ".repeat(indent) + ")";
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append("(\n");
+        expression.print(out, indent + 2);
+        out.append('\n');
+        indent(out, indent);
+        out.append(')');
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitParenthicalExpression(this);
     }
 }
\ No newline at end of file
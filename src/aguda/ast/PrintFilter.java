@@ -0,0 +1,113 @@
+package aguda.ast;
+
+import java.io.IOException;
+
+/**
+ * Fixes the spacing of the text of a program as it is written, so that it comes out the same as when Program.print
+ * built the whole text, trimmed it, and ran on every line:
+ *
+ *   replaceAll("(?<=\\S) {2,}", " ")           a run of spaces after the indentation becomes one space
+ *   replaceAll("(?<![ \\(\\[])\\)", " )")      a ')' gets a space before it, unless it follows ' ', '(' or '['
+ *   replaceAll("(?<![ \\[\\[])\\]", " ]")      a ']' gets a space before it, unless it follows ' ' or '['
+ *
+ * before trimming the result again. Blank characters (up to ' ', as for String.trim) are held back until something
+ * else follows them, so none is written at the start or at the end of the text. The text is written to the target
+ * in blocks; call finish at the end.
+ */
+final class PrintFilter implements Appendable {
+    private static final int BLOCK = 8192;
+    // The previous character at the start of a line, where the rules look behind and see nothing
+    private static final int LINE_START = -1;
+
+    private final Appendable target;
+    private final StringBuilder block = new StringBuilder(BLOCK);
+    // Blank characters written since the last other one, dropped if nothing else follows
+    private final StringBuilder blanks = new StringBuilder();
+    private boolean started;
+    private int previous = LINE_START;
+    // Whether the spaces that follow are the rest of a run already written as one space
+    private boolean inRun;
+
+    PrintFilter(Appendable target) {
+        this.target = target;
+    }
+
+    @Override
+    public Appendable append(CharSequence text) throws IOException {
+        if (text == null) {
+            text = "null";
+        }
+        return append(text, 0, text.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence text, int start, int end) throws IOException {
+        if (text == null) {
+            text = "null";
+        }
+        for (int i = start; i < end; i++) {
+            append(text.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        if (c == '\n') {
+            write('\n');
+            previous = LINE_START;
+            inRun = false;
+            return this;
+        }
+        if (c == ' ') {
+            if (!inRun) {
+                // Only a run that follows something other than white space (\S) is made one space
+                inRun = previous != LINE_START && !isWhitespace((char) previous);
+                write(' ');
+            }
+            previous = ' ';
+            return this;
+        }
+        inRun = false;
+        if ((c == ')' && previous != ' ' && previous != '(' && previous != '[')
+                || (c == ']' && previous != ' ' && previous != '[')) {
+            write(' ');
+        }
+        write(c);
+        previous = c;
+        return this;
+    }
+
+    /**
+     * Writes what is left of the text, without the blank characters at its end
+     */
+    void finish() throws IOException {
+        blanks.setLength(0);
+        target.append(block);
+        block.setLength(0);
+    }
+
+    private void write(char c) throws IOException {
+        if (c <= ' ') {
+            if (started) {
+                blanks.append(c);
+            }
+            return;
+        }
+        if (blanks.length() > 0) {
+            block.append(blanks);
+            blanks.setLength(0);
+        }
+        started = true;
+        block.append(c);
+        if (block.length() >= BLOCK) {
+            target.append(block);
+            block.setLength(0);
+        }
+    }
+
+    // The white space of \s in a regular expression
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
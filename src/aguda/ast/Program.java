@@ -1,34 +1,36 @@
 package aguda.ast;
 
+import java.io.IOException;
 import java.util.List;
 
 public class Program extends AbstractAstNode {
     public final List<AstNode> declarations;
+    // The identifiers of the program, by the ids its nodes have
+    public final Symbols symbols;
 
-    public Program(int line, int column, List<AstNode> declarations) {
+    public Program(int line, int column, List<AstNode> declarations, Symbols symbols) {
         super(line, column);
         this.declarations = declarations;
+        this.symbols = symbols;
     }
 
+    /**
+     * Writes the declarations one per line, with the spacing of the --ast output: one space between words after
+     * the indentation, a space before every ')' and ']' that does not follow '(' or '[', and no blank space around
+     * the whole text (see PrintFilter)
+     */
     @Override
-    public String print(int indent) {
-        StringBuilder sb = new StringBuilder();
+    public void print(Appendable out, int indent) throws IOException {
+        PrintFilter filter = new PrintFilter(out);
         for (AstNode decl : declarations) {
-            sb.append(decl.print(indent)).append("\n");
-        }
-
-        
-        String[] lines = sb.toString().trim().split("\n");
-        StringBuilder cleaned = new StringBuilder();
-        for (String line : lines) {
-            String cleanedLine = line.replaceAll("(?<=\\S) {2,}", " ");
-
-            cleanedLine = cleanedLine.replaceAll("(?<![ \\(\\[])\\)", " )");
-            cleanedLine = cleanedLine.replaceAll("(?<![ \\[\\[])\\]", " ]");
-
-            cleaned.append(cleanedLine).append("\n");
+            decl.print(filter, indent);
+            filter.append('\n');
         }
+        filter.finish();
+    }
 
-        return cleaned.toString().trim(); 
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitProgram(this);
     }
 }
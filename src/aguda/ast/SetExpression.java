@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class SetExpression extends AbstractAstNode {
     public final AstNode lhs;
     public final AstNode value;
@@ -11,7 +13,16 @@ public class SetExpression extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        return " ".repeat(indent) + "set " + lhs.print(indent) + " =\n" + value.print(indent + 2);
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append("set ");
+        lhs.print(out, indent);
+        out.append(" =\n");
+        value.print(out, indent + 2);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitSetExpression(this);
     }
 }
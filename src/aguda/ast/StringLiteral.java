@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class StringLiteral extends AbstractAstNode {
     public final String value;
 
@@ -9,7 +11,13 @@ public class StringLiteral extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        return " ".repeat(indent) + value;
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append(value);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitStringLiteral(this);
     }
 }
\ No newline at end of file
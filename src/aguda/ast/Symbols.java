@@ -0,0 +1,112 @@
+package aguda.ast;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The identifiers of one compilation, each with a dense id (0, 1, 2...) given the first time it is seen, by the
+ * lexer or while the AST is built. The nodes that name something keep the id next to the name, so that scopes
+ * can be keyed by ints, and each name is one String shared by all its occurrences.
+ *
+ * Identifiers are looked up by their UTF-8 bytes, so the lexer interns them without decoding the ones it has
+ * already seen. Not thread-safe: ids are given on one thread, other threads only read them from the AST.
+ */
+public final class Symbols {
+    private String[] names = new String[256];
+    private byte[][] bytes = new byte[256][];
+    private int[] hashes = new int[256];
+    // Open addressing, id + 1 of the identifier at each slot, 0 when the slot is free
+    private int[] table = new int[512];
+    private int size;
+
+    /**
+     * @return The number of identifiers, which is also the next id
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The identifier with the given id
+     */
+    public String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return The id of an identifier, a new one if it was not seen before
+     */
+    public int intern(String name) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        return intern(ByteBuffer.wrap(utf8), 0, utf8.length, name);
+    }
+
+    /**
+     * @return The id of the identifier in the given bytes, a new one if it was not seen before
+     */
+    public int intern(ByteBuffer source, int start, int length) {
+        return intern(source, start, length, null);
+    }
+
+    private int intern(ByteBuffer source, int start, int length, String name) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + source.get(i);
+        }
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot] - 1;
+            if (id < 0) {
+                return add(slot, hash, source, start, length, name);
+            }
+            if (hashes[id] == hash && equals(bytes[id], source, start, length)) {
+                return id;
+            }
+        }
+    }
+
+    private int add(int slot, int hash, ByteBuffer source, int start, int length, String name) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            bytes = Arrays.copyOf(bytes, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        byte[] utf8 = new byte[length];
+        source.get(start, utf8);
+        names[size] = name != null ? name : new String(utf8, StandardCharsets.UTF_8);
+        bytes[size] = utf8;
+        hashes[size] = hash;
+        table[slot] = size + 1;
+        size++;
+        // At most half full
+        if (size * 2 > table.length) {
+            table = new int[table.length * 2];
+            int mask = table.length - 1;
+            for (int id = 0; id < size; id++) {
+                int free = mix(hashes[id]) & mask;
+                while (table[free] != 0) {
+                    free = (free + 1) & mask;
+                }
+                table[free] = id + 1;
+            }
+        }
+        return size - 1;
+    }
+
+    private static boolean equals(byte[] utf8, ByteBuffer source, int start, int length) {
+        if (utf8.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (utf8[i] != source.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
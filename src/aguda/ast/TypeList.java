@@ -1,5 +1,6 @@
 package aguda.ast;
 
+import java.io.IOException;
 import java.util.List;
 
 public class TypeList extends AbstractAstNode {
@@ -11,23 +12,28 @@ public class TypeList extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
+    public void print(Appendable out, int indent) throws IOException {
         if (typesParam.size() == 1) {
-            return typesParam.get(0).print(indent);
+            typesParam.get(0).print(out, indent);
         } else {
-            StringBuilder sb = new StringBuilder("(");
+            indent(out, indent);
+            out.append('(');
             for (int i = 0; i < typesParam.size(); i++) {
-                sb.append(typesParam.get(i).print(0)); // no internal indent
+                typesParam.get(i).print(out, 0); // no internal indent
                 if (i < typesParam.size() - 1) {
-                    sb.append(", ");
+                    out.append(", ");
                 }
             }
-            sb.append(")");
-            return " ".repeat(indent) + sb.toString();
+            out.append(')');
         }
     }
 
     public List<AstNode> getTypes() {
         return typesParam;
     }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitTypeList(this);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class UnaryOp extends AbstractAstNode {
     public final String op;
     public final AstNode expr;
@@ -11,8 +13,14 @@ public class UnaryOp extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        if(op.equals("-")) return " ".repeat(indent) + "0 - " + expr.print(indent);
-        return " ".repeat(indent) + op + expr.print(indent);
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append(op.equals("-") ? "0 - " : op);
+        expr.print(out, indent);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitUnaryOp(this);
     }
 }
\ No newline at end of file
@@ -1,21 +1,32 @@
 package aguda.ast;
 
+import java.io.IOException;
 import java.util.List;
 
 public class VariableDeclaration extends AbstractAstNode {
     public final String id;
+    public final int symbol;
     public final AstNode typeElem;
     public final AstNode exprs;
 
-    public VariableDeclaration(int line, int column, String id, AstNode typeElem, AstNode exprs) {
+    public VariableDeclaration(int line, int column, String id, int symbol, AstNode typeElem, AstNode exprs) {
         super(line, column);
         this.id = id;
+        this.symbol = symbol;
         this.typeElem = typeElem;
         this.exprs = exprs;
     }
 
     @Override
-    public String print(int indent) {
-        return "let " + id + " : " + typeElem.print(indent) + " =\n" + exprs.print(indent + 2);
+    public void print(Appendable out, int indent) throws IOException {
+        out.append("let ").append(id).append(" : ");
+        typeElem.print(out, indent);
+        out.append(" =\n");
+        exprs.print(out, indent + 2);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitVariableDeclaration(this);
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package aguda.ast;
 
+import java.io.IOException;
+
 public class WhileExpression extends AbstractAstNode {
     public final AstNode condition;
     public final AstNode body;
@@ -11,7 +13,17 @@ public class WhileExpression extends AbstractAstNode {
     }
 
     @Override
-    public String print(int indent) {
-        return " ".repeat(indent) + "while " + condition.print(indent) + " do\n" + " ".repeat(indent + 2) + body.print(indent + 2);
+    public void print(Appendable out, int indent) throws IOException {
+        indent(out, indent);
+        out.append("while ");
+        condition.print(out, indent);
+        out.append(" do\n");
+        indent(out, indent + 2);
+        body.print(out, indent + 2);
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitWhileExpression(this);
     }
 }
\ No newline at end of file
@@ -3,32 +3,111 @@ package aguda.checker;
 import aguda.ast.*;
 import aguda.types.*;
 import aguda.context.*;
+import aguda.events.CheckDeclarationEvent;
+import aguda.parser.SourceFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.Serializable;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.math.BigInteger;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-public class Checker {
+public class Checker implements AstVisitor<Type> {
 
     private final Context context;
     private final String currentFile;
+    private SourceFile source;
     private boolean hasErrors = false;
     private final StringBuilder errorMessages = new StringBuilder();
     private int maxErrors;
     private int totalErrors;
 
+    // Errors of the declaration being checked by checkDeclaration, reported when it ends
+    private List<DeclarationError> captured;
+    private int capturedCount;
+    private int capturedLine;
+
+    // The isDeclaration of the last call to typeof, read by the visit methods of the nodes it applies to
+    private boolean isDeclaration;
+
+    // Where the bodies of the functions are checked, null to check them on the calling thread
+    private ForkJoinPool pool;
+
+    /**
+     * A semantic error of a top-level declaration
+     *
+     * @param relativeLine The line of the error minus the line where the declaration starts
+     * @param column The column of the error
+     * @param message The description of the error
+     */
+    public record DeclarationError(int relativeLine, int column, String message) implements Serializable {}
+
+    /**
+     * The semantic errors of a top-level declaration, kept so they can be reported again without checking it
+     *
+     * @param errors The first errors found (no more than the maximum number of errors)
+     * @param count The number of errors found
+     */
+    public record DeclarationResult(List<DeclarationError> errors, int count) implements Serializable {
+
+        /**
+         * @return Whether every error that can be shown with this maximum number of errors was kept
+         */
+        public boolean covers(int maxErrors) {
+            return errors.size() == count || errors.size() >= maxErrors;
+        }
+    }
+
+    /**
+     * A declaration checked without reporting its errors
+     *
+     * @param result Its errors, up to the failure if there is one
+     * @param failure What stopped the check, or null if it ended
+     */
+    private record Checked(DeclarationResult result, RuntimeException failure) {}
+
     public Checker(String filePath, int maxErrors) {
         this.context = new Context(); // initial simbol table 
         this.currentFile = filePath;
         this.maxErrors = maxErrors;
     }
 
+    /**
+     * A checker that shows the lines of its errors from a file that is already mapped
+     */
+    public Checker(SourceFile source, int maxErrors) {
+        this(source.path().toString(), maxErrors);
+        this.source = source;
+    }
+
+    /**
+     * A checker for the bodies of the functions of a program, on another thread, which only reads its globals
+     */
+    private Checker(Checker program) {
+        this.context = new Context(program.context);
+        this.currentFile = program.currentFile;
+        this.source = program.source;
+        this.maxErrors = program.maxErrors;
+    }
+
+    /**
+     * Checks the bodies of the functions of a program on a pool. They are checked once every global is declared,
+     * each with its own scopes over the globals, and their errors are reported in the order of the declarations,
+     * exactly as when they are checked one after the other.
+     *
+     * @param pool The pool, or null to check every declaration on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     public String getErrorMessage() {
         return errorMessages.toString();
     }
@@ -42,105 +121,374 @@ public class Checker {
         errorMessages.append(message).append("\n");
     }
 
+    /**
+     * @param isDeclaration Whether the node is a declaration, where the wildcard '_' can be used
+     * @return The type of the node, after reporting its semantic errors
+     */
     public Type typeof(AstNode node, boolean isDeclaration) {
-        if (node instanceof Program program) {
-            // 1. predeclaration of functions and global variables
+        this.isDeclaration = isDeclaration;
+        return node.accept(this);
+    }
+
+    @Override
+    public Type visitProgram(Program program) {
+        // 1. predeclaration of functions and global variables
+        predeclareAll(program);
+
+        // 2. check the types of the declarations
+        if (pool != null && pool.getParallelism() > 1) {
+            checkInParallel(program.declarations);
+        } else {
             for (AstNode decl : program.declarations) {
-                predeclare(decl);
+                checkDeclaration(decl);
             }
+        }
 
-            // 2. check the types of the declarations
-            for (AstNode decl : program.declarations) {
-                typeof(decl, true); 
-            }
-
-            if (hasErrors) {
-                errorMessages.append("Program has " + totalErrors + " semantic error(s), " + maxErrors + " or less, were shown above has requested.");
-                throw new RuntimeException("");
-            }
-            return new UnitTypeChecker();
-        } else if (node instanceof VariableDeclaration varDecl) {
-            return checkVariableDeclaration(varDecl);
-        } else if (node instanceof FunctionTypeDeclaration funDecl) {
-            return checkFunctionDeclaration(funDecl);
-        } else if (node instanceof Expressions exprs) {
-            return checkExpressions(exprs);
-        } else if (node instanceof LetExpression letExpr) {
-            return checkLetExpression(letExpr);
-        } else if (node instanceof IfExpression ifExpr) {
-            return checkIfExpression(ifExpr);
-        } else if (node instanceof SetExpression setExpr) {
-            return checkSetExpression(setExpr);
-        } else if (node instanceof WhileExpression whileExpr) {
-            return checkWhileExpression(whileExpr);
-        }else if (node instanceof CallFunctionExpression call) {
-            return checkCallFunction(call);
-        }else if (node instanceof BinaryOp binop) {
-            return checkBinaryOp(binop);
-        } else if (node instanceof ArrayAccess arrayAccess) {
-            return checkArrayAccess(arrayAccess);
-        } else if (node instanceof ArrayCreation arrayCreation) {
-            return checkArrayCreation(arrayCreation);
-        } else if (node instanceof ParenthicalExpression paren) {
-            return typeof(paren.expression, false);
-        } else if (node instanceof IntLiteral) {
-            return new IntTypeChecker();
-        } else if (node instanceof BoolLiteral) {
-            return new BoolTypeChecker();
-        } else if (node instanceof StringLiteral) {
-            return new StringTypeChecker();
-        } else if (node instanceof NullLiteral) {
-            return new UnitTypeChecker(); 
-        } else if (node instanceof Identifier id) {
-            Type type = context.get(id.value);
-            if (type == null) {
-                error(id, "Undeclared variable '" + id.value + "'");
-                return new UndeclaredTypeChecker(); // default type for undeclared variables
-            } 
-            if (id.value.equals("_") && !isDeclaration) {
-                error(id, "Wildcard '_' cannot be used in expressions");
-                return new UndeclaredTypeChecker();
-            }
-            return type;
-        }
-        else if (node instanceof UnaryOp unary) {
-            Type operandType = typeof(unary.expr, false);
-
-            switch (unary.op) {
-                case "!" -> {
-                    if (!(operandType instanceof BoolTypeChecker)) {
-                        error(unary, "Unary '!' expects Bool operand, found: " + operandType);
-                    }
-                    return new BoolTypeChecker();
+        finish();
+        return Types.UNIT;
+    }
+
+    @Override
+    public Type visitVariableDeclaration(VariableDeclaration varDecl) {
+        return checkVariableDeclaration(varDecl);
+    }
+
+    @Override
+    public Type visitFunctionTypeDeclaration(FunctionTypeDeclaration funDecl) {
+        return checkFunctionDeclaration(funDecl);
+    }
+
+    @Override
+    public Type visitExpressions(Expressions exprs) {
+        return checkExpressions(exprs);
+    }
+
+    @Override
+    public Type visitLetExpression(LetExpression letExpr) {
+        return checkLetExpression(letExpr);
+    }
+
+    @Override
+    public Type visitIfExpression(IfExpression ifExpr) {
+        return checkIfExpression(ifExpr);
+    }
+
+    @Override
+    public Type visitSetExpression(SetExpression setExpr) {
+        return checkSetExpression(setExpr);
+    }
+
+    @Override
+    public Type visitWhileExpression(WhileExpression whileExpr) {
+        return checkWhileExpression(whileExpr);
+    }
+
+    @Override
+    public Type visitCallFunctionExpression(CallFunctionExpression call) {
+        return checkCallFunction(call);
+    }
+
+    @Override
+    public Type visitBinaryOp(BinaryOp binop) {
+        return checkBinaryOp(binop);
+    }
+
+    @Override
+    public Type visitArrayAccess(ArrayAccess arrayAccess) {
+        return checkArrayAccess(arrayAccess);
+    }
+
+    @Override
+    public Type visitArrayCreation(ArrayCreation arrayCreation) {
+        return checkArrayCreation(arrayCreation);
+    }
+
+    @Override
+    public Type visitParenthicalExpression(ParenthicalExpression paren) {
+        return typeof(paren.expression, false);
+    }
+
+    @Override
+    public Type visitIntLiteral(IntLiteral node) {
+        return Types.INT;
+    }
+
+    @Override
+    public Type visitBoolLiteral(BoolLiteral node) {
+        return Types.BOOL;
+    }
+
+    @Override
+    public Type visitStringLiteral(StringLiteral node) {
+        return Types.STRING;
+    }
+
+    @Override
+    public Type visitNullLiteral(NullLiteral node) {
+        return Types.UNIT;
+    }
+
+    @Override
+    public Type visitIdentifier(Identifier id) {
+        Type type = context.get(id.symbol);
+        if (type == null) {
+            error(id, "Undeclared variable '" + id.value + "'");
+            return Types.UNDECLARED; // default type for undeclared variables
+        }
+        if (id.value.equals("_") && !isDeclaration) {
+            error(id, "Wildcard '_' cannot be used in expressions");
+            return Types.UNDECLARED;
+        }
+        return type;
+    }
+
+    @Override
+    public Type visitUnaryOp(UnaryOp unary) {
+        Type operandType = typeof(unary.expr, false);
+
+        switch (unary.op) {
+            case "!" -> {
+                if (!(operandType instanceof BoolTypeChecker)) {
+                    error(unary, "Unary '!' expects Bool operand, found: " + operandType);
+                }
+                return Types.BOOL;
+            }
+            case "-" -> {
+                if (!(operandType instanceof IntTypeChecker)) {
+                    error(unary, "Unary '-' expects Int operand, found: " + operandType);
                 }
-                case "-" -> {
-                    if (!(operandType instanceof IntTypeChecker)) {
-                        error(unary, "Unary '-' expects Int operand, found: " + operandType);
-                    }
 
-                    if (unary.expr instanceof IntLiteral intLit) {
-                        BigInteger value = intLit.toBigInteger();
-                        BigInteger negated = value.negate();
+                if (unary.expr instanceof IntLiteral intLit) {
+                    BigInteger value = intLit.toBigInteger();
+                    BigInteger negated = value.negate();
 
-                        BigInteger intMin = BigInteger.valueOf(Integer.MIN_VALUE);
-                        BigInteger intMax = BigInteger.valueOf(Integer.MAX_VALUE);
+                    BigInteger intMin = BigInteger.valueOf(Integer.MIN_VALUE);
+                    BigInteger intMax = BigInteger.valueOf(Integer.MAX_VALUE);
 
-                        if (negated.compareTo(intMin) < 0 || negated.compareTo(intMax) > 0) {
-                            error(unary, "Result of unary minus is out of Int bounds: " + negated);
-                        }
+                    if (negated.compareTo(intMin) < 0 || negated.compareTo(intMax) > 0) {
+                        error(unary, "Result of unary minus is out of Int bounds: " + negated);
                     }
-                    return new IntTypeChecker();
                 }
-                default -> {
-                    error(unary, "Unknown unary operator: " + unary.op);
-                    return new UnitTypeChecker(); // fallback
+                return Types.INT;
+            }
+            default -> {
+                error(unary, "Unknown unary operator: " + unary.op);
+                return Types.UNIT; // fallback
+            }
+        }
+    }
+
+    // Types and parameter lists are only read by the declarations they belong to, they have no type
+
+    @Override
+    public Type visitIdList(IdList node) {
+        throw unknown(node);
+    }
+
+    @Override
+    public Type visitFunctionType(FunctionType node) {
+        throw unknown(node);
+    }
+
+    @Override
+    public Type visitTypeList(TypeList node) {
+        throw unknown(node);
+    }
+
+    @Override
+    public Type visitBasicType(BasicType node) {
+        throw unknown(node);
+    }
+
+    @Override
+    public Type visitArrayType(ArrayType node) {
+        throw unknown(node);
+    }
+
+    private static RuntimeException unknown(AstNode node) {
+        return new RuntimeException("Unknown expression type: " + node.getClass());
+    }
+
+    /**
+     * Adds every function and global variable of the program to the context.
+     * Must be called before checking its declarations one by one.
+     *
+     * @param program The program
+     */
+    public void predeclareAll(Program program) {
+        for (AstNode decl : program.declarations) {
+            predeclare(decl);
+        }
+    }
+
+    /**
+     * Checks one top-level declaration and reports its errors
+     *
+     * @param decl The declaration
+     * @return Its errors, which can be reported again with {@link #replay} while it does not change
+     */
+    public DeclarationResult checkDeclaration(AstNode decl) {
+        stopIfInterrupted();
+        Checked checked = capture(decl);
+        replay(checked.result(), decl);
+        if (checked.failure() != null) {
+            throw checked.failure();
+        }
+        return checked.result();
+    }
+
+    /**
+     * Checks one top-level declaration, keeping its errors instead of reporting them
+     */
+    private Checked capture(AstNode decl) {
+        captured = new ArrayList<>();
+        capturedCount = 0;
+        capturedLine = decl.getLine();
+        CheckDeclarationEvent event = new CheckDeclarationEvent();
+        event.begin();
+        RuntimeException failure = null;
+        try {
+            typeof(decl, true);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        DeclarationResult result = new DeclarationResult(List.copyOf(captured), capturedCount);
+        captured = null;
+        if (failure != null) {
+            return new Checked(result, failure);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = currentFile;
+            event.declaration = declarationName(decl);
+            event.line = decl.getLine();
+            event.errors = result.count();
+            event.commit();
+        }
+        return new Checked(result, null);
+    }
+
+    /**
+     * Checks the declarations in order, except that each run of functions that follow one another is checked on
+     * the pool. Functions do not change the globals, variables can (one that redefines a name replaces it), so
+     * the runs are only checked once the variables before them are.
+     */
+    private void checkInParallel(List<AstNode> declarations) {
+        int i = 0;
+        while (i < declarations.size()) {
+            int end = i;
+            while (end < declarations.size() && declarations.get(end) instanceof FunctionTypeDeclaration funDecl
+                    && funDecl.idList instanceof IdList) {
+                end++;
+            }
+            if (end - i < 2) {
+                checkDeclaration(declarations.get(i));
+                i++;
+                continue;
+            }
+            stopIfInterrupted();
+            List<AstNode> functions = declarations.subList(i, end);
+            Checked[] checked = new Checked[functions.size()];
+            int grain = Math.max(1, functions.size() / (pool.getParallelism() * 4));
+            pool.invoke(new Bodies(functions, checked, 0, functions.size(), grain));
+            for (int k = 0; k < checked.length; k++) {
+                if (checked[k] == null) {
+                    // Too deep for the stack of the pool
+                    checkDeclaration(functions.get(k));
+                    continue;
+                }
+                replay(checked[k].result(), functions.get(k));
+                if (checked[k].failure() != null) {
+                    throw checked[k].failure();
                 }
             }
+            i = end;
+        }
+    }
+
+    /**
+     * Checks the functions from..to, splitting them in two halves while there are more than the grain
+     */
+    private final class Bodies extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<AstNode> functions;
+        private final Checked[] checked;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Bodies(List<AstNode> functions, Checked[] checked, int from, int to, int grain) {
+            this.functions = functions;
+            this.checked = checked;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                Checker checker = new Checker(Checker.this);
+                for (int k = from; k < to; k++) {
+                    try {
+                        checked[k] = checker.capture(functions.get(k));
+                    } catch (StackOverflowError e) {
+                        // Its scopes are left open: the rest are checked again on the calling thread
+                        return;
+                    }
+                    if (checked[k].failure() != null) {
+                        // Nothing after it is reported
+                        return;
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Bodies(functions, checked, from, middle, grain), new Bodies(functions, checked, middle, to, grain));
+        }
+    }
+
+    /**
+     * Reports the errors of a declaration that was checked before, as if it had been checked again
+     *
+     * @param result What {@link #checkDeclaration} returned for it
+     * @param decl The declaration, which may have moved to other lines since
+     */
+    public void replay(DeclarationResult result, AstNode decl) {
+        for (DeclarationError error : result.errors()) {
+            report(decl.getLine() + error.relativeLine(), error.column(), error.message());
         }
+        totalErrors += result.count() - result.errors().size();
+    }
+
+    /**
+     * Ends the check of the program, after every declaration was checked
+     *
+     * @throws RuntimeException If there were errors, which are in the error message
+     */
+    public void finish() {
+        if (hasErrors) {
+            errorMessages.append("Program has " + totalErrors + " semantic error(s), " + maxErrors + " or less, were shown above has requested.");
+            throw new RuntimeException("");
+        }
+    }
 
+    /**
+     * Stops a check whose thread was interrupted (e.g. by a test that timed out) between two declarations
+     */
+    private static void stopIfInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Interrupted");
+        }
+    }
 
-        // TODO: other cases (BinaryExpr, Let, etc.)
-        throw new RuntimeException("Unknown expression type: " + node.getClass());
+    private static String declarationName(AstNode decl) {
+        if (decl instanceof FunctionTypeDeclaration funDecl && funDecl.idList instanceof IdList idList) {
+            return idList.id;
+        } else if (decl instanceof VariableDeclaration varDecl) {
+            return varDecl.id;
+        }
+        return decl.getClass().getSimpleName();
     }
 
     private void predeclare(AstNode decl) {
@@ -149,11 +497,11 @@ public class Checker {
                 error(varDecl, "Cannot use reserved name '" + varDecl.id + "' as a variable");
             }
             else {
-                if (context.contains(varDecl.id) && !varDecl.id.equals("_")) {
+                if (context.contains(varDecl.symbol) && !varDecl.id.equals("_")) {
                     error(varDecl, "Variable '" + varDecl.id + "' is already defined");
                 } else {
                     Type type = convertType(varDecl.typeElem);
-                    context.add(varDecl.id, type);
+                    context.add(varDecl.symbol, type);
                 }
             }
         } else if (decl instanceof FunctionTypeDeclaration funDecl && funDecl.idList instanceof IdList idList) {
@@ -161,11 +509,11 @@ public class Checker {
                 error(funDecl, "Cannot use reserved name '" + idList.id + "' as a function");
             }
             else {
-                if (context.contains(idList.id) && !idList.id.equals("_")) {
+                if (context.contains(idList.symbol) && !idList.id.equals("_")) {
                     error(funDecl, "Function '" + idList.id + "' is already defined");
                 } else {
                     Type type = convertType(funDecl.functionType);
-                    context.add(idList.id, type);
+                    context.add(idList.symbol, type);
                 }
             }
         }
@@ -182,7 +530,7 @@ public class Checker {
         Type declaredType = convertType(decl.typeElem);
 
 
-        context.remove(decl.id);
+        context.remove(decl.symbol);
 
         context.beginScope();
 
@@ -190,7 +538,7 @@ public class Checker {
 
         context.endScope();
 
-        context.add(decl.id, declaredType);
+        context.add(decl.symbol, declaredType);
         
         if (!declaredType.equals(actualType)) {
             AstNode lastExpr = null;
@@ -202,7 +550,7 @@ public class Checker {
 
             error(lastExpr, "Declared type " + declaredType + " does not match actual type " + actualType);
         }
-        return new UnitTypeChecker();
+        return Types.UNIT;
     }
 
     private Type checkFunctionDeclaration(FunctionTypeDeclaration decl) {
@@ -232,7 +580,7 @@ public class Checker {
                                 error(paramId, "Cannot use reserved name '" + paramId.value + "' as a parameter");
                             }
                             else {
-                                context.add(paramId.value, types.get(i));
+                                context.add(paramId.symbol, types.get(i));
                             }
                         } 
                     }
@@ -247,7 +595,7 @@ public class Checker {
                             error(paramId, "Cannot use reserved name '" + paramId.value + "' as a parameter");
                         }
                         else {
-                            context.add(paramId.value, from);
+                            context.add(paramId.symbol, from);
                         }
                     }
                 }
@@ -255,7 +603,8 @@ public class Checker {
         }
 
         // Now that the parameters are in the context, we can check the body of the function
-        Type actualType = typeof(decl.exprs, false); 
+        AstNode body = decl.getExprs();
+        Type actualType = typeof(body, false); 
 
         context.endScope(); // close the scope of the parameters
 
@@ -264,17 +613,17 @@ public class Checker {
 
             if (!expectedReturnType.equals(actualType)) {
                 AstNode lastExpr = null;
-                if (decl.exprs instanceof Expressions expressions && !expressions.expressions.isEmpty()) {
+                if (body instanceof Expressions expressions && !expressions.expressions.isEmpty()) {
                     lastExpr = expressions.expressions.get(expressions.expressions.size() - 1);
                 } else {
-                    lastExpr = decl.exprs;
+                    lastExpr = body;
                 }
                 error(lastExpr, "Function body does not match declared return type " + expectedReturnType +
                                 ". Found: " + actualType);
             }
         }
 
-        return new UnitTypeChecker();
+        return Types.UNIT;
     }
 
 
@@ -286,7 +635,7 @@ public class Checker {
 
     private Type checkExpressions(Expressions exprs) {
         List<AstNode> list = exprs.expressions;
-        if (list.isEmpty()) return new UnitTypeChecker();
+        if (list.isEmpty()) return Types.UNIT;
 
         for (int i = 0; i < list.size() - 1; i++) {
             typeof(list.get(i), false); // ensures semantics
@@ -312,9 +661,9 @@ public class Checker {
             }
             error(lastExpr, "Declared type " + declaredType + " does not match expression type " + result);
         }
-        context.add(letExpr.id, declaredType);
+        context.add(letExpr.symbol, declaredType);
 
-        return new UnitTypeChecker(); // let returns Unit
+        return Types.UNIT; // let returns Unit
     }
 
     private Type checkIfExpression(IfExpression ifExpr) {
@@ -335,7 +684,7 @@ public class Checker {
 
         context.endScope();
 
-        Type elseType = new UnitTypeChecker();
+        Type elseType = Types.UNIT;
 
         if (ifExpr.elseBranch != null) {
             context.beginScope();
@@ -358,7 +707,7 @@ public class Checker {
             error(setExpr, "Type mismatch in assignment: expected " + lhsType + ", found " + rhsType);
         }
 
-        return new UnitTypeChecker(); // set returns Unit
+        return Types.UNIT; // set returns Unit
     }
 
     private Type checkWhileExpression(WhileExpression whileExpr) {
@@ -373,7 +722,7 @@ public class Checker {
         context.endScope();
 
 
-        return new UnitTypeChecker();
+        return Types.UNIT;
     }
 
     private Type checkCallFunction(CallFunctionExpression call) {
@@ -382,28 +731,28 @@ public class Checker {
             List<AstNode> args = ((Expressions) call.exprs).expressions;
             if (args.size() != 1) {
                 error(call, "'print' expects exactly 1 argument, found " + args.size());
-                return new UnitTypeChecker();
+                return Types.UNIT;
             }
             typeof(args.get(0), false); // validar tipo do argumento, mesmo que seja qualquer tipo
-            return new UnitTypeChecker();
+            return Types.UNIT;
         }
 
         if (call.id.equals("length")) {
             List<AstNode> args = ((Expressions) call.exprs).expressions;
             if (args.size() != 1) {
                 error(call, "'length' expects exactly 1 argument, found " + args.size());
-                return new IntTypeChecker(); // retornar algo para seguir a execução
+                return Types.INT; // retornar algo para seguir a execução
             }
 
             Type argType = typeof(args.get(0), false);
             if (!(argType instanceof ArrayTypeChecker arrayType)) {
                 error(args.get(0), "'length' expects an array argument, found " + argType);
-                return new IntTypeChecker();
+                return Types.INT;
             }
 
-            return new IntTypeChecker();
+            return Types.INT;
         }
-        Type type = context.get(call.id);
+        Type type = context.get(call.symbol);
         boolean hasErrors = false;
 
         if (type == null) {
@@ -417,7 +766,7 @@ public class Checker {
         }
 
         if (hasErrors) {
-            return new UnitTypeChecker();
+            return Types.UNIT;
         }
 
         FunctionTypeChecker fn = (FunctionTypeChecker) type;
@@ -466,28 +815,28 @@ public class Checker {
                 if (!(leftType instanceof IntTypeChecker) || !(rightType instanceof IntTypeChecker)) {
                     error(binOp, "Arithmetic operations require Int operands, found " + leftType + " and " + rightType);
                 }
-                return new IntTypeChecker();
+                return Types.INT;
             }
 
             case "<", "<=", ">", ">=" -> {
                 if (!(leftType instanceof IntTypeChecker) || !(rightType instanceof IntTypeChecker)) {
                     error(binOp, "Relational operators '" + binOp.op + "' require Int operands, found " + leftType + " and " + rightType);
                 }
-                return new BoolTypeChecker();
+                return Types.BOOL;
             }
 
             case "==", "!=" -> {
                 if (!leftType.equals(rightType)) {
                     error(binOp, "Equality operator '" + binOp.op + "' requires operands of the same type, found " + leftType + " and " + rightType);
                 }
-                return new BoolTypeChecker();
+                return Types.BOOL;
             }
 
             case "&&", "||" -> {
                 if (!(leftType instanceof BoolTypeChecker) || !(rightType instanceof BoolTypeChecker)) {
                     error(binOp, "Logical operations require Bool operands, found " + leftType + " and " + rightType);
                 }
-                return new BoolTypeChecker();
+                return Types.BOOL;
             }
 
             default -> throw new RuntimeException("Unknown binary operator: " + binOp.op);
@@ -506,19 +855,19 @@ public class Checker {
 
         if (!(arrayType instanceof ArrayTypeChecker arr)) {
             error(arrayAccess, "Trying to access something that is not an array: " + arrayType);
-            return new UndeclaredTypeChecker();
+            return Types.UNDECLARED;
         }
 
         int remainingDimensions = arr.getDimensions() - arrayAccess.indices.size();
         if (remainingDimensions < 0) {
             error(arrayAccess, "Too many indices for array of dimension " + arr.getDimensions());
-            return new UndeclaredTypeChecker();
+            return Types.UNDECLARED;
         }
 
         if (remainingDimensions == 0) {
             return arr.getElementType(); // final element type, like Int
         } else {
-            return new ArrayTypeChecker(arr.getElementType(), remainingDimensions);
+            return Types.array(arr.getElementType(), remainingDimensions);
         }
     }
 
@@ -526,10 +875,10 @@ public class Checker {
     private Type checkArrayCreation(ArrayCreation array) {
         // Determines the base type
         Type baseType = switch (array.baseType) {
-            case "Int" -> new IntTypeChecker();
-            case "Bool" -> new BoolTypeChecker();
-            case "String" -> new StringTypeChecker();
-            case "Unit" -> new UnitTypeChecker();
+            case "Int" -> Types.INT;
+            case "Bool" -> Types.BOOL;
+            case "String" -> Types.STRING;
+            case "Unit" -> Types.UNIT;
             default -> throw new RuntimeException("Unknown array base type: " + array.baseType);
         };
 
@@ -558,16 +907,16 @@ public class Checker {
             }
         }
 
-        return new ArrayTypeChecker(baseType, numberOfDimensions);
+        return Types.array(baseType, numberOfDimensions);
     }
 
     private Type convertType(AstNode node) {
         if (node instanceof BasicType basic) {
             return switch (basic.basicType) {
-                case "Int" -> new IntTypeChecker();
-                case "Bool" -> new BoolTypeChecker();
-                case "String" -> new StringTypeChecker();
-                case "Unit" -> new UnitTypeChecker();
+                case "Int" -> Types.INT;
+                case "Bool" -> Types.BOOL;
+                case "String" -> Types.STRING;
+                case "Unit" -> Types.UNIT;
                 default -> throw new RuntimeException("Unknown basic type: " + basic.basicType);
             };
         }
@@ -575,7 +924,7 @@ public class Checker {
         if (node instanceof ArrayType arr) {
             int dimensions = arr.dimensions;
             Type idType = convertType(arr.basicType);
-            return new ArrayTypeChecker(idType, dimensions); 
+            return Types.array(idType, dimensions); 
         }
 
         if (node instanceof TypeList typeList) {
@@ -583,13 +932,13 @@ public class Checker {
             for (AstNode t : typeList.typesParam) {
                 convertedTypes.add(convertType(t));
             }
-            return new MultiTypeList(convertedTypes); 
+            return Types.list(convertedTypes); 
         }
 
         if (node instanceof FunctionType fn) {
             Type from = convertType(fn.typeList);
             Type to = convertType(fn.returnType);
-            return new FunctionTypeChecker(from, to);
+            return Types.function(from, to);
         }
 
         throw new RuntimeException("Unknown AST type: " + node.getClass());
@@ -597,18 +946,27 @@ public class Checker {
 
 
     private void error(AstNode node, String message) {
+        if (captured != null) {
+            if (captured.size() < maxErrors) {
+                captured.add(new DeclarationError(node.getLine() - capturedLine, node.getColumn(), message));
+            }
+            capturedCount++;
+            return;
+        }
+        report(node.getLine(), node.getColumn(), message);
+    }
+
+    private void report(int line, int column, String message) {
         if(totalErrors < maxErrors) {
             hasErrors = true;
-            int line = node.getLine();
-            int column = node.getColumn();
             String location = String.format("Test Failed ❌\nError: (%d, %d) %s", line, column, message);
 
             errorMessages.append(location).append("\n");
 
             try {
-                List<String> lines = Files.readAllLines(Paths.get(currentFile));
-                if (line > 0 && line <= lines.size()) {
-                    String codeLine = lines.get(line - 1);
+                SourceFile source = source();
+                if (line > 0 && line <= source.lineCount()) {
+                    String codeLine = source.line(line);
                     errorMessages.append("↳  ").append(codeLine).append("\n");
                     errorMessages.append("   ").append(" ".repeat(column)).append("^\n");
                 }
@@ -618,4 +976,14 @@ public class Checker {
         }
         totalErrors ++;
     }
+
+    /**
+     * @return The source file, mapped by the first error that shows a line of it if it was not given
+     */
+    private SourceFile source() throws IOException {
+        if (source == null) {
+            source = SourceFile.open(Paths.get(currentFile));
+        }
+        return source;
+    }
 }
@@ -5,67 +5,76 @@ import aguda.types.*;
 import aguda.checker.*;
 import aguda.types.*;
 import aguda.codegen.datastructures.*;
+import aguda.context.Scopes;
+import aguda.events.CodegenDeclarationEvent;
 
 import java.util.List;
 import java.util.HashMap; // To map AGUDA variables to LLVM values/pointers
 import java.util.Map;
 import java.util.Set;
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.ArrayDeque;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CancellationException;
+import java.io.Serializable;
 
 
 public class CodeGenerator {
 
     private StringBuilder llvmCode;
-    public StringBuilder helperFunctions;
+    private final Map<String, String> helperFunctions = new LinkedHashMap<>(); // Helpers of the program, by name
+    private Map<String, String> declarationHelpers; // Helpers used by the declaration being generated
     private StringBuilder errorMessage;
+    private int errorCount;
+    private int registerCount; // Registers used by every declaration generated so far
+    private int labelCount; // Labels used by every declaration generated so far
     public int tempCounter; // Counter for generating unique LLVM temporary register names
     private int labelCounter; // Counter for generating unique LLVM label names
-    private Deque<Map<String, Ctx>> ctx = new ArrayDeque<>();
-    private boolean powFunctionDefined = false;
+    private final Scopes<Ctx> ctx = new Scopes<>(); // By the symbol ids of the identifiers
+    private Symbols symbols; // The identifiers of the program being generated
     private int maxErrors;
     private Set<String> reportedErrorLocations = new HashSet<>();
 
-    private static GenerateExpr generateExpr;
-    private static GenerateCondExpr generateCondExpr;
+    private final GenerateExpr generateExpr;
+    private final GenerateCondExpr generateCondExpr;
+
+    /**
+     * The code generated for one top-level declaration
+     *
+     * @param code Its LLVM code
+     * @param helpers The helpers it uses (printf and its formats, powi), by name, in the order they were needed
+     * @param hasErrors Whether some expression could not be generated
+     */
+    public record EmittedDeclaration(String code, Map<String, String> helpers, boolean hasErrors) implements Serializable {}
     
     /* --- Ctx operations --- */
-    private Map<String, Ctx> currentCtx() {
-        return ctx.peek();
-    }
-
     public void pushCtx() {
-        ctx.push(new HashMap<>());
+        ctx.begin();
     }
 
     public void popCtx() {
-        ctx.pop();
+        ctx.end();
     }
 
-    public void addToCtx(String name, Ctx value) {
-        currentCtx().put(name, value);
+    public void addToCtx(int symbol, Ctx value) {
+        ctx.put(symbol, value);
     }
 
-    public Ctx lookupCtx(String name) {
-        for (Map<String, Ctx> ctxNew : ctx) {
-            if (ctxNew.containsKey(name)) {
-                return ctxNew.get(name);
-            }
+    public Ctx lookupCtx(int symbol) {
+        if (symbol < 0) {
+            return null;
         }
-        return null;
+        return ctx.get(symbol);
     }
     /* ----------------------- */
 
     public CodeGenerator(int maxErrors) {
         this.llvmCode = new StringBuilder();
-        this.helperFunctions = new StringBuilder();
         this.errorMessage = new StringBuilder();;
         this.tempCounter = 1;
         this.labelCounter = 1;
-        this.ctx.push(new HashMap<>());
+        this.ctx.begin();
         this.maxErrors = maxErrors;
 
 
@@ -94,19 +103,62 @@ public class CodeGenerator {
         // Generate code for top-level declarations (functions and supported global variables)
         Program program = (Program) ast;
         for (AstNode declaration : program.declarations) {
+            emit(generateDeclaration(declaration, program));
+        }
+
+        return getCode();
+    }
+
+    /**
+     * Adds the global variables and functions of the program to the context.
+     * Must be called before generating its declarations one by one.
+     *
+     * @param program The validated program
+     */
+    public void prepare(Program program) {
+        buildInitialContext(program);
+    }
+
+    /**
+     * Generates the code of one top-level declaration, without adding it to the program (see {@link #emit}).
+     * Registers and labels are local to an LLVM function, so they are numbered from 1 in every declaration
+     * and its code only depends on the declaration itself and on the globals it uses. The registers of the
+     * variables have a dot in their names so that these numbers never make one of them the name of another
+     * register (see {@link #getNextVariableRegister}).
+     *
+     * @param declaration The declaration
+     * @param program The program it belongs to
+     * @return Its code
+     */
+    public EmittedDeclaration generateDeclaration(AstNode declaration, Program program) {
+        // Stops between two declarations when the thread was interrupted, e.g. by a test that timed out
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Interrupted");
+        }
+        StringBuilder programCode = llvmCode;
+        llvmCode = new StringBuilder();
+        declarationHelpers = new LinkedHashMap<>();
+        tempCounter = 1;
+        labelCounter = 1;
+        int errorsBefore = errorCount;
+        CodegenDeclarationEvent event = new CodegenDeclarationEvent();
+        event.begin();
+        try {
             if(declaration instanceof FunctionTypeDeclaration) {
                 AstNode idList = ((FunctionTypeDeclaration) declaration).idList;
                 String id = null;
+                int symbol = -1;
                 if(idList instanceof IdList) {
                     id = ((IdList) idList).id;
+                    symbol = ((IdList) idList).symbol;
                 }
 
-                AstNode exprs = ((FunctionTypeDeclaration) declaration).exprs;
+                AstNode exprs = ((FunctionTypeDeclaration) declaration).getExprs();
 
-                Ctx functionCtx = lookupCtx(id);
+                Ctx functionCtx = lookupCtx(symbol);
                 String reg = functionCtx.getReg();
                 Type type = functionCtx.getType();
-                String typeStr = convertAgudaTypetoLLVM(type, ast);  
+                String typeStr = convertAgudaTypetoLLVM(type, program);  
 
                 llvmCode.append("\ndefine ").append(typeStr).append(" ").append(reg).append("(");
 
@@ -128,7 +180,7 @@ public class CodeGenerator {
 
                 pushCtx();
 
-                addArgumentsToCtx(ids, types, id, ast);
+                addArgumentsToCtx(ids, types, id, program);
 
                 llvmCode.append(") {\n").append("entry:\n");
 
@@ -137,9 +189,9 @@ public class CodeGenerator {
                 for (AstNode paramIdNode : ids) {
                     if (paramIdNode instanceof Identifier) {
                         String paramName = ((Identifier) paramIdNode).value;
-                        String ctxLookupName = paramName.equals("_") ? "__wild" + localWildCounter++ : paramName;
-                        Ctx paramCtx = lookupCtx(ctxLookupName);
-                        String llvmType = convertAgudaTypetoLLVM((paramCtx != null ? paramCtx.getType() : null), ast);
+                        int ctxLookupSymbol = paramName.equals("_") ? symbols.intern("__wild" + localWildCounter++) : ((Identifier) paramIdNode).symbol;
+                        Ctx paramCtx = lookupCtx(ctxLookupSymbol);
+                        String llvmType = convertAgudaTypetoLLVM((paramCtx != null ? paramCtx.getType() : null), program);
                         String regId = paramCtx != null ? paramCtx.getReg() : null; 
                         String ptrName = paramCtx != null ? paramCtx.getPtr() : null;
 
@@ -173,12 +225,12 @@ public class CodeGenerator {
                 String id = ((VariableDeclaration) declaration).id;
                 AstNode expr = ((VariableDeclaration) declaration).exprs;
 
-                Ctx variableCtx = lookupCtx(id);
+                Ctx variableCtx = lookupCtx(((VariableDeclaration) declaration).symbol);
                 String reg = variableCtx.getReg();
                 Type type = variableCtx.getType();
                 ReturnExpr returnExpr = generateExpr.generateExpr(ctx, null, expr); 
                 String value = returnExpr.getValue();
-                String typeStr = convertAgudaTypetoLLVM(type, ast);  
+                String typeStr = convertAgudaTypetoLLVM(type, program);  
 
                 if (returnExpr.getCode() != null) { // This happens only in the case of unary operations
                     if(expr instanceof Expressions exprs) {
@@ -194,13 +246,54 @@ public class CodeGenerator {
 
                 llvmCode.append(reg).append(" = global ").append(typeStr).append(" ").append(value).append("\n"); 
             }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.declaration = declarationName(declaration);
+                event.line = declaration.getLine();
+                event.irBytes = llvmCode.length();
+                event.registers = tempCounter - 1;
+                event.labels = labelCounter - 1;
+                event.commit();
+            }
+            return new EmittedDeclaration(llvmCode.toString(), declarationHelpers, errorCount > errorsBefore);
+        } finally {
+            llvmCode = programCode;
+            declarationHelpers = null;
+            registerCount += tempCounter - 1;
+            labelCount += labelCounter - 1;
         }
+    }
 
-        return helperFunctions.toString() + llvmCode.toString();
+    /**
+     * Adds the code of a declaration to the program, after the declarations before it
+     *
+     * @param declaration What {@link #generateDeclaration} returned for it
+     */
+    public void emit(EmittedDeclaration declaration) {
+        llvmCode.append(declaration.code());
+        declaration.helpers().forEach(helperFunctions::putIfAbsent);
     }
 
+    /**
+     * @return The LLVM code of the program: the helpers, then every declaration emitted so far
+     */
+    public String getCode() {
+        return String.join("", helperFunctions.values()) + llvmCode.toString();
+    }
+
+
     /* ---------------------- HELPER FUNCTIONS ------------------- */
 
+    private static String declarationName(AstNode declaration) {
+        if (declaration instanceof FunctionTypeDeclaration function && function.idList instanceof IdList idList) {
+            return idList.id;
+        } else if (declaration instanceof VariableDeclaration variable) {
+            return variable.id;
+        }
+        return declaration.getClass().getSimpleName();
+    }
+
     /**
      * Adds all the global variables and functions to the context
      * 
@@ -208,23 +301,26 @@ public class CodeGenerator {
      */
     private void buildInitialContext(AstNode ast) {
         Program program = (Program) ast;
+        symbols = program.symbols;
         for (AstNode declaration : program.declarations) {
             if (declaration instanceof FunctionTypeDeclaration) {
                 //Adds the name of the function to the context
                 String id = null;
+                int symbol = -1;
                 AstNode idList = ((FunctionTypeDeclaration) declaration).idList;
                 if (idList instanceof IdList) {
                     id = ((IdList) idList).id;
+                    symbol = ((IdList) idList).symbol;
                 }
                 Type functionType = convertAstToType(((FunctionTypeDeclaration) declaration).functionType);
                 Ctx functionCtx = new Ctx(functionType, "@" + id.replaceAll("[^a-zA-Z0-9_]", "_"), null, true, null);
-                addToCtx(id, functionCtx);
+                addToCtx(symbol, functionCtx);
             } else if (declaration instanceof VariableDeclaration) {
                 // Adds the name of the variable to the context
                 String id = ((VariableDeclaration) declaration).id;
                 Type variableType = convertAstToType(((VariableDeclaration) declaration).typeElem);
-                Ctx variableCtx = new Ctx(variableType, "@" + id, "%ptr_" + id.replaceAll("[^a-zA-Z0-9_]", "_") + tempCounter++, false, null);
-                addToCtx(id, variableCtx);
+                Ctx variableCtx = new Ctx(variableType, "@" + id, getNextVariableRegister("ptr", id), false, null);
+                addToCtx(((VariableDeclaration) declaration).symbol, variableCtx);
             } 
         }
     }
@@ -238,9 +334,9 @@ public class CodeGenerator {
     public Type convertAstToType(AstNode astNode) {
         if (astNode instanceof BasicType basic) {
             Type type = switch (basic.basicType) {
-                case "Int" -> new IntTypeChecker();
-                case "Bool" -> new BoolTypeChecker();
-                case "Unit" -> new UnitTypeChecker();
+                case "Int" -> Types.INT;
+                case "Bool" -> Types.BOOL;
+                case "Unit" -> Types.UNIT;
                 default -> null;
             };
 
@@ -255,9 +351,9 @@ public class CodeGenerator {
 
             if (returnType instanceof BasicType basicReturn) {
                 Type type = switch (basicReturn.basicType) {
-                    case "Int" -> new IntTypeChecker();
-                    case "Bool" -> new BoolTypeChecker();
-                    case "Unit" -> new UnitTypeChecker();
+                    case "Int" -> Types.INT;
+                    case "Bool" -> Types.BOOL;
+                    case "Unit" -> Types.UNIT;
                     default -> null;
                 };
 
@@ -349,6 +445,7 @@ public class CodeGenerator {
 
             if (ids.get(i) instanceof Identifier) {
                 String id = ((Identifier) ids.get(i)).value;
+                int symbol = ((Identifier) ids.get(i)).symbol;
 
                 Type type = convertAstToType(types.get(i));
                 String typeStr = convertAgudaTypetoLLVM(type, node);
@@ -357,19 +454,20 @@ public class CodeGenerator {
                 boolean isWildcard = id.equals("_");
                 if (isWildcard) {
                     id = "__wild" + wildcardCounter++; // generate unique internal name
+                    symbol = symbols.intern(id);
                 }
                 // Add the argument to the context
                 Ctx argumentCtx = new Ctx(
                     type,
-                    "%" + id,
-                    "%ptr_" + id.replaceAll("[^a-zA-Z0-9_]", "_") + tempCounter++,
+                    "%arg." + id,
+                    getNextVariableRegister("ptr", id),
                     false,
                     functionName
                 );
-                addToCtx(id, argumentCtx);
+                addToCtx(symbol, argumentCtx);
 
                 // Append the argument to the global LLVM code stringbuilder
-                llvmCode.append(typeStr).append(" ").append("%").append(id);
+                llvmCode.append(typeStr).append(" ").append(argumentCtx.getReg());
 
                 // Add ", " if not the last argument
                 if (i != ids.size() - 1) {
@@ -383,9 +481,7 @@ public class CodeGenerator {
      * Generates code for the exponent operation
      */
     public void definePowFunction() {
-        if (powFunctionDefined) return;
-
-        helperFunctions.append("""
+        defineHelper("@powi", """
         define i32 @powi(i32 %base, i32 %exp) {
         entry:
             %result = alloca i32
@@ -416,8 +512,6 @@ public class CodeGenerator {
             ret i32 %final
         }\n
         """);
-
-        powFunctionDefined = true;
     }
 
     /**
@@ -428,11 +522,17 @@ public class CodeGenerator {
      * @param name The name of the new variable defined
      */
     public void definePrintfFormat(String content, String type, String name) {
-        if (!helperFunctions.toString().contains(name)) {
-            helperFunctions.append(name)
-                .append(" = private unnamed_addr constant ")
-                .append(type).append(" c\"").append(content).append("\", align 1\n");
-        }
+        defineHelper(name, name + " = private unnamed_addr constant " + type + " c\"" + content + "\", align 1\n");
+    }
+
+    /**
+     * Defines a global used by the generated code (a helper function, declaration or constant), once per program
+     *
+     * @param name The LLVM name of the global
+     * @param code Its definition
+     */
+    public void defineHelper(String name, String code) {
+        declarationHelpers.putIfAbsent(name, code);
     }
 
     /**
@@ -441,6 +541,7 @@ public class CodeGenerator {
      * @param node The node where the error happened
      */
     public void addErrorMessage(AstNode node) {
+        errorCount++;
         if (maxErrors > 0) {
             String locationKey = "";
             String locationDisplay = "";
@@ -484,6 +585,20 @@ public class CodeGenerator {
         return "%v" + tempCounter++;
     }
 
+    /**
+     * Creates an unique register for a variable of the program, "%<name>.<n>", or "%<prefix>.<name>.<n>" for
+     * its pointer. The counter is the one of the temporaries, which starts again in every declaration, so the
+     * dots keep the names apart from theirs ("%v1" + 13 would be the temporary "%v113") and from each other.
+     *
+     * @param prefix What the register holds, e.g. "ptr", or null for the value itself
+     * @param name The name of the variable
+     * @return A string with the unique register
+     */
+    public String getNextVariableRegister(String prefix, String name) {
+        String variable = name.replaceAll("[^a-zA-Z0-9_]", "_") + "." + tempCounter++;
+        return prefix == null ? "%" + variable : "%" + prefix + "." + variable;
+    }
+
     /**
      * Creates an unique label
      * 
@@ -494,6 +609,20 @@ public class CodeGenerator {
         return name + labelCounter++;
     }
 
+    /**
+     * @return How many registers (tempCounter) were used by the declarations generated so far
+     */
+    public int getRegisterCount() {
+        return registerCount;
+    }
+
+    /**
+     * @return How many labels (labelCounter) were used by the declarations generated so far
+     */
+    public int getLabelCount() {
+        return labelCount;
+    }
+
     /**
      * Gets the error message
      * 
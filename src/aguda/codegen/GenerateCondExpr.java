@@ -1,19 +1,24 @@
 package aguda.codegen;
 
-import java.util.Deque;
 import java.util.List;
-import java.util.Map;
 
 import aguda.ast.*;
+import aguda.context.Scopes;
 import aguda.codegen.datastructures.*;
 
-public class GenerateCondExpr {
+public class GenerateCondExpr implements AstVisitor<ReturnCondExpr> {
 
-    private static CodeGenerator codeGenerator;
+    private final CodeGenerator codeGenerator;
     private GenerateExpr generateExpr; // Remover 'static' e inicializar via construtor
 
+    // The arguments of the last call to generateCondExpr, copied by each visit method before it generates its children
+    private Scopes<Ctx> ctx;
+    private String label;
+    private String tt;
+    private String ff;
+
     public GenerateCondExpr(CodeGenerator codeGenerator, GenerateExpr generateExpr) { // Adicionar GenerateExpr como parâmetro
-        GenerateCondExpr.codeGenerator = codeGenerator;
+        this.codeGenerator = codeGenerator;
         this.generateExpr = generateExpr; // Atribuir a instância passada
     }
 
@@ -29,135 +34,251 @@ public class GenerateCondExpr {
      * @return A variable with ReturnExpr type having the code, value, 
      *         type and label (exit label) of the expression
      */
-    public ReturnCondExpr generateCondExpr(Deque<Map<String, Ctx>> ctx, String label, String tt, String ff, AstNode node) {
-        /* --- Simple booleans --- */
-        if (node instanceof BoolLiteral) {
-            boolean val = ((BoolLiteral) node).value;
-            String code = val ? "\tbr label %" + tt + "\n" : "\tbr label %" + ff + "\n";
-            String outLabel = val ? tt : ff;
-            return new ReturnCondExpr(code, outLabel);
-        }
+    public ReturnCondExpr generateCondExpr(Scopes<Ctx> ctx, String label, String tt, String ff, AstNode node) {
+        this.ctx = ctx;
+        this.label = label;
+        this.tt = tt;
+        this.ff = ff;
+        return node.accept(this);
+    }
 
-        /* --- Unary expressions --- */
-        else if(node instanceof UnaryOp) {
-            UnaryOp unaryOp = (UnaryOp) node;
+    /* --- Simple booleans --- */
+    @Override
+    public ReturnCondExpr visitBoolLiteral(BoolLiteral node) {
+        boolean val = node.value;
+        String code = val ? "\tbr label %" + tt + "\n" : "\tbr label %" + ff + "\n";
+        String outLabel = val ? tt : ff;
+        return new ReturnCondExpr(code, outLabel);
+    }
 
-            if(unaryOp.op.equals("!")) {
-                // Invertion of true and false labels
-                return generateCondExpr(ctx, label, ff, tt, unaryOp.expr);
-            } else {
-                codeGenerator.addErrorMessage(node);
-            }
+    /* --- Unary expressions --- */
+    @Override
+    public ReturnCondExpr visitUnaryOp(UnaryOp unaryOp) {
+        if(unaryOp.op.equals("!")) {
+            // Invertion of true and false labels
+            return generateCondExpr(ctx, label, ff, tt, unaryOp.expr);
+        } else {
+            codeGenerator.addErrorMessage(unaryOp);
         }
 
-        /* --- Binary expressions --- */
-        else if (node instanceof BinaryOp) {
-            BinaryOp binaryOp = (BinaryOp) node;
-            
-            if (binaryOp.op.equals("&&")) {
-                String l2 = codeGenerator.getNextLabel("and");
+        codeGenerator.addErrorMessage(unaryOp);
+        return new ReturnCondExpr("", label);
+    }
 
-                // e1 == true -> continues to e2 (l2)
-                // e1 == false -> jumps to ff ff
-                ReturnCondExpr r1 = generateCondExpr(ctx, label, l2, ff, binaryOp.left);
+    /* --- Binary expressions --- */
+    @Override
+    public ReturnCondExpr visitBinaryOp(BinaryOp binaryOp) {
+        Scopes<Ctx> ctx = this.ctx;
+        String label = this.label;
+        String tt = this.tt;
+        String ff = this.ff;
 
-                // Uses the exit label of r1 to continue (case e1 == true)
-                ReturnCondExpr r2 = generateCondExpr(ctx, l2, tt, ff, binaryOp.right);
+        if (binaryOp.op.equals("&&")) {
+            String l2 = codeGenerator.getNextLabel("and");
 
-                String r1Code = r1.getCode() != null ? r1.getCode() : "";
-                String r2Code = r2.getCode() != null ? r2.getCode() : "";
+            // e1 == true -> continues to e2 (l2)
+            // e1 == false -> jumps to ff ff
+            ReturnCondExpr r1 = generateCondExpr(ctx, label, l2, ff, binaryOp.left);
 
-                String code = r1Code + l2 + ":\n\t" + r2Code;
+            // Uses the exit label of r1 to continue (case e1 == true)
+            ReturnCondExpr r2 = generateCondExpr(ctx, l2, tt, ff, binaryOp.right);
 
-                return new ReturnCondExpr(code, r2.getLabel());
+            String r1Code = r1.getCode() != null ? r1.getCode() : "";
+            String r2Code = r2.getCode() != null ? r2.getCode() : "";
 
-            } else if (binaryOp.op.equals("||")) {
-                String l2 = codeGenerator.getNextLabel("or");
+            String code = r1Code + l2 + ":\n\t" + r2Code;
 
-                // e1 == true -> jumps to tt
-                // e1 == false -> continues to e2 (l2)
-                ReturnCondExpr r1 = generateCondExpr(ctx, label, tt, l2, binaryOp.left);
+            return new ReturnCondExpr(code, r2.getLabel());
 
-                // Uses the exit label of ri to continue (case e1 == false)
-                ReturnCondExpr r2 = generateCondExpr(ctx, l2, tt, ff, binaryOp.right);
+        } else if (binaryOp.op.equals("||")) {
+            String l2 = codeGenerator.getNextLabel("or");
 
-                String r1Code = r1.getCode() != null ? r1.getCode() : "";
-                String r2Code = r2.getCode() != null ? r2.getCode() : "";
+            // e1 == true -> jumps to tt
+            // e1 == false -> continues to e2 (l2)
+            ReturnCondExpr r1 = generateCondExpr(ctx, label, tt, l2, binaryOp.left);
 
-                String code = r1Code + l2 + ":\n\t" + r2Code;
+            // Uses the exit label of ri to continue (case e1 == false)
+            ReturnCondExpr r2 = generateCondExpr(ctx, l2, tt, ff, binaryOp.right);
 
-                return new ReturnCondExpr(code, r2.getLabel());
-            } else if (List.of("==", "!=", "<", "<=", ">", ">=").contains(binaryOp.op)) {
-                ReturnExpr left = generateExpr.generateExpr(ctx, label, binaryOp.left);
-                ReturnExpr right = generateExpr.generateExpr(ctx, left.getLabel(), binaryOp.right);
+            String r1Code = r1.getCode() != null ? r1.getCode() : "";
+            String r2Code = r2.getCode() != null ? r2.getCode() : "";
 
-                String cmpOp = null;
+            String code = r1Code + l2 + ":\n\t" + r2Code;
 
-                switch (binaryOp.op) {
-                    case "==": cmpOp = "eq"; break;
-                    case "!=": cmpOp = "ne"; break;
-                    case "<":  cmpOp = "slt"; break;
-                    case "<=": cmpOp = "sle"; break;
-                    case ">":  cmpOp = "sgt"; break;
-                    case ">=": cmpOp = "sge"; break;
-                    default: codeGenerator.addErrorMessage(node);
-                }
+            return new ReturnCondExpr(code, r2.getLabel());
+        } else if (List.of("==", "!=", "<", "<=", ">", ">=").contains(binaryOp.op)) {
+            ReturnExpr left = generateExpr.generateExpr(ctx, label, binaryOp.left);
+            ReturnExpr right = generateExpr.generateExpr(ctx, left.getLabel(), binaryOp.right);
 
-                String llvmType = codeGenerator.convertAgudaTypetoLLVM(left.getType(), node);  
-                String tmpVar = codeGenerator.getNextRegister();
+            String cmpOp = null;
 
-                String code = (left.getCode() != null ? left.getCode() : "") + 
-                            (right.getCode() != null ? right.getCode() : "") +
-                            String.format("\t%s = icmp %s %s %s, %s\n", tmpVar, cmpOp, llvmType, left.getValue(), right.getValue()) +
-                            String.format("\tbr i1 %s, label %%%s, label %%%s\n", tmpVar, tt, ff);
+            switch (binaryOp.op) {
+                case "==": cmpOp = "eq"; break;
+                case "!=": cmpOp = "ne"; break;
+                case "<":  cmpOp = "slt"; break;
+                case "<=": cmpOp = "sle"; break;
+                case ">":  cmpOp = "sgt"; break;
+                case ">=": cmpOp = "sge"; break;
+                default: codeGenerator.addErrorMessage(binaryOp);
+            }
+
+            String llvmType = codeGenerator.convertAgudaTypetoLLVM(left.getType(), binaryOp);  
+            String tmpVar = codeGenerator.getNextRegister();
+
+            String code = (left.getCode() != null ? left.getCode() : "") + 
+                        (right.getCode() != null ? right.getCode() : "") +
+                        String.format("\t%s = icmp %s %s %s, %s\n", tmpVar, cmpOp, llvmType, left.getValue(), right.getValue()) +
+                        String.format("\tbr i1 %s, label %%%s, label %%%s\n", tmpVar, tt, ff);
+
+            return new ReturnCondExpr(code, right.getLabel());
+        } else {
+            codeGenerator.addErrorMessage(binaryOp);
+        }
+
+        codeGenerator.addErrorMessage(binaryOp);
+        return new ReturnCondExpr("", label);
+    }
 
-                return new ReturnCondExpr(code, right.getLabel());
+    /* --- List of expressions --- */
+    @Override
+    public ReturnCondExpr visitExpressions(Expressions expressions) {
+        Scopes<Ctx> ctx = this.ctx;
+        String label = this.label;
+        String tt = this.tt;
+        String ff = this.ff;
+
+        List<AstNode> exprs = expressions.expressions;
+        StringBuilder code = new StringBuilder(); 
+
+        for(int i = 0; i < exprs.size(); i++) {
+            ReturnCondExpr returnCondExpr = generateCondExpr(ctx, label, tt, ff, exprs.get(i));
+            label = returnCondExpr.getLabel();
+
+            String codeExpr =  returnCondExpr.getCode();
+            
+            if(i == exprs.size() - 1) {
+                if(codeExpr != null) code.append(codeExpr);
             } else {
-                codeGenerator.addErrorMessage(node);
+                if(codeExpr != null) code.append(codeExpr).append(";");
             }
         }
 
-        /* --- List of expressions --- */
-        else if (node instanceof Expressions) {
-            Expressions expressions = (Expressions) node;
-            List<AstNode> exprs = expressions.expressions;
-            StringBuilder code = new StringBuilder(); 
-
-            for(int i = 0; i < exprs.size(); i++) {
-                ReturnCondExpr returnCondExpr = generateCondExpr(ctx, label, tt, ff, exprs.get(i));
-                label = returnCondExpr.getLabel();
-
-                String codeExpr =  returnCondExpr.getCode();
-                
-                if(i == exprs.size() - 1) {
-                    if(codeExpr != null) code.append(codeExpr);
-                } else {
-                    if(codeExpr != null) code.append(codeExpr).append(";");
-                }
-            }
+        return new ReturnCondExpr(code.toString(), label);
+    }
 
-            return new ReturnCondExpr(code.toString(), label);
-        }
+    /* --- Parenthical expressions --- */
+    @Override
+    public ReturnCondExpr visitParenthicalExpression(ParenthicalExpression paren) {
+        return generateCondExpr(ctx, label, tt, ff, paren.expression);
+    }
 
-        /* --- Parenthical expressions --- */
-        else if (node instanceof ParenthicalExpression) {
-            ParenthicalExpression paren = (ParenthicalExpression) node;
-            return generateCondExpr(ctx, label, tt, ff, paren.expression);
-        }
+    /* --- Any other expression: its value, then a branch on it --- */
+    private ReturnCondExpr value(AstNode node) {
+        String tt = this.tt;
+        String ff = this.ff;
+        ReturnExpr returnExpr = generateExpr.generateExpr(ctx, label, node);
 
-        else {
-            ReturnExpr returnExpr = generateExpr.generateExpr(ctx, label, node);
-    
-            String llvmCode = returnExpr.getCode() != null ? returnExpr.getCode() : "";
-            String condVar = returnExpr.getValue(); 
+        String llvmCode = returnExpr.getCode() != null ? returnExpr.getCode() : "";
+        String condVar = returnExpr.getValue(); 
 
-            llvmCode += String.format("\n\tbr i1 %s, label %%%s, label %%%s\n", condVar, tt, ff);
+        llvmCode += String.format("\n\tbr i1 %s, label %%%s, label %%%s\n", condVar, tt, ff);
 
-            return new ReturnCondExpr(llvmCode, returnExpr.getLabel());
-        }
+        return new ReturnCondExpr(llvmCode, returnExpr.getLabel());
+    }
 
-        codeGenerator.addErrorMessage(node);
-        return new ReturnCondExpr("", label);
+    @Override
+    public ReturnCondExpr visitProgram(Program node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitVariableDeclaration(VariableDeclaration node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitFunctionTypeDeclaration(FunctionTypeDeclaration node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitIdList(IdList node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitFunctionType(FunctionType node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitTypeList(TypeList node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitBasicType(BasicType node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitArrayType(ArrayType node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitLetExpression(LetExpression node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitIfExpression(IfExpression node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitSetExpression(SetExpression node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitWhileExpression(WhileExpression node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitCallFunctionExpression(CallFunctionExpression node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitArrayAccess(ArrayAccess node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitArrayCreation(ArrayCreation node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitIdentifier(Identifier node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitIntLiteral(IntLiteral node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitStringLiteral(StringLiteral node) {
+        return value(node);
+    }
+
+    @Override
+    public ReturnCondExpr visitNullLiteral(NullLiteral node) {
+        return value(node);
     }
     
 }
@@ -2,54 +2,51 @@ package aguda.context;
 
 import aguda.types.Type;
 
-import java.util.*;
-
+/**
+ * The scopes of the checker, innermost first, keyed by the symbol ids of the identifiers (see
+ * {@link aguda.ast.Symbols}) so that resolving a name never hashes or compares strings. They are kept in a
+ * {@link Scopes}, so checking a body allocates nothing here once the stack is as deep as the body needs.
+ */
 public class Context {
 
-    private final Deque<Map<String, Type>> scopes;
+    private final Scopes<Type> scopes;
 
     public Context() {
-        scopes = new ArrayDeque<>();
+        scopes = new Scopes<>();
         beginScope(); // inicia com escopo global
     }
 
+    /**
+     * A context whose global scope is the one of another context. It is only read through this one, so several
+     * of them can be used on different threads while the other context does not change.
+     *
+     * @param globals The context with the globals
+     */
+    public Context(Context globals) {
+        scopes = new Scopes<>(globals.scopes);
+    }
+
     public void beginScope() {
-        scopes.push(new HashMap<>());
+        scopes.begin();
     }
 
     public void endScope() {
-        if (scopes.isEmpty()) {
-            throw new IllegalStateException("No scope to end.");
-        }
-        scopes.pop();
+        scopes.end();
     }
 
-    public void add(String id, Type type) {
-        if (scopes.isEmpty()) {
-            throw new IllegalStateException("No scope to insert into.");
-        }
-        scopes.peek().put(id, type);
+    public void add(int id, Type type) {
+        scopes.put(id, type);
     }
 
-    public boolean contains(String id) {
-        for (Map<String, Type> scope : scopes) {
-            if (scope.containsKey(id)) return true;
-        }
-        return false;
+    public boolean contains(int id) {
+        return scopes.contains(id);
     }
 
-    public Type get(String id) {
-        for (Map<String, Type> scope : scopes) {
-            if (scope.containsKey(id)) {
-                return scope.get(id);
-            }
-        }
-        return null;
+    public Type get(int id) {
+        return scopes.get(id);
     }
 
-    public void remove(String id) {
-        if (!scopes.isEmpty()) {
-            scopes.peek().remove(id);
-        }
+    public void remove(int id) {
+        scopes.remove(id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package aguda.context;
+
+import java.util.Arrays;
+
+/**
+ * A stack of scopes, innermost on top, keyed by the symbol ids of the identifiers (see {@link aguda.ast.Symbols}).
+ * The maps of the scopes that ended are kept and cleared for the next scopes at the same depth, and lookups walk
+ * the stack by index with one probe per scope, so that opening a scope or resolving a name allocates nothing
+ * once the stack is as deep as the program needs. Used by the checker (see {@link Context}) and the code
+ * generator.
+ */
+public final class Scopes<V> {
+    private SymbolMap<V>[] maps = newMaps(16);
+    private int depth;
+
+    public Scopes() {
+    }
+
+    /**
+     * Scopes whose outermost one is the outermost of other scopes, shared and not copied. It is only read through
+     * these, so several of them can be used on different threads while the others do not change.
+     *
+     * @param outer The scopes with the outermost one
+     */
+    public Scopes(Scopes<V> outer) {
+        maps[0] = outer.maps[0];
+        depth = 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> SymbolMap<V>[] newMaps(int length) {
+        return (SymbolMap<V>[]) new SymbolMap<?>[length];
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public void begin() {
+        if (depth == maps.length) {
+            maps = Arrays.copyOf(maps, depth * 2);
+        }
+        if (maps[depth] == null) {
+            maps[depth] = new SymbolMap<>();
+        } else {
+            maps[depth].clear();
+        }
+        depth++;
+    }
+
+    public void end() {
+        if (depth == 0) {
+            throw new IllegalStateException("No scope to end.");
+        }
+        depth--;
+    }
+
+    /**
+     * Binds the id in the innermost scope
+     */
+    public void put(int id, V value) {
+        if (depth == 0) {
+            throw new IllegalStateException("No scope to insert into.");
+        }
+        maps[depth - 1].put(id, value);
+    }
+
+    public boolean contains(int id) {
+        for (int i = depth - 1; i >= 0; i--) {
+            if (maps[i].containsKey(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The value of the id in the innermost scope that has it, or null if none does
+     */
+    public V get(int id) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int slot = maps[i].find(id);
+            if (slot >= 0) {
+                return maps[i].valueAt(slot);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the id from the innermost scope, if it is there
+     */
+    public void remove(int id) {
+        if (depth > 0) {
+            maps[depth - 1].remove(id);
+        }
+    }
+}
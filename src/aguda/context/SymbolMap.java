@@ -0,0 +1,138 @@
+package aguda.context;
+
+import java.util.Arrays;
+
+/**
+ * A map from symbol ids (see {@link aguda.ast.Symbols}) to values, in two arrays with open addressing, so that a
+ * lookup hashes and compares ints instead of strings, and allocates nothing. Ids are never negative. Like a
+ * HashMap, the arrays are only allocated by the first put, as most scopes stay empty.
+ */
+public final class SymbolMap<V> {
+    private static final int FREE = -1;
+    // Shared by the maps nothing was put in yet, which have one free slot
+    private static final int[] EMPTY_KEYS = {FREE};
+    private static final Object[] EMPTY_VALUES = new Object[1];
+
+    private int[] keys = EMPTY_KEYS;
+    private Object[] values = EMPTY_VALUES;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        return keys[slot(key)] == key;
+    }
+
+    /**
+     * @return The value of the key, or null if it has none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = slot(key);
+        return keys[slot] == key ? (V) values[slot] : null;
+    }
+
+    /**
+     * @return The slot of the key, to read its value with {@link #valueAt}, or -1 if it has none
+     */
+    public int find(int key) {
+        int slot = slot(key);
+        return keys[slot] == key ? slot : -1;
+    }
+
+    /**
+     * @param slot A slot returned by {@link #find}, with no put or remove since
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    public void put(int key, V value) {
+        if (keys == EMPTY_KEYS) {
+            keys = new int[8];
+            Arrays.fill(keys, FREE);
+            values = new Object[8];
+        }
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                values[slot] = value;
+                grow();
+                return;
+            }
+        }
+        values[slot] = value;
+    }
+
+    public void remove(int key) {
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            return;
+        }
+        size--;
+        // Moves back the entries that follow it in its run, so that no lookup stops at the hole
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = FREE;
+        values[hole] = null;
+    }
+
+    /**
+     * Removes every entry, keeping the arrays unless they grew large, so that a map can be used again for
+     * another scope of about the same size without allocating
+     */
+    public void clear() {
+        if (keys.length > 64) {
+            keys = EMPTY_KEYS;
+            values = EMPTY_VALUES;
+        } else if (size > 0) {
+            Arrays.fill(keys, FREE);
+            Arrays.fill(values, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * @return The slot of the key, or the free slot where it would go
+     */
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        values = new Object[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,18 @@
+package aguda.events;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for building the AST of one file from its parse tree
+ */
+@Name("aguda.AstBuild")
+@Label("AST Build")
+@Category({"AGUDA", "Front end"})
+@StackTrace(false)
+public class AstBuildEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Declarations")
+    public int declarations;
+}
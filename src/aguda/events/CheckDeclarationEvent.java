@@ -0,0 +1,24 @@
+package aguda.events;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for the semantic check of one top-level declaration
+ */
+@Name("aguda.CheckDeclaration")
+@Label("Check Declaration")
+@Category({"AGUDA", "Checker"})
+@StackTrace(false)
+public class CheckDeclarationEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Declaration")
+    public String declaration;
+
+    @Label("Line")
+    public int line;
+
+    @Label("Errors")
+    public int errors;
+}
@@ -0,0 +1,28 @@
+package aguda.events;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for generating the LLVM code of one top-level declaration (a function or a global variable)
+ */
+@Name("aguda.CodegenDeclaration")
+@Label("Codegen Declaration")
+@Category({"AGUDA", "Code generator"})
+@StackTrace(false)
+public class CodegenDeclarationEvent extends Event {
+    @Label("Declaration")
+    public String declaration;
+
+    @Label("Line")
+    public int line;
+
+    @Label("IR Size")
+    @DataAmount
+    public int irBytes;
+
+    @Label("Registers")
+    public int registers;
+
+    @Label("Labels")
+    public int labels;
+}
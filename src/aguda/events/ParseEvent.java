@@ -0,0 +1,25 @@
+package aguda.events;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for parsing one file (lexing included)
+ */
+@Name("aguda.Parse")
+@Label("Parse")
+@Category({"AGUDA", "Front end"})
+@StackTrace(false)
+public class ParseEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Tokens")
+    public int tokens;
+
+    @Label("Syntax Errors")
+    public int syntaxErrors;
+
+    @Label("LL Fallback")
+    @Description("Whether the SLL stage failed and the file was parsed again with full LL prediction")
+    public boolean llFallback;
+}
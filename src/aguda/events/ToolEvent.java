@@ -0,0 +1,21 @@
+package aguda.events;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for one external process started by the compiler (llc, clang, lli, chmod or the program itself)
+ */
+@Name("aguda.Tool")
+@Label("External Tool")
+@Category({"AGUDA", "Back end"})
+@StackTrace(false)
+public class ToolEvent extends Event {
+    @Label("Tool")
+    public String tool;
+
+    @Label("Command")
+    public String command;
+
+    @Label("Exit Code")
+    public int exitCode;
+}
@@ -0,0 +1,653 @@
+package aguda.parser;
+
+import aguda.ast.*;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Hand-written recursive-descent parser for Aguda.g4 that builds the AST directly from the tokens of a
+ * {@link FastLexer}, without a parse tree and without {@link AstBuilder}. Operators are parsed by precedence
+ * climbing instead of through the chain of left-recursive rules (logicalexpression, logical, unaryLogicalExpr,
+ * arithmeticExpr, term, factor), so an operand costs one call instead of one context per level.
+ *
+ * The AST is the same as the one AstBuilder builds from the ANTLR parse tree, nodes and positions included.
+ * Errors are reported to the listeners like ANTLR does ("mismatched input 'x' expecting ..."), but parsing stops
+ * at the first syntax error instead of recovering, and the expected tokens are the ones of the rule being parsed,
+ * so it is not a replacement for ANTLR's error reports: app.Main parses a program that has errors again with
+ * ANTLR, including one with a lazy body that turns out not to parse.
+ *
+ * With lazy bodies, only the header of a top-level function is parsed, its body is skipped by looking at the
+ * tokens alone and parsed when it is first needed, so tools that only look at signatures, or check a few
+ * declarations, do not pay for the rest.
+ *
+ * The top-level declarations can also be parsed in parallel on a fork-join pool, see {@link #program(ForkJoinPool)}.
+ */
+public class DescentParser {
+    // Binding power of the binary operators, 0 for any other token. NOT binds between comparisons and arithmetic
+    private static final int LOGICAL = 1;
+    private static final int COMPARISON = 2;
+    private static final int NOT = 3;
+    private static final int ADDITIVE = 4;
+    private static final int MULTIPLICATIVE = 5;
+    private static final int POWER = 6;
+    private static final int[] PRECEDENCE = new int[AgudaLexer.VOCABULARY.getMaxTokenType() + 1];
+
+    static {
+        PRECEDENCE[AgudaLexer.AND] = LOGICAL;
+        PRECEDENCE[AgudaLexer.OR] = LOGICAL;
+        for (int op : new int[] {AgudaLexer.EQ, AgudaLexer.NEQ, AgudaLexer.LT, AgudaLexer.LE, AgudaLexer.GT, AgudaLexer.GE}) {
+            PRECEDENCE[op] = COMPARISON;
+        }
+        PRECEDENCE[AgudaLexer.PLUS] = ADDITIVE;
+        PRECEDENCE[AgudaLexer.MINUS] = ADDITIVE;
+        PRECEDENCE[AgudaLexer.MUL] = MULTIPLICATIVE;
+        PRECEDENCE[AgudaLexer.DIV] = MULTIPLICATIVE;
+        PRECEDENCE[AgudaLexer.MOD] = MULTIPLICATIVE;
+        PRECEDENCE[AgudaLexer.POW] = POWER;
+    }
+
+    private static final IntervalSet BASIC_TYPE = set(AgudaLexer.INTTYPE, AgudaLexer.BOOLTYPE, AgudaLexer.STRINGTYPE, AgudaLexer.UNITTYPE);
+    private static final IntervalSet PRIMARY = set(AgudaLexer.INT, AgudaLexer.MINUS, AgudaLexer.ID, AgudaLexer.NULL,
+            AgudaLexer.BOOLEAN, AgudaLexer.STRING, AgudaLexer.LEFTPAREN);
+    private static final IntervalSet EXPR = set(AgudaLexer.SET, AgudaLexer.IF, AgudaLexer.WHILE, AgudaLexer.NEW,
+            AgudaLexer.NOT, AgudaLexer.LET).or(PRIMARY);
+    // The tokens an expression can end with
+    private static final IntervalSet EXPR_END = set(AgudaLexer.INT, AgudaLexer.ID, AgudaLexer.NULL, AgudaLexer.BOOLEAN,
+            AgudaLexer.STRING, AgudaLexer.RIGHTPAREN, AgudaLexer.RIGHTBRACKETS);
+    // Below this many tokens a chunk of declarations is not split any further
+    private static final int MIN_CHUNK_TOKENS = 1 << 14;
+
+    /**
+     * Thrown at the first syntax error, after reporting it. It is only seen outside of this class when the body
+     * of a function that was left for later turns out not to parse, the first time it is needed.
+     */
+    public static final class SyntaxError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SyntaxError(int line, int column, String message) {
+            super(String.format("Syntactic error: line %d, column %d\nDescription: %s", line, column, message), null, false, false);
+        }
+    }
+
+    private final FastLexer.Tokens tokens;
+    private final ANTLRErrorListener lexerListener;
+    private final ANTLRErrorListener parserListener;
+    private final boolean lazyBodies;
+    private int p;
+    private int nextError;
+    private int syntaxErrors;
+    // Whether errors are only thrown, and not reported, while parsing a chunk of declarations
+    private boolean silent;
+    // Whether program(pool) cut the program where it does not parse, and parsed it again in one piece
+    private boolean fellBack;
+
+    /**
+     * @param tokens The tokens of the program
+     * @param lexerListener Where lexical errors are reported
+     * @param parserListener Where syntax errors are reported
+     */
+    public DescentParser(FastLexer.Tokens tokens, ANTLRErrorListener lexerListener, ANTLRErrorListener parserListener) {
+        this(tokens, lexerListener, parserListener, false);
+    }
+
+    /**
+     * @param lazyBodies Whether the bodies of the top-level functions are only skipped, and parsed the first time
+     *                   {@link FunctionTypeDeclaration#getExprs} is called. A syntax error in one of them is then
+     *                   reported to the listener at that point, and getExprs throws a {@link SyntaxError}.
+     */
+    public DescentParser(FastLexer.Tokens tokens, ANTLRErrorListener lexerListener, ANTLRErrorListener parserListener,
+                         boolean lazyBodies) {
+        this.tokens = tokens;
+        this.lexerListener = lexerListener;
+        this.parserListener = parserListener;
+        this.lazyBodies = lazyBodies;
+    }
+
+    public int getNumberOfSyntaxErrors() {
+        return syntaxErrors;
+    }
+
+    /**
+     * @return Whether {@link #program(ForkJoinPool)} had to parse the whole program again on one thread, because
+     *         one of its chunks did not parse (the program has a syntax error, or was cut in the wrong place)
+     */
+    public boolean fellBack() {
+        return fellBack;
+    }
+
+    /**
+     * program : (declaration)+ EOF
+     *
+     * @return The AST of the program, or null if it has a syntax error
+     */
+    public Program program() {
+        try {
+            List<AstNode> declarations = new ArrayList<>();
+            expectAt(AgudaLexer.LET);
+            do {
+                declarations.add(declaration());
+            } while (at(AgudaLexer.LET));
+            expectAt(set(Token.EOF, AgudaLexer.LET));
+            return new Program(tokens.line(0), tokens.column(0), declarations, tokens.symbols());
+        } catch (SyntaxError e) {
+            return null;
+        } finally {
+            reportLexicalErrors(tokens.size() - 1);
+        }
+    }
+
+    /**
+     * Same as {@link #program()}, with the top-level declarations parsed in parallel on the given pool. The tokens
+     * are cut before the lets that start a declaration, by the same rule as skipBody, the chunks are parsed on
+     * their own and their declarations joined in order, so the AST is the one program() builds, positions included.
+     *
+     * Nothing is reported while the chunks are parsed. If one of them does not parse, the whole program is parsed
+     * again by program(), so the errors are exactly the ones of the sequential parser.
+     *
+     * @return The AST of the program, or null if it has a syntax error
+     */
+    public Program program(ForkJoinPool pool) {
+        int end = tokens.size() - 1;
+        if (end < 1) {
+            // Only the EOF token: nothing to split, and the error is the one of program()
+            return program();
+        }
+        int[] starts = declarationStarts();
+        int grain = Math.max(MIN_CHUNK_TOKENS, end / (pool.getParallelism() * 4));
+        if (starts.length < 2 || end <= grain) {
+            return program();
+        }
+        List<AstNode> declarations = pool.invoke(new Chunk(starts, 0, starts.length, grain));
+        if (declarations == null) {
+            fellBack = true;
+            return program();
+        }
+        reportLexicalErrors(end);
+        return new Program(tokens.line(0), tokens.column(0), declarations, tokens.symbols());
+    }
+
+    /**
+     * @return The first token of the program, followed by every let where {@link #nextDeclaration} stops
+     */
+    private int[] declarationStarts() {
+        int[] starts = new int[16];
+        int count = 1;
+        for (int i = nextDeclaration(1); tokens.kind(i) != Token.EOF; i = nextDeclaration(i + 1)) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = i;
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    /**
+     * Parses the declarations of starts[from] to starts[to] (or the end of the file), splitting them in two
+     * halves of about the same number of tokens while they are larger than the grain.
+     */
+    private final class Chunk extends RecursiveTask<List<AstNode>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] starts;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Chunk(int[] starts, int from, int to, int grain) {
+            this.starts = starts;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        /**
+         * @return The declarations, or null if they do not parse
+         */
+        @Override
+        protected List<AstNode> compute() {
+            int first = starts[from];
+            int last = to < starts.length ? starts[to] : tokens.size() - 1;
+            if (to - from == 1 || last - first <= grain) {
+                return declarations(first, last);
+            }
+            int middle = Arrays.binarySearch(starts, from, to, (first + last) >>> 1);
+            if (middle < 0) {
+                middle = -middle - 1;
+            }
+            middle = Math.min(Math.max(middle, from + 1), to - 1);
+            Chunk right = new Chunk(starts, middle, to, grain);
+            right.fork();
+            List<AstNode> left = new Chunk(starts, from, middle, grain).compute();
+            List<AstNode> rest = right.join();
+            if (left == null || rest == null) {
+                return null;
+            }
+            left.addAll(rest);
+            return left;
+        }
+    }
+
+    /**
+     * Parses the declarations between two tokens without reporting anything
+     *
+     * @return The declarations, or null if they do not parse or do not end exactly at the second token
+     */
+    private List<AstNode> declarations(int from, int to) {
+        DescentParser parser = new DescentParser(tokens, lexerListener, parserListener, lazyBodies);
+        parser.silent = true;
+        parser.p = from;
+        try {
+            List<AstNode> declarations = new ArrayList<>();
+            parser.expectAt(AgudaLexer.LET);
+            do {
+                declarations.add(parser.declaration());
+            } while (parser.at(AgudaLexer.LET) && parser.p < to);
+            return parser.p == to ? declarations : null;
+        } catch (SyntaxError e) {
+            return null;
+        }
+    }
+
+    /****************************************************************************************
+     *                                                                                      *
+     *                        PROGRAM AND TOP LEVEL DECLARATIONS                            *
+     *                                                                                      *
+     ****************************************************************************************/
+
+    private AstNode declaration() {
+        int let = expect(AgudaLexer.LET);
+        int name = expect(AgudaLexer.ID);
+        String id = tokens.text(name);
+        if (at(AgudaLexer.COLONTOKEN)) {
+            p++;
+            AstNode type = typeElem();
+            expect(AgudaLexer.EQUALTOKEN);
+            return new VariableDeclaration(tokens.line(let), tokens.column(let), id, tokens.symbol(name), type, exprs());
+        }
+        expectAt(set(AgudaLexer.COLONTOKEN, AgudaLexer.LEFTPAREN));
+        p++;
+
+        int idList = p;
+        List<AstNode> ids = new ArrayList<>();
+        do {
+            int param = expect(AgudaLexer.ID);
+            ids.add(new Identifier(tokens.line(param), tokens.column(param), tokens.text(param), tokens.symbol(param)));
+        } while (accept(AgudaLexer.COMMA));
+        expect(AgudaLexer.RIGHTPAREN);
+        expect(AgudaLexer.COLONTOKEN);
+        AstNode type = functionType();
+        expect(AgudaLexer.EQUALTOKEN);
+        AstNode params = new IdList(tokens.line(idList), tokens.column(idList), id, tokens.symbol(name), ids);
+        if (lazyBodies) {
+            int from = p;
+            skipBody();
+            int to = p;
+            return new FunctionTypeDeclaration(tokens.line(let), tokens.column(let), params, type, () -> body(from, to));
+        }
+        return new FunctionTypeDeclaration(tokens.line(let), tokens.column(let), params, type, exprs());
+    }
+
+    /**
+     * Moves to the end of a function body without parsing it, see {@link #nextDeclaration}
+     */
+    private void skipBody() {
+        p = nextDeclaration(p);
+    }
+
+    /**
+     * Finds where the next top-level declaration starts without parsing: at the first let outside of the brackets
+     * opened from the given token on that follows the end of an expression. Inside a body a let always follows a
+     * ;, = or a keyword, so that one can only start the next declaration. Used to skip lazy bodies and to cut the
+     * program for the parallel parse, which must agree on where a declaration ends.
+     *
+     * @param from The first token to look at, the EOF token if it is past it
+     * @return The let, or the EOF token if there is none
+     */
+    private int nextDeclaration(int from) {
+        int depth = 0;
+        int i = Math.min(from, tokens.size() - 1);
+        for (; tokens.kind(i) != Token.EOF; i++) {
+            switch (tokens.kind(i)) {
+                case AgudaLexer.LEFTPAREN, AgudaLexer.LEFTBRACKETS -> depth++;
+                case AgudaLexer.RIGHTPAREN, AgudaLexer.RIGHTBRACKETS -> depth--;
+                case AgudaLexer.LET -> {
+                    if (depth <= 0 && EXPR_END.contains(tokens.kind(i - 1))) {
+                        return i;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Parses a body that was skipped, which must end exactly where skipBody stopped
+     */
+    private AstNode body(int from, int to) {
+        DescentParser parser = new DescentParser(tokens, lexerListener, parserListener);
+        parser.p = from;
+        // They were reported with the rest of the file
+        parser.nextError = tokens.errors().size();
+        AstNode body = parser.exprs();
+        if (parser.p != to) {
+            throw parser.error(set(Token.EOF, AgudaLexer.LET));
+        }
+        return body;
+    }
+
+    /****************************************************************************************
+     *                                                                                      *
+     *                                      TYPES                                           *
+     *                                                                                      *
+     ****************************************************************************************/
+
+    private AstNode functionType() {
+        int start = p;
+        if (accept(AgudaLexer.LEFTPAREN)) {
+            // (T1, T2, ...) -> Ret
+            int list = p;
+            List<AstNode> types = new ArrayList<>();
+            do {
+                types.add(typeElem());
+            } while (accept(AgudaLexer.COMMA));
+            expect(AgudaLexer.RIGHTPAREN);
+            expect(AgudaLexer.ARROW);
+            AstNode typeList = new TypeList(tokens.line(list), tokens.column(list), types);
+            return new FunctionType(tokens.line(start), tokens.column(start), typeList, typeElem());
+        }
+        // T1 -> T2
+        expectAt(BASIC_TYPE.or(set(AgudaLexer.LEFTPAREN)));
+        AstNode from = typeElem();
+        expect(AgudaLexer.ARROW);
+        return new FunctionType(tokens.line(start), tokens.column(start), from, typeElem());
+    }
+
+    private AstNode typeElem() {
+        int start = p;
+        AstNode basicType = new BasicType(tokens.line(start), tokens.column(start), basicType());
+        int dimensions = 0;
+        while (accept(AgudaLexer.LEFTBRACKETS)) {
+            expect(AgudaLexer.RIGHTBRACKETS);
+            dimensions++;
+        }
+        return dimensions == 0 ? basicType : new ArrayType(tokens.line(start), tokens.column(start), basicType, dimensions);
+    }
+
+    /**
+     * @return The name of the basic type
+     */
+    private String basicType() {
+        expectAt(BASIC_TYPE);
+        return tokens.text(p++);
+    }
+
+    /****************************************************************************************
+     *                                                                                      *
+     *                                    EXPRESSIONS                                       *
+     *                                                                                      *
+     ****************************************************************************************/
+
+    /**
+     * exprs and blockexpression : (expr SEMICOLON)* expr
+     */
+    private AstNode exprs() {
+        int start = p;
+        List<AstNode> exprs = new ArrayList<>();
+        do {
+            exprs.add(expr());
+        } while (accept(AgudaLexer.SEMICOLON));
+        return new Expressions(tokens.line(start), tokens.column(start), exprs, ";");
+    }
+
+    private AstNode exprsList() {
+        int start = p;
+        List<AstNode> exprs = new ArrayList<>();
+        do {
+            exprs.add(exprs());
+        } while (accept(AgudaLexer.COMMA));
+        return new Expressions(tokens.line(start), tokens.column(start), exprs, ",");
+    }
+
+    private AstNode expr() {
+        int start = p;
+        switch (tokens.kind(p)) {
+            case AgudaLexer.LET -> {
+                p++;
+                int name = expect(AgudaLexer.ID);
+                expect(AgudaLexer.COLONTOKEN);
+                AstNode type = typeElem();
+                expect(AgudaLexer.EQUALTOKEN);
+                return new LetExpression(tokens.line(start), tokens.column(start), tokens.text(name), tokens.symbol(name), type, expr());
+            }
+            case AgudaLexer.SET -> {
+                p++;
+                AstNode lefthandside = lefthandside();
+                expect(AgudaLexer.EQUALTOKEN);
+                return new SetExpression(tokens.line(start), tokens.column(start), lefthandside, expr());
+            }
+            case AgudaLexer.IF -> {
+                p++;
+                AstNode condition = expr();
+                expect(AgudaLexer.THEN);
+                AstNode thenExpr = expr();
+                AstNode elseExpr = accept(AgudaLexer.ELSE) ? expr() : null;
+                return new IfExpression(tokens.line(start), tokens.column(start), condition, thenExpr, elseExpr);
+            }
+            case AgudaLexer.WHILE -> {
+                p++;
+                AstNode condition = expr();
+                expect(AgudaLexer.DO);
+                return new WhileExpression(tokens.line(start), tokens.column(start), condition, expr());
+            }
+            case AgudaLexer.NEW -> {
+                return arrayCreation();
+            }
+            default -> {
+                expectAt(EXPR);
+                return binary(LOGICAL);
+            }
+        }
+    }
+
+    /**
+     * An operand followed by any operators that bind at least as tightly as minPrecedence. Like the left-recursive
+     * rules of the grammar, every binary node starts where its leftmost operand starts.
+     */
+    private AstNode binary(int minPrecedence) {
+        int start = p;
+        AstNode left;
+        if (at(AgudaLexer.NOT) && minPrecedence <= NOT) {
+            // ! applies to a whole arithmetic expression: !a + b is !(a + b), !a == b is (!a) == b
+            p++;
+            left = new UnaryOp(tokens.line(start), tokens.column(start), "!", binary(NOT));
+        } else {
+            left = atom();
+        }
+
+        int precedence;
+        while ((precedence = PRECEDENCE[Math.max(tokens.kind(p), 0)]) >= minPrecedence && precedence > 0) {
+            String op = tokens.text(p++);
+            // ^ is right associative, the others are left associative
+            AstNode right = binary(precedence == POWER ? POWER : precedence + 1);
+            left = new BinaryOp(tokens.line(start), tokens.column(start), op, left, right);
+        }
+        return left;
+    }
+
+    private AstNode atom() {
+        int start = p;
+        AstNode primary = primary();
+        if (!at(AgudaLexer.LEFTBRACKETS)) {
+            return primary;
+        }
+        return new ArrayAccess(tokens.line(start), tokens.column(start), primary, indices());
+    }
+
+    private AstNode primary() {
+        int start = p;
+        int line = tokens.line(start);
+        int column = tokens.column(start);
+        switch (tokens.kind(p)) {
+            case AgudaLexer.INT -> {
+                return new IntLiteral(line, column, tokens.text(p++));
+            }
+            case AgudaLexer.MINUS -> {
+                p++;
+                return new UnaryOp(line, column, "-", primary());
+            }
+            case AgudaLexer.ID -> {
+                int name = p++;
+                String id = tokens.text(name);
+                if (!accept(AgudaLexer.LEFTPAREN)) {
+                    return new Identifier(line, column, id, tokens.symbol(name));
+                }
+                AstNode exprs = exprsList();
+                expect(AgudaLexer.RIGHTPAREN);
+                return new CallFunctionExpression(line, column, id, tokens.symbol(name), exprs);
+            }
+            case AgudaLexer.NULL -> {
+                p++;
+                return new NullLiteral(line, column);
+            }
+            case AgudaLexer.BOOLEAN -> {
+                return new BoolLiteral(line, column, Boolean.parseBoolean(tokens.text(p++)));
+            }
+            case AgudaLexer.STRING -> {
+                return new StringLiteral(line, column, tokens.text(p++));
+            }
+            case AgudaLexer.LEFTPAREN -> {
+                p++;
+                AstNode blockExpr = exprs();
+                expect(AgudaLexer.RIGHTPAREN);
+                return new ParenthicalExpression(line, column, blockExpr);
+            }
+            default -> throw error(PRIMARY);
+        }
+    }
+
+    /**
+     * lefthandside : ID ([blockexpression])* | primary ([blockexpression])+
+     */
+    private AstNode lefthandside() {
+        int start = p;
+        AstNode base;
+        if (at(AgudaLexer.ID) && tokens.kind(p + 1) != AgudaLexer.LEFTPAREN) {
+            base = new Identifier(tokens.line(start), tokens.column(start), tokens.text(start), tokens.symbol(start));
+            p++;
+            if (!at(AgudaLexer.LEFTBRACKETS)) {
+                return base;
+            }
+        } else {
+            base = primary();
+            expectAt(AgudaLexer.LEFTBRACKETS);
+        }
+        return new ArrayAccess(tokens.line(start), tokens.column(start), base, indices());
+    }
+
+    /**
+     * ([blockexpression])+
+     */
+    private List<AstNode> indices() {
+        List<AstNode> indices = new ArrayList<>();
+        while (accept(AgudaLexer.LEFTBRACKETS)) {
+            indices.add(exprs());
+            expect(AgudaLexer.RIGHTBRACKETS);
+        }
+        return indices;
+    }
+
+    private AstNode arrayCreation() {
+        int start = expect(AgudaLexer.NEW);
+        String baseType = basicType();
+        List<ArrayCreation.Dimension> dimensions = new ArrayList<>();
+        expectAt(AgudaLexer.LEFTBRACKETS);
+        while (accept(AgudaLexer.LEFTBRACKETS)) {
+            if (accept(AgudaLexer.RIGHTBRACKETS)) {
+                // Is a []
+                dimensions.add(new ArrayCreation.Dimension(null, null));
+                continue;
+            }
+            AstNode size = exprs();
+            expect(AgudaLexer.PIPE);
+            AstNode init = exprs();
+            expect(AgudaLexer.RIGHTBRACKETS);
+            dimensions.add(new ArrayCreation.Dimension(size, init));
+        }
+        return new ArrayCreation(tokens.line(start), tokens.column(start), baseType, dimensions);
+    }
+
+    /****************************************************************************************
+     *                                                                                      *
+     *                                      TOKENS                                          *
+     *                                                                                      *
+     ****************************************************************************************/
+
+    private boolean at(int kind) {
+        return tokens.kind(p) == kind;
+    }
+
+    private boolean accept(int kind) {
+        if (at(kind)) {
+            p++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The index of the token, which is consumed
+     */
+    private int expect(int kind) {
+        expectAt(IntervalSet.of(kind));
+        return p++;
+    }
+
+    private void expectAt(int kind) {
+        expectAt(IntervalSet.of(kind));
+    }
+
+    /**
+     * Fails unless the current token is one of the expected ones, without consuming it
+     */
+    private void expectAt(IntervalSet expected) {
+        if (!expected.contains(tokens.kind(p))) {
+            throw error(expected);
+        }
+    }
+
+    private static IntervalSet set(int... kinds) {
+        IntervalSet set = new IntervalSet();
+        for (int kind : kinds) {
+            set.add(kind);
+        }
+        return set;
+    }
+
+    private SyntaxError error(IntervalSet expected) {
+        syntaxErrors++;
+        String message = "mismatched input '" + tokens.text(p) + "' expecting " + expected.toString(AgudaLexer.VOCABULARY);
+        if (!silent) {
+            reportLexicalErrors(p);
+            parserListener.syntaxError(null, null, tokens.line(p), tokens.column(p), message, null);
+        }
+        return new SyntaxError(tokens.line(p), tokens.column(p), message);
+    }
+
+    /**
+     * Reports the lexical errors before the given token, which the parser has reached
+     */
+    private void reportLexicalErrors(int token) {
+        List<FastLexer.LexicalError> errors = tokens.errors();
+        while (nextError < errors.size() && errors.get(nextError).beforeToken() <= token) {
+            FastLexer.LexicalError error = errors.get(nextError++);
+            lexerListener.syntaxError(null, null, error.line(), error.column(), error.message(), null);
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package aguda.parser;
+
+import aguda.ast.Symbols;
+import org.antlr.v4.runtime.Token;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Hand-written lexer for AGUDA that reads the UTF-8 bytes of a source file (memory-mapped) and produces the same
+ * tokens as the lexer generated from Aguda.g4, with the same errors, but stores them as parallel arrays instead of
+ * one object per token, and never decodes the whole file. {@link FastTokenSource} feeds them to the parser.
+ *
+ * Lines, columns and token indices count code points, like ANTLR does, so they only differ from byte offsets
+ * in files with non-ASCII characters (in strings, comments, or as errors).
+ */
+public final class FastLexer {
+    private static final byte[][] KEYWORDS = {
+            "let".getBytes(), "Int".getBytes(), "Bool".getBytes(), "String".getBytes(), "Unit".getBytes(),
+            "set".getBytes(), "if".getBytes(), "then".getBytes(), "else".getBytes(), "while".getBytes(),
+            "do".getBytes(), "new".getBytes(), "unit".getBytes(), "true".getBytes(), "false".getBytes()};
+    private static final int[] KEYWORD_KINDS = {
+            AgudaLexer.LET, AgudaLexer.INTTYPE, AgudaLexer.BOOLTYPE, AgudaLexer.STRINGTYPE, AgudaLexer.UNITTYPE,
+            AgudaLexer.SET, AgudaLexer.IF, AgudaLexer.THEN, AgudaLexer.ELSE, AgudaLexer.WHILE,
+            AgudaLexer.DO, AgudaLexer.NEW, AgudaLexer.NULL, AgudaLexer.BOOLEAN, AgudaLexer.BOOLEAN};
+
+    /**
+     * A token that could not be recognized
+     *
+     * @param beforeToken The index of the token that follows it, the error is reported when that token is read
+     * @param line The line where it starts
+     * @param column The column where it starts
+     * @param message The message of ANTLR, e.g. "token recognition error at: '$'"
+     */
+    public record LexicalError(int beforeToken, int line, int column, String message) {}
+
+    /**
+     * The tokens of a file, the last one being EOF
+     */
+    public static final class Tokens {
+        private final ByteBuffer source;
+        private int size;
+        private int[] kinds;
+        private int[] starts;
+        private int[] lengths;
+        private long[] positions;
+        // Symbol id of every ID token, -1 for the others
+        private int[] symbolIds;
+        private final Symbols symbols = new Symbols();
+        // Code point index of every token, only when the file is not ASCII (otherwise it is the byte offset)
+        private int[] charStarts;
+        private final List<LexicalError> errors = new ArrayList<>();
+
+        private Tokens(ByteBuffer source, int capacity) {
+            this.source = source;
+            kinds = new int[capacity];
+            starts = new int[capacity];
+            lengths = new int[capacity];
+            positions = new long[capacity];
+            symbolIds = new int[capacity];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return The token type, as in AgudaLexer (Token.EOF for the last one)
+         */
+        public int kind(int i) {
+            return kinds[i];
+        }
+
+        /**
+         * @return The offset of the first byte of the token
+         */
+        public int start(int i) {
+            return starts[i];
+        }
+
+        /**
+         * @return The number of bytes of the token
+         */
+        public int length(int i) {
+            return lengths[i];
+        }
+
+        public int line(int i) {
+            return (int) (positions[i] >>> 32);
+        }
+
+        public int column(int i) {
+            return (int) positions[i];
+        }
+
+        /**
+         * @return The id of an ID token in {@link #symbols}, -1 for other tokens
+         */
+        public int symbol(int i) {
+            return symbolIds[i];
+        }
+
+        /**
+         * @return The identifiers of the file, interned while it was lexed
+         */
+        public Symbols symbols() {
+            return symbols;
+        }
+
+        /**
+         * @return The index of the first code point of the token
+         */
+        public int charStart(int i) {
+            return charStarts != null ? charStarts[i] : starts[i];
+        }
+
+        /**
+         * @return The number of code points of the token
+         */
+        public int charLength(int i) {
+            if (charStarts == null) {
+                return lengths[i];
+            }
+            int count = 0;
+            for (int b = starts[i]; b < starts[i] + lengths[i]; b++) {
+                if (!isContinuation(source.get(b))) count++;
+            }
+            return count;
+        }
+
+        /**
+         * @return The text of the token, shared for keywords, symbols and identifiers
+         */
+        public String text(int i) {
+            int kind = kinds[i];
+            if (kind == Token.EOF) {
+                return "<EOF>";
+            }
+            if (kind == AgudaLexer.ID) {
+                return symbols.name(symbolIds[i]);
+            }
+            if (kind == AgudaLexer.BOOLEAN) {
+                return lengths[i] == 4 ? "true" : "false";
+            }
+            if (kind != AgudaLexer.INT && kind != AgudaLexer.STRING) {
+                String literal = AgudaLexer.VOCABULARY.getLiteralName(kind);
+                return literal.substring(1, literal.length() - 1);
+            }
+            return decode(source, starts[i], lengths[i]);
+        }
+
+        /**
+         * @return The lexical errors, in the order they were found
+         */
+        public List<LexicalError> errors() {
+            return errors;
+        }
+
+        private void add(int kind, int start, int length, int line, int column, int charStart) {
+            if (size == kinds.length) {
+                int capacity = size + (size >> 1) + 16;
+                kinds = Arrays.copyOf(kinds, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                positions = Arrays.copyOf(positions, capacity);
+                symbolIds = Arrays.copyOf(symbolIds, capacity);
+                if (charStarts != null) charStarts = Arrays.copyOf(charStarts, capacity);
+            }
+            if (charStarts == null && charStart != start) {
+                charStarts = Arrays.copyOf(starts, kinds.length);
+            }
+            kinds[size] = kind;
+            starts[size] = start;
+            lengths[size] = length;
+            positions[size] = ((long) line << 32) | (column & 0xFFFFFFFFL);
+            symbolIds[size] = kind == AgudaLexer.ID ? symbols.intern(source, start, length) : -1;
+            if (charStarts != null) charStarts[size] = charStart;
+            size++;
+        }
+    }
+
+    private final ByteBuffer source;
+    private final int end;
+    private final Tokens tokens;
+    private int pos;
+    private int line = 1;
+    private int column;
+    // Bytes read so far that were not the first byte of a code point
+    private int continuationBytes;
+
+    private FastLexer(ByteBuffer source) {
+        this.source = source;
+        this.end = source.limit();
+        // Dense sources have a token every two or three bytes, so this is rarely grown
+        this.tokens = new Tokens(source, Math.max(16, end / 2));
+    }
+
+    /**
+     * Lexes a file, memory-mapped
+     */
+    public static Tokens lex(Path file) throws IOException {
+        return lex(SourceFile.open(file));
+    }
+
+    /**
+     * Lexes a file that is already mapped, whose lines are then shown by errors from the same mapping
+     */
+    public static Tokens lex(SourceFile file) {
+        return lex(file.bytes());
+    }
+
+    /**
+     * Lexes the UTF-8 bytes of a source
+     */
+    public static Tokens lex(byte[] source) {
+        return lex(ByteBuffer.wrap(source));
+    }
+
+    public static Tokens lex(ByteBuffer source) {
+        FastLexer lexer = new FastLexer(source);
+        lexer.run();
+        return lexer.tokens;
+    }
+
+    private void run() {
+        while (pos < end) {
+            int b = source.get(pos) & 0xFF;
+            int start = pos;
+            int startLine = line;
+            int startColumn = column;
+            int charStart = pos - continuationBytes;
+
+            if (b == ' ' || b == '\t' || b == '\r') {
+                pos++;
+                column++;
+                continue;
+            }
+            if (b == '\n') {
+                pos++;
+                line++;
+                column = 0;
+                continue;
+            }
+
+            int kind;
+            if (isLetter(b) || b == '_') {
+                pos++;
+                while (pos < end && isIdentifierPart(source.get(pos) & 0xFF)) pos++;
+                kind = keyword(start, pos - start);
+            } else if (b >= '1' && b <= '9') {
+                pos++;
+                while (pos < end && isDigit(source.get(pos) & 0xFF)) pos++;
+                kind = AgudaLexer.INT;
+            } else if (b == '0') {
+                pos++;
+                kind = AgudaLexer.INT;
+            } else if (b == '"') {
+                int scan = pos + 1;
+                while (scan < end && source.get(scan) != '"' && source.get(scan) != '\r' && source.get(scan) != '\n') scan++;
+                if (scan == end || source.get(scan) != '"') {
+                    // Unterminated: the error shows the text up to the character that stopped it
+                    error(start, scan < end ? scan + codePointLength(scan) : end, startLine, startColumn);
+                    continue;
+                }
+                pos = scan + 1;
+                kind = AgudaLexer.STRING;
+            } else if (b == '-' && peek(1) == '-') {
+                pos += 2;
+                while (pos < end && source.get(pos) != '\r' && source.get(pos) != '\n') pos++;
+                countCodePoints(start, pos);
+                continue;
+            } else if (b == '&') {
+                if (peek(1) != '&') {
+                    error(start, pos + 1 < end ? pos + 1 + codePointLength(pos + 1) : end, startLine, startColumn);
+                    continue;
+                }
+                pos += 2;
+                kind = AgudaLexer.AND;
+            } else {
+                kind = symbol(b);
+                if (kind == Token.INVALID_TYPE) {
+                    error(start, pos + codePointLength(pos), startLine, startColumn);
+                    continue;
+                }
+            }
+            tokens.add(kind, start, pos - start, startLine, startColumn, charStart);
+            countCodePoints(start, pos);
+        }
+        tokens.add(Token.EOF, end, 0, line, column, end - continuationBytes);
+    }
+
+    /**
+     * @return The token type of a keyword, or ID
+     */
+    private int keyword(int start, int length) {
+        for (int k = 0; k < KEYWORDS.length; k++) {
+            byte[] keyword = KEYWORDS[k];
+            if (keyword.length != length) continue;
+            int i = 0;
+            while (i < length && source.get(start + i) == keyword[i]) i++;
+            if (i == length) return KEYWORD_KINDS[k];
+        }
+        return AgudaLexer.ID;
+    }
+
+    /**
+     * Matches an operator or punctuation, the longest one first
+     *
+     * @return Its token type, or Token.INVALID_TYPE
+     */
+    private int symbol(int b) {
+        int next = peek(1);
+        int two = switch (b) {
+            case '-' -> next == '>' ? AgudaLexer.ARROW : 0;
+            case '|' -> next == '|' ? AgudaLexer.OR : 0;
+            case '=' -> next == '=' ? AgudaLexer.EQ : 0;
+            case '!' -> next == '=' ? AgudaLexer.NEQ : 0;
+            case '<' -> next == '=' ? AgudaLexer.LE : 0;
+            case '>' -> next == '=' ? AgudaLexer.GE : 0;
+            default -> 0;
+        };
+        if (two != 0) {
+            pos += 2;
+            return two;
+        }
+        int one = switch (b) {
+            case ':' -> AgudaLexer.COLONTOKEN;
+            case '=' -> AgudaLexer.EQUALTOKEN;
+            case '[' -> AgudaLexer.LEFTBRACKETS;
+            case ']' -> AgudaLexer.RIGHTBRACKETS;
+            case '(' -> AgudaLexer.LEFTPAREN;
+            case ')' -> AgudaLexer.RIGHTPAREN;
+            case ',' -> AgudaLexer.COMMA;
+            case ';' -> AgudaLexer.SEMICOLON;
+            case '|' -> AgudaLexer.PIPE;
+            case '!' -> AgudaLexer.NOT;
+            case '<' -> AgudaLexer.LT;
+            case '>' -> AgudaLexer.GT;
+            case '+' -> AgudaLexer.PLUS;
+            case '-' -> AgudaLexer.MINUS;
+            case '*' -> AgudaLexer.MUL;
+            case '/' -> AgudaLexer.DIV;
+            case '%' -> AgudaLexer.MOD;
+            case '^' -> AgudaLexer.POW;
+            default -> Token.INVALID_TYPE;
+        };
+        if (one != Token.INVALID_TYPE) {
+            pos++;
+        }
+        return one;
+    }
+
+    /**
+     * Records an error like ANTLR does: the text goes from the start of the token to the character that could not
+     * be matched (included), and lexing goes on after that character
+     */
+    private void error(int start, int textEnd, int startLine, int startColumn) {
+        String text = decode(source, start, textEnd - start);
+        tokens.errors.add(new LexicalError(tokens.size, startLine, startColumn,
+                "token recognition error at: '" + errorDisplay(text) + "'"));
+        pos = textEnd;
+        for (int i = start; i < textEnd; i++) {
+            if (source.get(i) == '\n') {
+                line++;
+                column = 0;
+            } else if (isContinuation(source.get(i))) {
+                continuationBytes++;
+            } else {
+                column++;
+            }
+        }
+    }
+
+    private static String errorDisplay(String text) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '\n' -> sb.append("\\n");
+                case '\t' -> sb.append("\\t");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Advances the column over bytes that hold no newline
+     */
+    private void countCodePoints(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (isContinuation(source.get(i))) {
+                continuationBytes++;
+            } else {
+                column++;
+            }
+        }
+    }
+
+    private int codePointLength(int at) {
+        int length = 1;
+        while (at + length < end && isContinuation(source.get(at + length))) length++;
+        return length;
+    }
+
+    private int peek(int offset) {
+        return pos + offset < end ? source.get(pos + offset) & 0xFF : -1;
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    private static boolean isLetter(int b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private static boolean isDigit(int b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isIdentifierPart(int b) {
+        return isLetter(b) || isDigit(b) || b == '\'' || b == '_';
+    }
+
+    private static String decode(ByteBuffer source, int start, int length) {
+        byte[] bytes = new byte[length];
+        source.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
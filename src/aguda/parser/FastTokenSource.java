@@ -0,0 +1,107 @@
+package aguda.parser;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Pair;
+
+/**
+ * Hands out the tokens of a {@link FastLexer} one by one, like the generated lexer. Lexical errors are reported to
+ * the listener when the token that follows them is read, which is when the generated lexer would report them.
+ * The parser reads the tokens through {@link FastTokenStream}, which only uses this class to create them.
+ */
+public class FastTokenSource implements TokenSource {
+    private final FastLexer.Tokens tokens;
+    private final ANTLRErrorListener listener;
+    private final Pair<TokenSource, CharStream> source = new Pair<>(this, null);
+    private TokenFactory<?> factory = CommonTokenFactory.DEFAULT;
+    private int next;
+    private int nextError;
+
+    /**
+     * @param tokens The tokens of the file
+     * @param listener Where lexical errors are reported, or null to ignore them
+     */
+    public FastTokenSource(FastLexer.Tokens tokens, ANTLRErrorListener listener) {
+        this.tokens = tokens;
+        this.listener = listener;
+    }
+
+    @Override
+    public Token nextToken() {
+        int i = Math.min(next, tokens.size() - 1);
+        while (nextError < tokens.errors().size() && tokens.errors().get(nextError).beforeToken() <= i) {
+            FastLexer.LexicalError error = tokens.errors().get(nextError++);
+            if (listener != null) {
+                listener.syntaxError(null, null, error.line(), error.column(), error.message(), null);
+            }
+        }
+        next++;
+
+        return token(i);
+    }
+
+    /**
+     * @return A new token object for a token of the file
+     */
+    Token token(int i) {
+        int start = tokens.charStart(i);
+        CommonToken token = new LazyTextToken(source, tokens, i, start, start + tokens.charLength(i) - 1);
+        token.setLine(tokens.line(i));
+        token.setCharPositionInLine(tokens.column(i));
+        token.setTokenIndex(i);
+        return token;
+    }
+
+    /**
+     * A token that only decodes its text when it is asked for, like the tokens of the generated lexer
+     */
+    private static final class LazyTextToken extends CommonToken {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FastLexer.Tokens tokens;
+        private final int index;
+
+        LazyTextToken(Pair<TokenSource, CharStream> source, FastLexer.Tokens tokens, int index, int start, int stop) {
+            super(source, tokens.kind(index), Token.DEFAULT_CHANNEL, start, stop);
+            this.tokens = tokens;
+            this.index = index;
+        }
+
+        @Override
+        public String getText() {
+            if (text == null) {
+                text = tokens.text(index);
+            }
+            return text;
+        }
+    }
+
+    @Override
+    public int getLine() {
+        return tokens.line(Math.min(next, tokens.size() - 1));
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return tokens.column(Math.min(next, tokens.size() - 1));
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return null;
+    }
+
+    @Override
+    public String getSourceName() {
+        return IntStream.UNKNOWN_SOURCE_NAME;
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return factory;
+    }
+}
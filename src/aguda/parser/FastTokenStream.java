@@ -0,0 +1,185 @@
+package aguda.parser;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * Token stream over the arrays of a {@link FastLexer}. Lookahead (LA), which is what the prediction of the parser
+ * uses, only reads the token types, token objects are only created when the parser asks for them (LT, get), and
+ * only the few last ones are kept: the parse tree holds the ones it needs.
+ *
+ * Lexical errors are reported at the same moments as with a CommonTokenStream over the generated lexer, which
+ * fetches a token when it is looked at or when the token before it is consumed, so errors come out in the same
+ * order.
+ */
+public class FastTokenStream implements TokenStream {
+    private static final int CACHE_SIZE = 64;
+
+    private final FastLexer.Tokens tokens;
+    private final FastTokenSource source;
+    private final ANTLRErrorListener listener;
+    private final Token[] cache = new Token[CACHE_SIZE];
+    private int p = -1;
+    private int fetched = -1;
+    private int nextError;
+
+    /**
+     * @param tokens The tokens of the file
+     * @param listener Where lexical errors are reported, or null to ignore them
+     */
+    public FastTokenStream(FastLexer.Tokens tokens, ANTLRErrorListener listener) {
+        this.tokens = tokens;
+        this.source = new FastTokenSource(tokens, null);
+        this.listener = listener;
+    }
+
+    /**
+     * Marks every token up to i as fetched, reporting the errors before them
+     */
+    private void fetch(int i) {
+        if (i <= fetched) {
+            return;
+        }
+        fetched = Math.min(i, tokens.size() - 1);
+        while (nextError < tokens.errors().size() && tokens.errors().get(nextError).beforeToken() <= fetched) {
+            FastLexer.LexicalError error = tokens.errors().get(nextError++);
+            if (listener != null) {
+                listener.syntaxError(null, null, error.line(), error.column(), error.message(), null);
+            }
+        }
+    }
+
+    private void lazyInit() {
+        if (p == -1) {
+            fetch(0);
+            p = 0;
+        }
+    }
+
+    @Override
+    public Token LT(int k) {
+        lazyInit();
+        if (k == 0) {
+            return null;
+        }
+        if (k < 0) {
+            return p - (-k) < 0 ? null : token(p + k);
+        }
+        int i = p + k - 1;
+        fetch(i);
+        return token(Math.min(i, tokens.size() - 1));
+    }
+
+    @Override
+    public int LA(int i) {
+        lazyInit();
+        if (i == 0) {
+            return 0;
+        }
+        if (i < 0) {
+            return p + i < 0 ? Token.INVALID_TYPE : tokens.kind(p + i);
+        }
+        int index = p + i - 1;
+        fetch(index);
+        return tokens.kind(Math.min(index, tokens.size() - 1));
+    }
+
+    @Override
+    public void consume() {
+        lazyInit();
+        if (tokens.kind(p) == Token.EOF) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        p++;
+        fetch(p);
+    }
+
+    @Override
+    public Token get(int index) {
+        if (index < 0 || index > fetched) {
+            throw new IndexOutOfBoundsException("token index " + index + " out of range 0.." + fetched);
+        }
+        return token(index);
+    }
+
+    private Token token(int i) {
+        Token token = cache[i % CACHE_SIZE];
+        if (token == null || token.getTokenIndex() != i) {
+            token = source.token(i);
+            cache[i % CACHE_SIZE] = token;
+        }
+        return token;
+    }
+
+    @Override
+    public TokenSource getTokenSource() {
+        return source;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = interval.a;
+        if (start < 0 || interval.b < 0) {
+            return "";
+        }
+        fetch(interval.b);
+        int stop = Math.min(interval.b, fetched);
+        StringBuilder sb = new StringBuilder();
+        for (int i = start; i <= stop && tokens.kind(i) != Token.EOF; i++) {
+            sb.append(tokens.text(i));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String getText() {
+        return getText(Interval.of(0, size() - 1));
+    }
+
+    @Override
+    public String getText(RuleContext ctx) {
+        return getText(ctx.getSourceInterval());
+    }
+
+    @Override
+    public String getText(Token start, Token stop) {
+        if (start != null && stop != null) {
+            return getText(Interval.of(start.getTokenIndex(), stop.getTokenIndex()));
+        }
+        return "";
+    }
+
+    @Override
+    public int mark() {
+        return 0;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return p;
+    }
+
+    @Override
+    public void seek(int index) {
+        lazyInit();
+        fetch(index);
+        p = Math.min(index, tokens.size() - 1);
+    }
+
+    /**
+     * @return The number of tokens fetched so far, like BufferedTokenStream
+     */
+    @Override
+    public int size() {
+        return fetched + 1;
+    }
+
+    @Override
+    public String getSourceName() {
+        return source.getSourceName();
+    }
+}
@@ -0,0 +1,80 @@
+package aguda.parser;
+
+import org.antlr.v4.runtime.tree.Tree;
+import org.antlr.v4.runtime.tree.Trees;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a parse tree in the LISP format of Tree.toStringTree(parser), "(rule child child ...)", as it goes,
+ * without building the text of every subtree first. The text is written to the target in blocks.
+ */
+public final class ParseTreePrinter {
+    private static final int BLOCK = 8192;
+
+    private final List<String> ruleNames;
+    private final Appendable target;
+    private final StringBuilder block = new StringBuilder(BLOCK);
+
+    private ParseTreePrinter(List<String> ruleNames, Appendable target) {
+        this.ruleNames = ruleNames;
+        this.target = target;
+    }
+
+    /**
+     * Writes the same text as tree.toStringTree(parser)
+     *
+     * @param ruleNames The rule names of the parser, for the nodes of rules
+     */
+    public static void print(Tree tree, List<String> ruleNames, Appendable out) throws IOException {
+        ParseTreePrinter printer = new ParseTreePrinter(ruleNames, out);
+        printer.node(tree);
+        printer.target.append(printer.block);
+    }
+
+    private void node(Tree tree) throws IOException {
+        if (tree.getChildCount() == 0) {
+            text(tree);
+            return;
+        }
+        write('(');
+        text(tree);
+        write(' ');
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            if (i > 0) {
+                write(' ');
+            }
+            node(tree.getChild(i));
+        }
+        write(')');
+    }
+
+    // The name of a rule, or the text of a token, with its tabs and line breaks escaped like Utils.escapeWhitespace
+    private void text(Tree tree) throws IOException {
+        String text = Trees.getNodeText(tree, ruleNames);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\t' -> write("\\t");
+                case '\n' -> write("\\n");
+                case '\r' -> write("\\r");
+                default -> write(c);
+            }
+        }
+    }
+
+    private void write(char c) throws IOException {
+        block.append(c);
+        if (block.length() >= BLOCK) {
+            target.append(block);
+            block.setLength(0);
+        }
+    }
+
+    private void write(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            write(text.charAt(i));
+        }
+    }
+}
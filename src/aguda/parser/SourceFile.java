@@ -0,0 +1,130 @@
+package aguda.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A source file, memory-mapped once and shared by the lexer and by everything that shows a line of it under an
+ * error. The first time a line is asked for, the start of every line is found in one pass over the bytes, so an
+ * error costs the decoding of its own line, however many errors there are and however large the file is.
+ *
+ * Lines are numbered from 1, and are what Files.readAllLines gives: they end at "\n", "\r" or "\r\n", and a file
+ * that is not valid UTF-8 has none (asking for one throws, as reading them all would).
+ */
+public final class SourceFile {
+    private final Path path;
+    private final ByteBuffer bytes;
+    // Offset of the first byte of every line, built by index()
+    private int[] lineStarts;
+    private int lines;
+    private CoderResult malformed;
+
+    private SourceFile(Path path, ByteBuffer bytes) {
+        this.path = path;
+        this.bytes = bytes;
+    }
+
+    public static SourceFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new SourceFile(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * @return The bytes of the file, read-only, for absolute reads
+     */
+    public ByteBuffer bytes() {
+        return bytes;
+    }
+
+    /**
+     * @throws CharacterCodingException If the file is not valid UTF-8
+     */
+    public int lineCount() throws CharacterCodingException {
+        index();
+        return lines;
+    }
+
+    /**
+     * @param number A line number, from 1 to lineCount()
+     * @return The line, without its line break
+     * @throws CharacterCodingException If the file is not valid UTF-8
+     */
+    public String line(int number) throws CharacterCodingException {
+        index();
+        if (number < 1 || number > lines) {
+            throw new IndexOutOfBoundsException("Line " + number + " of " + lines);
+        }
+        int start = lineStarts[number - 1];
+        int end = start;
+        while (end < bytes.limit() && bytes.get(end) != '\n' && bytes.get(end) != '\r') {
+            end++;
+        }
+        byte[] utf8 = new byte[end - start];
+        bytes.get(start, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private synchronized void index() throws CharacterCodingException {
+        if (lineStarts == null) {
+            malformed = validate();
+            int[] starts = new int[16];
+            int count = 0;
+            int end = bytes.limit();
+            int pos = 0;
+            while (pos < end) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = pos;
+                while (pos < end && bytes.get(pos) != '\n' && bytes.get(pos) != '\r') {
+                    pos++;
+                }
+                if (pos < end) {
+                    pos += bytes.get(pos) == '\r' && pos + 1 < end && bytes.get(pos + 1) == '\n' ? 2 : 1;
+                }
+            }
+            lines = count;
+            lineStarts = starts;
+        }
+        if (malformed != null) {
+            malformed.throwException();
+        }
+    }
+
+    /**
+     * @return The error of the first bytes that are not UTF-8, or null if there are none
+     */
+    private CoderResult validate() {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer in = bytes.duplicate();
+        CharBuffer out = CharBuffer.allocate(4096);
+        while (true) {
+            CoderResult result = decoder.decode(in, out, true);
+            if (result.isError()) {
+                return result;
+            }
+            out.clear();
+            if (result.isUnderflow()) {
+                result = decoder.flush(out);
+                return result.isError() ? result : null;
+            }
+        }
+    }
+}
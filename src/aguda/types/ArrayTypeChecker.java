@@ -4,7 +4,8 @@ public class ArrayTypeChecker implements Type {
     private final Type elementType;
     private final int dimensions;
 
-    public ArrayTypeChecker(Type elementType, int dimensions) {
+    // Made by Types.array
+    ArrayTypeChecker(Type elementType, int dimensions) {
         this.elementType = elementType;
         this.dimensions = dimensions;
     }
@@ -17,12 +18,6 @@ public class ArrayTypeChecker implements Type {
         return dimensions;
     }
 
-    @Override
-    public boolean equals(Object other) {
-        return other instanceof ArrayTypeChecker at && elementType.equals(at.getElementType())
-                && dimensions == at.getDimensions();
-    }
-
     @Override
     public String toString() {
         return elementType.toString() + "[]".repeat(dimensions);
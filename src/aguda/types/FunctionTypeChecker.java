@@ -4,7 +4,8 @@ public class FunctionTypeChecker implements Type {
     private final Type from;
     private final Type to;
 
-    public FunctionTypeChecker(Type from, Type to) {
+    // Made by Types.function
+    FunctionTypeChecker(Type from, Type to) {
         this.from = from;
         this.to = to;
     }
@@ -17,14 +18,6 @@ public class FunctionTypeChecker implements Type {
         return to;
     }
 
-    @Override
-    public boolean equals(Object other) {
-        if (other instanceof FunctionTypeChecker ft) {
-            return from.equals(ft.from) && to.equals(ft.to);
-        }
-        return false;
-    }
-
     @Override
     public String toString() {
         return from + " -> " + to;
@@ -1,9 +1,8 @@
 package aguda.types;
 
 public class IntTypeChecker implements Type {
-    @Override
-    public boolean equals(Object other) {
-        return other instanceof IntTypeChecker;
+    // The only one is Types.INT
+    IntTypeChecker() {
     }
 
     @Override
@@ -5,7 +5,8 @@ import java.util.*;
 public class MultiTypeList implements Type {
     private final List<Type> types;
 
-    public MultiTypeList(List<Type> types) {
+    // Made by Types.list
+    MultiTypeList(List<Type> types) {
         this.types = types;
     }
 
@@ -13,14 +14,6 @@ public class MultiTypeList implements Type {
         return types;
     }
 
-    @Override
-    public boolean equals(Object other) {
-        if (other instanceof MultiTypeList mt) {
-            return types.equals(mt.types);
-        }
-        return false;
-    }
-
     @Override
     public String toString() {
         return "(" + String.join(", ", types.stream().map(Type::toString).toList()) + ")";
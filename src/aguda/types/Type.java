@@ -1,5 +1,9 @@
 package aguda.types;
 
+/**
+ * A type of the checker. Every type is made by {@link Types}, once, so two types are equal only if they are the
+ * same object, and equals is the one of Object.
+ */
 public interface Type {
     boolean equals(Object other);
     String toString();
@@ -0,0 +1,71 @@
+package aguda.types;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The only instances of the types: one of each basic type, and one array, function or list type for each
+ * structure, made the first time it is asked for. Two types are equal when they are the same object, so comparing
+ * them never walks their structure, and asking again for a type the program already used allocates nothing.
+ *
+ * Thread-safe, as several files can be checked at once.
+ */
+public final class Types {
+    public static final IntTypeChecker INT = new IntTypeChecker();
+    public static final BoolTypeChecker BOOL = new BoolTypeChecker();
+    public static final StringTypeChecker STRING = new StringTypeChecker();
+    public static final UnitTypeChecker UNIT = new UnitTypeChecker();
+    public static final UndeclaredTypeChecker UNDECLARED = new UndeclaredTypeChecker();
+
+    // The array types of each element type, by number of dimensions, replaced by a longer copy when one is added
+    private static final Map<Type, ArrayTypeChecker[]> arrays = new ConcurrentHashMap<>();
+    // By parameter type, then by return type
+    private static final Map<Type, Map<Type, FunctionTypeChecker>> functions = new ConcurrentHashMap<>();
+    private static final Map<List<Type>, MultiTypeList> lists = new ConcurrentHashMap<>();
+
+    private Types() {
+    }
+
+    /**
+     * @param elementType The type of the elements, itself an array type for an array of arrays
+     * @param dimensions The number of dimensions, not negative
+     */
+    public static ArrayTypeChecker array(Type elementType, int dimensions) {
+        ArrayTypeChecker[] byDimensions = arrays.get(elementType);
+        if (byDimensions != null && dimensions < byDimensions.length && byDimensions[dimensions] != null) {
+            return byDimensions[dimensions];
+        }
+        return addArray(elementType, dimensions);
+    }
+
+    private static synchronized ArrayTypeChecker addArray(Type elementType, int dimensions) {
+        ArrayTypeChecker[] byDimensions = arrays.getOrDefault(elementType, new ArrayTypeChecker[0]);
+        if (dimensions < byDimensions.length && byDimensions[dimensions] != null) {
+            return byDimensions[dimensions];
+        }
+        byDimensions = Arrays.copyOf(byDimensions, Math.max(byDimensions.length, dimensions + 1));
+        ArrayTypeChecker type = new ArrayTypeChecker(elementType, dimensions);
+        byDimensions[dimensions] = type;
+        arrays.put(elementType, byDimensions);
+        return type;
+    }
+
+    public static FunctionTypeChecker function(Type from, Type to) {
+        Map<Type, FunctionTypeChecker> byReturnType = functions.get(from);
+        FunctionTypeChecker function = byReturnType != null ? byReturnType.get(to) : null;
+        if (function != null) {
+            return function;
+        }
+        return functions.computeIfAbsent(from, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(to, key -> new FunctionTypeChecker(from, to));
+    }
+
+    /**
+     * @param types The types of the list, in order
+     */
+    public static MultiTypeList list(List<Type> types) {
+        MultiTypeList list = lists.get(types);
+        // An ArrayList underneath, like the lists the checker used to build, whose index errors the checker reports
+        return list != null ? list : lists.computeIfAbsent(Collections.unmodifiableList(new ArrayList<>(types)), MultiTypeList::new);
+    }
+}
@@ -1,9 +1,8 @@
 package aguda.types;
 
 public class UndeclaredTypeChecker implements Type {
-    @Override
-    public boolean equals(Object other) {
-        return other instanceof UndeclaredTypeChecker;
+    // The only one is Types.UNDECLARED
+    UndeclaredTypeChecker() {
     }
 
     @Override
@@ -0,0 +1,64 @@
+#!/bin/bash
+
+# Compares a full suite run with one JVM per test (app.Main) against
+# the same run through a warm compile server (app.Client -> app.Main --server).
+
+# Base directory where tests are stored
+TEST_DIR="test/test"
+CLASSPATH="/app/antlr-4.13.2-complete.jar:/app/src:/app/app"
+
+# Test categories
+CATEGORIES=("valid" "invalid-syntax" "invalid-semantic")
+# Allow user to specify the mode and max number of errors (default = --test-semantic 10)
+MODE="${1:---test-semantic}"
+MAX_ERRORS="${2:-10}"
+export AGUDA_PORT="${AGUDA_PORT:-4545}"
+
+if ! [[ "$MAX_ERRORS" =~ ^[0-9]+$ ]]; then
+    echo "Invalid argument: must be a number."
+    exit 1
+fi
+
+# Runs every test of the suite with the given main class and prints the elapsed milliseconds
+run_suite() {
+    local main_class="$1"
+    local start end total=0
+    start=$(date +%s%N)
+    for category in "${CATEGORIES[@]}"; do
+        for test_case_dir in "$TEST_DIR/$category"/*/; do
+            [ -d "$test_case_dir" ] || continue
+            agu_file=$(find "$test_case_dir" -maxdepth 1 -name "*.agu" | head -n 1)
+            [ -n "$agu_file" ] || continue
+            java -XX:TieredStopAtLevel=1 -Xshare:auto -cp "$CLASSPATH" "$main_class" "$agu_file" "$MODE" "$MAX_ERRORS" > /dev/null 2>&1
+            ((total++))
+        done
+    done
+    end=$(date +%s%N)
+    echo "$total $(( (end - start) / 1000000 ))"
+}
+
+echo "Running suite with one JVM per test..."
+read -r tests per_process_ms <<< "$(run_suite app.Main)"
+
+echo "Starting compile server on port $AGUDA_PORT..."
+java -cp "$CLASSPATH" app.Main --server "$AGUDA_PORT" > /dev/null &
+SERVER_PID=$!
+# Wait until the server accepts connections
+for _ in $(seq 1 50); do
+    (echo > "/dev/tcp/127.0.0.1/$AGUDA_PORT") 2>/dev/null && break
+    sleep 0.1
+done
+
+# Warm up run, so the second one measures a warm server
+run_suite app.Client > /dev/null
+echo "Running suite through the compile server..."
+read -r _ server_ms <<< "$(run_suite app.Client)"
+
+java -cp "$CLASSPATH" app.Client --shutdown > /dev/null 2>&1
+wait "$SERVER_PID" 2>/dev/null
+
+# Final console summary
+echo -e "\n=============================== 📋"
+echo "⏱️  BENCHMARK ($MODE, $tests tests)"
+echo "🐢 One JVM per test: ${per_process_ms} ms ($(( per_process_ms / (tests > 0 ? tests : 1) )) ms/test)"
+echo "🚀 Compile server:   ${server_ms} ms ($(( server_ms / (tests > 0 ? tests : 1) )) ms/test)"
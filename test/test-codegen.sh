@@ -8,12 +8,20 @@ LOG_FILE="logs/Test_Execution-$(date +'%d%m%Y-%H%M').log"
 CATEGORIES=("valid")
 # Allow user to specify max number of errors (default = 10)
 MAX_ERRORS="${1:-10}"
+# Optional "jit" runs the programs with lli instead of building them (--run-jit)
+EXEC_MODE="${2:-aot}"
 
 if ! [[ "$MAX_ERRORS" =~ ^[0-9]+$ ]]; then
     echo "Invalid argument: must be a number."
     exit 1
 fi
 
+case "$EXEC_MODE" in
+    aot) EXEC_FLAG="--test-execution" ;;
+    jit) EXEC_FLAG="--run-jit" ;;
+    *) echo "Invalid argument: execution mode must be aot or jit."; exit 1 ;;
+esac
+
 
 # Reset log file
 echo "Test Report" > "$LOG_FILE"
@@ -30,6 +38,10 @@ valid_failed=0
 
 # Temporary file to store only failed test logs
 FAILED_DETAILS=$(mktemp)
+# The compiler appends "hit" or "miss" here on every lookup in its artifact cache, which is only used when
+# AGUDA_CACHE names its directory
+export AGUDA_CACHE_LOG=$(mktemp)
+CACHE_OPTION=${AGUDA_CACHE:+-Daguda.cache=$AGUDA_CACHE}
 
 echo "Running tests..."
 
@@ -56,7 +68,7 @@ for category in "${CATEGORIES[@]}"; do
         test_rel_path="$category/$test_name/$(basename "$agu_file")"
         ((total++))
 
-        output=$(java -cp /app/antlr-4.13.2-complete.jar:/app/src:/app/app app.Main "$agu_file" --test-execution "$MAX_ERRORS" 2>&1)
+        output=$(java $CACHE_OPTION -cp /app/antlr-4.13.2-complete.jar:/app/src:/app/app app.Main "$agu_file" "$EXEC_FLAG" "$MAX_ERRORS" 2>&1)
         result=$?
 
         if [ $result -eq 0 ]; then
@@ -76,11 +88,17 @@ for category in "${CATEGORIES[@]}"; do
     done
 done
 
+cache_hits=$(grep -c '^hit' "$AGUDA_CACHE_LOG")
+cache_misses=$(grep -c '^miss' "$AGUDA_CACHE_LOG")
+
 # Write summary
 {
     echo ""
     echo "📊 Test Summary:"
     echo "📊 TOTAL: $total | ✅ PASSED: $passed | ❌ FAILED: $failed"
+    if [ -n "$AGUDA_CACHE" ]; then
+        echo "🗄️  CACHE: $cache_hits hit(s) | $cache_misses miss(es)"
+    fi
 } >> "$LOG_FILE"
 
 # Append failed test details at the end
@@ -89,10 +107,11 @@ if [ $failed -gt 0 ]; then
     cat "$FAILED_DETAILS" >> "$LOG_FILE"
 fi
 
-rm "$FAILED_DETAILS"
+rm "$FAILED_DETAILS" "$AGUDA_CACHE_LOG"
 
 # Final console summary
 echo -e "\n=============================== 📋"
 echo "✅ SUMMARY"
 echo "📊 TOTAL: $total | ✅ PASSED: $passed | ❌ FAILED: $failed"
+echo "🗄️  CACHE: $cache_hits hit(s) | $cache_misses miss(es)"
 echo "📝 Report written to $LOG_FILE"
\ No newline at end of file